@@ -0,0 +1,35 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Leaderboards armados a mano para los benchmarks, sin PointsManager ni almacenamiento.
+ * Vive en el paquete de points porque construir versiones es package-private.
+ */
+public final class LeaderboardFixtures {
+
+    private LeaderboardFixtures() {
+    }
+
+    /**
+     * Un leaderboard con un jugador por UUID, con puntos distintos para que cada uno tenga su puesto.
+     */
+    public static LeaderboardSnapshot snapshot(List<UUID> players) {
+        List<PointsManager.PlayerScore> scores = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            scores.add(new PointsManager.PlayerScore(players.get(i), "Jugador" + i, 1_000 + i * 10));
+        }
+        return LeaderboardSnapshot.EMPTY.with(scores);
+    }
+
+    /**
+     * La versión siguiente con el puntaje de un jugador cambiado (lo que pasa al ganar puntos).
+     */
+    public static LeaderboardSnapshot withPoints(LeaderboardSnapshot snapshot, UUID uuid, int points) {
+        PointsManager.PlayerScore current = snapshot.get(uuid);
+        String name = (current != null) ? current.playerName() : "Jugador";
+        return snapshot.with(List.of(new PointsManager.PlayerScore(uuid, name, points)));
+    }
+}
@@ -0,0 +1,187 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Score;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.ScoreboardManager;
+import org.bukkit.scoreboard.Team;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Un Bukkit de mentira para los benchmarks: solo lo que usa el sidebar, sin servidor.
+ * Cada objeto guarda su estado en mapas (como el servidor), así que la memoria y las asignaciones se parecen a las reales.
+ * Cualquier otro método devuelve el valor por defecto de su tipo.
+ * <p>
+ * Para el backend por paquetes hay una conexión de mentira ({@link CountingPacketSink}) que cuenta los paquetes
+ * en lugar de armarlos: se mide el diff de renglones y lo que guarda por jugador, no la construcción ni el envío
+ * de cada paquete.
+ */
+final class FakeBukkit {
+
+    private FakeBukkit() {
+    }
+
+    static ScoreboardManager scoreboardManager() {
+        Scoreboard main = scoreboard();
+        return proxy(ScoreboardManager.class, (method, args) -> switch (method) {
+            case "getNewScoreboard" -> scoreboard();
+            case "getMainScoreboard" -> main;
+            default -> null;
+        });
+    }
+
+    static Player player(UUID uuid, String name) {
+        Scoreboard[] current = new Scoreboard[1];
+        return proxy(Player.class, (method, args) -> switch (method) {
+            case "getUniqueId" -> uuid;
+            case "getName" -> name;
+            case "isOnline" -> true;
+            case "getScoreboard" -> current[0];
+            case "setScoreboard" -> current[0] = (Scoreboard) args[0];
+            default -> null;
+        });
+    }
+
+    /**
+     * Cuenta los paquetes que {@link PacketSidebarBackend} mandaría. No asigna nada por paquete.
+     */
+    static final class CountingPacketSink implements PacketSidebarBackend.PacketSink {
+
+        long sent;
+
+        @Override
+        public Object connection(Player player) {
+            return player;
+        }
+
+        @Override
+        public void showObjective(Object connection) {
+            sent += 2; // El objective y el display.
+        }
+
+        @Override
+        public void removeObjective(Object connection) {
+            sent++;
+        }
+
+        @Override
+        public void setScore(Object connection, String entry, int score, String text) {
+            sent++;
+        }
+
+        @Override
+        public void resetScore(Object connection, String entry) {
+            sent++;
+        }
+    }
+
+    private static Scoreboard scoreboard() {
+        Map<String, Objective> objectives = new HashMap<>();
+        Map<String, Team> teams = new HashMap<>();
+        Map<String, Integer> scores = new HashMap<>();
+        Scoreboard[] self = new Scoreboard[1];
+        self[0] = proxy(Scoreboard.class, (method, args) -> switch (method) {
+            case "registerNewObjective" -> {
+                Objective objective = objective((String) args[0], scores);
+                objectives.put((String) args[0], objective);
+                yield objective;
+            }
+            case "getObjective" -> (args[0] instanceof String name) ? objectives.get(name) : null;
+            case "registerNewTeam" -> {
+                Team team = team((String) args[0]);
+                teams.put((String) args[0], team);
+                yield team;
+            }
+            case "getTeam" -> teams.get((String) args[0]);
+            case "getEntries" -> scores.keySet();
+            case "resetScores" -> scores.remove((String) args[0]);
+            default -> null;
+        });
+        return self[0];
+    }
+
+    private static Objective objective(String name, Map<String, Integer> scores) {
+        return proxy(Objective.class, (method, args) -> switch (method) {
+            case "getName" -> name;
+            case "getScore" -> score((String) args[0], scores);
+            default -> null;
+        });
+    }
+
+    private static Score score(String entry, Map<String, Integer> scores) {
+        return proxy(Score.class, (method, args) -> switch (method) {
+            case "getEntry" -> entry;
+            case "getScore" -> scores.getOrDefault(entry, 0);
+            case "setScore" -> scores.put(entry, (Integer) args[0]);
+            case "isScoreSet" -> scores.containsKey(entry);
+            default -> null;
+        });
+    }
+
+    private static Team team(String name) {
+        String[] prefix = {""};
+        Map<String, Boolean> entries = new HashMap<>();
+        return proxy(Team.class, (method, args) -> switch (method) {
+            case "getName" -> name;
+            case "getPrefix" -> prefix[0];
+            case "setPrefix" -> prefix[0] = (String) args[0];
+            case "addEntry" -> entries.put((String) args[0], Boolean.TRUE);
+            case "hasEntry" -> entries.containsKey((String) args[0]);
+            default -> null;
+        });
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + "@fake";
+                };
+            }
+            Object result = handler.handle(method.getName(), args);
+            return (result != null) ? defaultIfWrongType(method.getReturnType(), result) : defaultValue(method.getReturnType());
+        });
+    }
+
+    // Los "put" y "remove" de los mapas devuelven el valor anterior; si el método real es void o de otro tipo, lo descarto.
+    private static Object defaultIfWrongType(Class<?> type, Object result) {
+        if (type == void.class) {
+            return null;
+        }
+        if (type.isPrimitive() || type.isInstance(result)) {
+            return result;
+        }
+        return defaultValue(type);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import com.TNTStudios.deWaltCore.points.LeaderboardFixtures;
+import com.TNTStudios.deWaltCore.points.LeaderboardSnapshot;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Mis benchmarks del scoreboard: armar los renglones, redibujar la página de un jugador y una ola de
+ * redibujados (todos los jugadores, como cuando cambia el top) con 50, 200 y 500 jugadores,
+ * con los dos backends ({@code bukkit} y {@code packets}).
+ * Se corren con {@code ./gradlew jmh}; el profiler gc agrega las asignaciones por operación.
+ * <p>
+ * El scoreboard de Bukkit y la conexión del backend por paquetes son de mentira ({@link FakeBukkit}), así que esto
+ * mide mi código y el estado que guarda por jugador, no el envío. Con {@code packets}, los contadores {@code packets}
+ * y {@code operations} son totales de la corrida: {@code packets / operations} son los paquetes por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoreboardBenchmark {
+
+    @State(Scope.Thread)
+    public static class Server {
+
+        @Param({"50", "200", "500"})
+        public int players;
+
+        @Param({"bukkit", "packets"})
+        public String backend;
+
+        List<Player> online;
+        SidebarBackend sidebar;
+        // Solo con el backend por paquetes.
+        FakeBukkit.CountingPacketSink sink;
+        long counted;
+        // Dos versiones con distinto top: alternarlas obliga a formatear el top en cada ola.
+        LeaderboardSnapshot leaderboardA;
+        LeaderboardSnapshot leaderboardB;
+        int wave;
+        int player;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            online = new ArrayList<>(players);
+            List<UUID> uuids = new ArrayList<>(players);
+            for (int i = 0; i < players; i++) {
+                UUID uuid = new UUID(0x44574C0000000000L, i);
+                uuids.add(uuid);
+                online.add(FakeBukkit.player(uuid, "Jugador" + i));
+            }
+            leaderboardA = LeaderboardFixtures.snapshot(uuids);
+            leaderboardB = LeaderboardFixtures.withPoints(leaderboardA, uuids.get(0), 1_000_000);
+            if ("packets".equals(backend)) {
+                sink = new FakeBukkit.CountingPacketSink();
+                sidebar = new PacketSidebarBackend(Logger.getLogger("ScoreboardBenchmark"), sink);
+            } else {
+                sidebar = new BukkitSidebarBackend(FakeBukkit.scoreboardManager());
+            }
+            // Todos empiezan con su sidebar ya pintado, como en el servidor.
+            for (Player player : online) {
+                render(player, leaderboardA);
+            }
+            // Los paquetes del primer pintado no cuentan para ninguna iteración.
+            counted = (sink != null) ? sink.sent : 0;
+        }
+
+        void render(Player player, LeaderboardSnapshot leaderboard) {
+            int rank = leaderboard.getRank(player.getUniqueId());
+            int points = leaderboard.get(player.getUniqueId()).points();
+            sidebar.render(player, ScoreboardStyle.buildDefaultPageLines(ScoreboardStyle.getTopSegment(leaderboard), rank, points, false));
+        }
+
+        // Paso al contador lo que mandó el backend desde la última vez.
+        void count(Sent sent) {
+            sent.operations++;
+            if (sink != null) {
+                sent.packets += sink.sent - counted;
+                counted = sink.sent;
+            }
+        }
+    }
+
+    /**
+     * Los paquetes que mandó el backend por paquetes y las operaciones que los mandaron. JMH suma los contadores
+     * EVENTS en lugar de dividirlos entre las operaciones, por eso llevo las dos cuentas.
+     * Con {@code bukkit}, {@code packets} se queda en 0: ahí los paquetes los arma el servidor a partir del Scoreboard
+     * y no los veo.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Sent {
+
+        public long packets;
+        public long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            packets = 0;
+            operations = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lines {
+
+        LeaderboardSnapshot leaderboardA;
+        LeaderboardSnapshot leaderboardB;
+        List<String> topSegment;
+        int rank;
+        int version;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<UUID> uuids = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                uuids.add(new UUID(0x44574C0000000000L, i));
+            }
+            leaderboardA = LeaderboardFixtures.snapshot(uuids);
+            leaderboardB = LeaderboardFixtures.withPoints(leaderboardA, uuids.get(0), 1_000_000);
+            topSegment = ScoreboardStyle.getTopSegment(leaderboardA);
+        }
+    }
+
+    /**
+     * Solo armar los renglones de un jugador con el top ya formateado.
+     */
+    @Benchmark
+    public List<String> buildLines(Lines state) {
+        state.rank = (state.rank % 500) + 1;
+        return ScoreboardStyle.buildDefaultPageLines(state.topSegment, state.rank, 1_000 + state.rank, false);
+    }
+
+    /**
+     * Formatear el top desde cero (lo que pasa una vez por cambio del top, no por jugador).
+     */
+    @Benchmark
+    public List<String> buildTopSegment(Lines state) {
+        state.version++;
+        return ScoreboardStyle.getTopSegment((state.version & 1) == 0 ? state.leaderboardA : state.leaderboardB);
+    }
+
+    /**
+     * Redibujar la página de un jugador cuyo puesto cambió: un solo renglón distinto.
+     */
+    @Benchmark
+    public void refreshOnePlayer(Server state, Sent sent) {
+        int turn = state.player++;
+        Player player = state.online.get(turn % state.players);
+        // Cada vuelta completa cambia de versión, así que cada jugador ve un puesto distinto al anterior.
+        LeaderboardSnapshot leaderboard = ((turn / state.players) & 1) == 0 ? state.leaderboardB : state.leaderboardA;
+        state.render(player, leaderboard);
+        state.count(sent);
+    }
+
+    /**
+     * Pintar la página de un jugador que acaba de entrar: crea su scoreboard y manda todos los renglones.
+     */
+    @Benchmark
+    public void firstRender(Server state, Sent sent) {
+        Player player = state.online.get(state.player++ % state.players);
+        state.sidebar.clear(player);
+        state.render(player, state.leaderboardA);
+        state.count(sent);
+    }
+
+    /**
+     * Cambió el top: redibujo a todos los jugadores online.
+     */
+    @Benchmark
+    public void refreshWave(Server state, Sent sent, Blackhole blackhole) {
+        state.wave++;
+        LeaderboardSnapshot leaderboard = (state.wave & 1) == 0 ? state.leaderboardA : state.leaderboardB;
+        for (Player player : state.online) {
+            state.render(player, leaderboard);
+        }
+        state.count(sent);
+        blackhole.consume(leaderboard.getVersion());
+    }
+}
@@ -15,8 +15,11 @@ import com.TNTStudios.deWaltCore.minigames.woodcutter.WoodcutterManager;
 import com.TNTStudios.deWaltCore.minigames.maze.MazeCommand;
 import com.TNTStudios.deWaltCore.minigames.maze.MazeManager;
 import com.TNTStudios.deWaltCore.minigames.maze.MinigameListener;
+import com.TNTStudios.deWaltCore.persistence.StorageBackend;
 import com.TNTStudios.deWaltCore.points.PointsManager;
+import com.TNTStudios.deWaltCore.scoreboard.DeWaltScoreboardManager;
 import com.TNTStudios.deWaltCore.scoreboard.ScoreboardListener;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardPages;
 import com.TNTStudios.deWaltCore.registration.EmailValidator;
 import com.TNTStudios.deWaltCore.registration.RegistrationListener;
 import com.TNTStudios.deWaltCore.registration.RegistrationManager;
@@ -38,6 +41,7 @@ public final class DeWaltCore extends JavaPlugin {
     private RegistrationManager registrationManager;
     private EmailValidator emailValidator;
     private HelmetManager helmetManager;
+    private StorageBackend storageBackend;
 
     @Override
     public void onEnable() {
@@ -52,23 +56,28 @@ public final class DeWaltCore extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new HelmetListener(this.helmetManager, this), this);
         getLogger().info("Sistema de casco permanente cargado.");
 
+        // --- MI ALMACENAMIENTO ---
+        // Archivos o SQLite, según storage.type en config.yml.
+        this.storageBackend = StorageBackend.fromConfig(this);
+
         // --- MI NUEVO SISTEMA DE REGISTRO ---
         getLogger().info("Inicializando el sistema de registro de jugadores...");
-        this.registrationManager = new RegistrationManager(this);
+        this.registrationManager = new RegistrationManager(this, storageBackend.getRegistrationStorage());
         getServer().getPluginManager().registerEvents(
                 new RegistrationListener(this.registrationManager), this
         );
         getLogger().info("Sistema de registro cargado correctamente.");
 
         // --- Scoreboard ---
+        DeWaltScoreboardManager.configure(this);
         getServer().getPluginManager().registerEvents(
-                new ScoreboardListener(), this
+                new ScoreboardListener(this), this
         );
 
         getServer().getPluginManager().registerEvents(new LobbyListener(), this);
 
         // --- Sistema de Puntos y Minijuegos ---
-        pointsManager = new PointsManager(this);
+        pointsManager = new PointsManager(this, storageBackend.getPointsStorage());
         mazeManager = new MazeManager(this, pointsManager);
         drillManager = new DrillManager(this, pointsManager);
         woodcutterManager = new WoodcutterManager(this, pointsManager);
@@ -113,8 +122,12 @@ public final class DeWaltCore extends JavaPlugin {
             @Override
             public void run() {
                 if (pointsManager != null) {
+                    // Primero saco de memoria a los inactivos; así el guardado ya no los incluye.
+                    pointsManager.evictDormantPlayers();
                     pointsManager.saveLeaderboardAsync();
                     getLogger().info("El leaderboard ha sido guardado automáticamente en segundo plano.");
+                    // Aprovecho la misma tarea asíncrona para el mantenimiento del almacenamiento de puntos.
+                    pointsManager.runStorageMaintenance();
                 }
             }
         }.runTaskTimerAsynchronously(this, 6000L, 6000L);
@@ -122,10 +135,19 @@ public final class DeWaltCore extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        ScoreboardPages.clearLiveStats();
+        if (mazeManager != null) {
+            mazeManager.shutdown();
+        }
         if (pointsManager != null) {
             getLogger().info("Guardando leaderboard final antes de apagar...");
             pointsManager.saveLeaderboardSync();
             getLogger().info("Leaderboard guardado correctamente.");
+            pointsManager.closeStorage();
+            getLogger().info("Almacenamiento de puntos cerrado.");
+        }
+        if (storageBackend != null) {
+            storageBackend.close();
         }
     }
 
@@ -0,0 +1,267 @@
+package com.TNTStudios.deWaltCore.minigames;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Arrays;
+
+/**
+ * Mi programador de restauraciones para cambios temporales en el mundo (barrotes cortados, bloques rotos, etc.).
+ * <p>
+ * Es una rueda de tiempo: {@value #WHEEL_SIZE} casillas, una por tick, cada una con una lista enlazada de entradas.
+ * Programar y restaurar cuesta O(1) y no crea objetos por bloque: las posiciones van empacadas en un {@code long}
+ * (igual que el BlockPos de Minecraft) dentro de arreglos paralelos, y de cada bloque solo guardo su {@link BlockData},
+ * no un {@code BlockState} completo. Un índice abierto por posición me dice si un bloque ya está pendiente,
+ * para no capturar como "original" el bloque ya modificado.
+ * <p>
+ * Cada tick restauro como mucho {@code maxRestoresPerTick} bloques; lo que sobre se queda para el siguiente tick,
+ * así una ola de cortes al mismo tiempo no se vuelve un pico de lag.
+ * <p>
+ * No es thread-safe: todo pasa en el hilo principal. El dueño llama a {@link #tick()} una vez por tick.
+ */
+public final class BlockRestoreScheduler {
+
+    // Potencia de dos, mayor que los retrasos habituales; los más largos simplemente dan más vueltas.
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NONE = -1;
+
+    private final int maxRestoresPerTick;
+
+    // --- MIS ENTRADAS EN ARREGLOS PARALELOS ---
+    // Un índice por entrada; las libres se encadenan por next[] en freeHead.
+    private long[] positions;
+    private World[] worlds;
+    private BlockData[] originals;
+    private long[] dueTicks;
+    private int[] next;
+    private int freeHead = NONE;
+    private int allocated = 0;
+    private int size = 0;
+
+    private final int[] slotHeads = new int[WHEEL_SIZE];
+
+    // Índice posición -> entrada, con direccionamiento abierto (sondeo lineal). Guardo entrada + 1; 0 es vacío.
+    private int[] table;
+
+    private long currentTick = 0;
+    // El siguiente tick cuya casilla falta revisar. Va por detrás de currentTick solo si se agotó el presupuesto.
+    private long cursorTick = 0;
+
+    public BlockRestoreScheduler(int maxRestoresPerTick) {
+        this.maxRestoresPerTick = Math.max(1, maxRestoresPerTick);
+        Arrays.fill(slotHeads, NONE);
+        int capacity = 64;
+        positions = new long[capacity];
+        worlds = new World[capacity];
+        originals = new BlockData[capacity];
+        dueTicks = new long[capacity];
+        next = new int[capacity];
+        table = new int[capacity * 2];
+    }
+
+    /**
+     * Pongo {@code replacement} en el bloque y programo que vuelva a lo que era dentro de {@code delayTicks}.
+     *
+     * @return false si el bloque ya tenía una restauración pendiente (no la alargo ni la piso).
+     */
+    public boolean replaceTemporarily(Block block, BlockData replacement, int delayTicks) {
+        World world = block.getWorld();
+        long position = pack(block.getX(), block.getY(), block.getZ());
+        if (find(world, position) != NONE) {
+            return false;
+        }
+        BlockData original = block.getBlockData();
+        block.setBlockData(replacement);
+
+        int entry = allocate();
+        positions[entry] = position;
+        worlds[entry] = world;
+        originals[entry] = original;
+        dueTicks[entry] = currentTick + Math.max(0, delayTicks);
+        int slot = (int) (dueTicks[entry] & WHEEL_MASK);
+        next[entry] = slotHeads[slot];
+        slotHeads[slot] = entry;
+        insertIndex(entry);
+        size++;
+        return true;
+    }
+
+    public boolean isPending(Block block) {
+        return find(block.getWorld(), pack(block.getX(), block.getY(), block.getZ())) != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Avanzo un tick y restauro lo que ya venció, hasta el presupuesto por tick.
+     */
+    public void tick() {
+        if (size > 0) {
+            int budget = maxRestoresPerTick;
+            while (cursorTick <= currentTick) {
+                budget = drainSlot((int) (cursorTick & WHEEL_MASK), budget);
+                if (budget < 0) {
+                    break; // Lo que queda en esta casilla sale el próximo tick.
+                }
+                cursorTick++;
+                if (budget == 0) {
+                    break;
+                }
+            }
+        } else {
+            cursorTick = currentTick + 1;
+        }
+        currentTick++;
+    }
+
+    /**
+     * Restauro todo lo pendiente de una vez, sin presupuesto. Para el apagado del plugin:
+     * así no quedan barrotes quitados en el mapa guardado.
+     */
+    public void restoreAll() {
+        for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+            int entry = slotHeads[slot];
+            while (entry != NONE) {
+                int following = next[entry];
+                restore(entry);
+                entry = following;
+            }
+            slotHeads[slot] = NONE;
+        }
+        cursorTick = currentTick;
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    // Recorro una casilla restaurando solo lo que ya venció; las entradas de vueltas futuras se quedan.
+    // Devuelvo el presupuesto que sobra.
+    private int drainSlot(int slot, int budget) {
+        int previous = NONE;
+        int entry = slotHeads[slot];
+        while (entry != NONE && budget > 0) {
+            int following = next[entry];
+            if (dueTicks[entry] <= currentTick) {
+                if (previous == NONE) {
+                    slotHeads[slot] = following;
+                } else {
+                    next[previous] = following;
+                }
+                restore(entry);
+                budget--;
+            } else {
+                previous = entry;
+            }
+            entry = following;
+        }
+        // Si me quedé sin presupuesto antes de terminar la casilla, devuelvo -1 para no avanzar el cursor.
+        return (entry != NONE) ? -1 : budget;
+    }
+
+    private void restore(int entry) {
+        long position = positions[entry];
+        worlds[entry].getBlockAt(unpackX(position), unpackY(position), unpackZ(position)).setBlockData(originals[entry], true);
+        removeIndex(entry);
+        worlds[entry] = null;
+        originals[entry] = null;
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int entry = freeHead;
+            freeHead = next[entry];
+            return entry;
+        }
+        if (allocated == positions.length) {
+            grow();
+        }
+        return allocated++;
+    }
+
+    private void grow() {
+        int capacity = positions.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        worlds = Arrays.copyOf(worlds, capacity);
+        originals = Arrays.copyOf(originals, capacity);
+        dueTicks = Arrays.copyOf(dueTicks, capacity);
+        next = Arrays.copyOf(next, capacity);
+        // El índice se reconstruye con el doble de huecos que entradas, para que los sondeos sigan cortos.
+        table = new int[capacity * 2];
+        for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+            for (int entry = slotHeads[slot]; entry != NONE; entry = next[entry]) {
+                insertIndex(entry);
+            }
+        }
+    }
+
+    // --- MI ÍNDICE POR POSICIÓN ---
+
+    private int find(World world, long position) {
+        int mask = table.length - 1;
+        for (int i = hash(position) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int entry = table[i] - 1;
+            if (positions[entry] == position && worlds[entry] == world) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private void insertIndex(int entry) {
+        int mask = table.length - 1;
+        int i = hash(positions[entry]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry + 1;
+    }
+
+    // Borrado con corrimiento hacia atrás: no dejo lápidas, así las búsquedas no se degradan con el tiempo.
+    private void removeIndex(int entry) {
+        int mask = table.length - 1;
+        int i = hash(positions[entry]) & mask;
+        while (table[i] != entry + 1) {
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for (i = (i + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int home = hash(positions[table[i] - 1]) & mask;
+            // Muevo la entrada al hueco si su posición ideal no está entre el hueco y donde está ahora.
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private static int hash(long position) {
+        long h = position * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // --- EMPAQUETADO DE POSICIONES ---
+    // 26 bits para X y Z, 12 para Y, como el BlockPos de Minecraft.
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+}
@@ -3,7 +3,8 @@ package com.TNTStudios.deWaltCore.minigames.concrete;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
 import com.TNTStudios.deWaltCore.points.PointsManager;
-import com.TNTStudios.deWaltCore.scoreboard.DeWaltScoreboardManager;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardPages;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardStyle;
 import io.th0rgal.oraxen.api.OraxenItems;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
@@ -95,6 +96,7 @@ public class ConcreteManager {
   public ConcreteManager(DeWaltCore plugin, PointsManager pointsManager) {
     this.plugin = plugin;
     this.pointsManager = pointsManager;
+    ScoreboardPages.registerLiveStats(this::getLiveStats);
   }
 
   // --- 1. LÓGICA DEL LOBBY (Sin cambios mayores, ya era robusta) ---
@@ -397,33 +399,35 @@ public class ConcreteManager {
     announcement.append("\n" + ChatColor.GOLD + "§m-----------------------------------------------------\n ");
     String finalAnnouncement = announcement.toString();
 
-    // Doy puntos y envío mensajes/títulos individuales.
-    List<PointsManager.PlayerScore> topBefore = pointsManager.getTopPlayers(3);
+    // Pago toda la ronda de una vez: un solo re-ranking. Los scoreboards se refrescan solos con los
+    // eventos del leaderboard, solo para quien cambió de puesto o de puntos (o todos si cambió el top).
+    // Pago por UUID: quien se desconectó durante la espera final no pierde sus puntos (sin nombre, uso el guardado).
+    List<PointsManager.RoundAward> awards = new ArrayList<>(sortedPlayers.size());
+    for (Map.Entry<UUID, Integer> entry : sortedPlayers) {
+      Player p = Bukkit.getPlayer(entry.getKey());
+      awards.add(new PointsManager.RoundAward(entry.getKey(), (p != null) ? p.getName() : null, getPointsForRank(playerRanks.get(entry.getKey()))));
+    }
+    pointsManager.awardRound("concrete_minigame", "Ranking final del minijuego", awards);
 
+    // Envío mensajes/títulos individuales.
     for (Map.Entry<UUID, Integer> entry : sortedPlayers) {
       Player p = Bukkit.getPlayer(entry.getKey());
       if (p == null || !p.isOnline()) continue;
 
       int playerRank = playerRanks.get(entry.getKey());
-      int pointsWon;
+      int pointsWon = getPointsForRank(playerRank);
       String positionMessage;
 
       if (playerRank == 1) {
-        pointsWon = 15;
         positionMessage = ChatColor.GOLD + "¡Ganaste! (1er Lugar)";
       } else if (playerRank == 2) {
-        pointsWon = 7;
         positionMessage = ChatColor.GRAY + "¡Quedaste 2do!";
       } else if (playerRank == 3) {
-        pointsWon = 2;
         positionMessage = ChatColor.DARK_RED + "¡Quedaste 3ro!";
       } else {
-        pointsWon = 1;
         positionMessage = ChatColor.AQUA + "¡Buena partida!";
       }
 
-      pointsManager.addPoints(p, pointsWon, "concrete_minigame", "Ranking final del minijuego");
-
       // MI MEJORA: El mensaje de título ahora es más específico.
       String finalMessage = String.format(ChatColor.YELLOW + "Puesto #%d con %d bloques. " + ChatColor.GREEN + "(+%d pts)",
               playerRank, entry.getValue(), pointsWon);
@@ -432,26 +436,15 @@ public class ConcreteManager {
       // Le envío el resumen final del chat a cada jugador.
       p.sendMessage(finalAnnouncement);
     }
+  }
 
-    // Actualizo los scoreboards de forma inteligente.
-    List<PointsManager.PlayerScore> topAfter = pointsManager.getTopPlayers(3);
-    if (!topBefore.equals(topAfter)) {
-      plugin.getLogger().info("El Top 3 ha cambiado. Actualizando scoreboard para todos los jugadores online...");
-      for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-        int totalPoints = pointsManager.getTotalPoints(onlinePlayer);
-        int topPosition = pointsManager.getPlayerRank(onlinePlayer);
-        DeWaltScoreboardManager.showDefaultPage(onlinePlayer, topPosition, totalPoints, false, topAfter);
-      }
-    } else {
-      for (Map.Entry<UUID, Integer> entry : sortedPlayers) {
-        Player p = Bukkit.getPlayer(entry.getKey());
-        if (p != null && p.isOnline()) {
-          int totalPoints = pointsManager.getTotalPoints(p);
-          int topPosition = pointsManager.getPlayerRank(p);
-          DeWaltScoreboardManager.showDefaultPage(p, topPosition, totalPoints, false, topAfter);
-        }
-      }
-    }
+  private int getPointsForRank(int rank) {
+    return switch (rank) {
+      case 1 -> 15;
+      case 2 -> 7;
+      case 3 -> 2;
+      default -> 1;
+    };
   }
 
 
@@ -546,6 +539,17 @@ public class ConcreteManager {
     return gameScores.containsKey(player.getUniqueId());
   }
 
+  /**
+   * Lo que enseño en la página en vivo del scoreboard mientras el jugador está en la ronda.
+   */
+  public ScoreboardPages.LiveStats getLiveStats(UUID uuid) {
+    Integer score = gameScores.get(uuid);
+    if (score == null) {
+      return null;
+    }
+    return new ScoreboardPages.LiveStats("CONCRETO", "Bloques rotos", String.valueOf(score), "Tiempo restante", ScoreboardStyle.formatTime(gameTimeLeft));
+  }
+
   // MI NUEVO MÉTODO DE UTILIDAD: para verificar si está en el lobby O en el juego.
   public boolean isPlayerInGameOrLobby(Player player) {
     UUID uuid = player.getUniqueId();
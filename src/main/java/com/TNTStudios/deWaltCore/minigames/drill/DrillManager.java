@@ -3,7 +3,8 @@ package com.TNTStudios.deWaltCore.minigames.drill;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
 import com.TNTStudios.deWaltCore.points.PointsManager;
-import com.TNTStudios.deWaltCore.scoreboard.DeWaltScoreboardManager;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardPages;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardStyle;
 import io.th0rgal.oraxen.api.OraxenItems;
 import io.th0rgal.oraxen.items.ItemBuilder;
 import net.md_5.bungee.api.ChatMessageType;
@@ -85,6 +86,7 @@ public class DrillManager {
     public DrillManager(DeWaltCore plugin, PointsManager pointsManager) {
         this.plugin = plugin;
         this.pointsManager = pointsManager;
+        ScoreboardPages.registerLiveStats(this::getLiveStats);
     }
 
     // --- 1. LÓGICA DEL LOBBY ---
@@ -336,19 +338,33 @@ public class DrillManager {
             @Override
             public void run() {
                 int lastScore = -1;
-                int currentRank = 0;
+                int rank = 0;
+                int[] ranks = new int[sortedPlayers.size()];
+                List<PointsManager.RoundAward> awards = new ArrayList<>(sortedPlayers.size());
 
                 for (int i = 0; i < sortedPlayers.size(); i++) {
                     Map.Entry<UUID, PlayerGameState> entry = sortedPlayers.get(i);
-                    Player p = Bukkit.getPlayer(entry.getKey());
-                    if (p == null || !p.isOnline()) continue;
-
                     if (entry.getValue().score != lastScore) {
-                        currentRank = i + 1;
+                        rank = i + 1;
                         lastScore = entry.getValue().score;
                     }
+                    ranks[i] = rank;
+                    // Pago por UUID: quien se desconectó durante la espera final no pierde sus puntos.
+                    Player p = Bukkit.getPlayer(entry.getKey());
+                    awards.add(new PointsManager.RoundAward(entry.getKey(), (p != null) ? p.getName() : null, getPointsForRank(rank)));
+                }
+                // Toda la ronda en una sola transacción: un re-ranking. Los scoreboards se refrescan
+                // con los eventos del leaderboard, solo para quien de verdad cambió.
+                pointsManager.awardRound("drill_competitive", "Ranking final del minijuego", awards);
+
+                for (int i = 0; i < sortedPlayers.size(); i++) {
+                    Map.Entry<UUID, PlayerGameState> entry = sortedPlayers.get(i);
+                    Player p = Bukkit.getPlayer(entry.getKey());
+                    if (p == null || !p.isOnline()) continue;
+
+                    int currentRank = ranks[i];
+                    int pointsWon = getPointsForRank(currentRank);
 
-                    int pointsWon = (currentRank == 1) ? 20 : (currentRank == 2) ? 10 : (currentRank == 3) ? 5 : 1;
                     String positionMessage = (currentRank == 1) ? ChatColor.GOLD + "¡Ganaste! (1er Lugar)"
                             : (currentRank == 2) ? ChatColor.GRAY + "¡Quedaste 2do!"
                             : (currentRank == 3) ? ChatColor.DARK_RED + "¡Quedaste 3ro!"
@@ -359,27 +375,14 @@ public class DrillManager {
 
                     p.sendMessage(top3Message.toString() + personalMessage);
 
-                    pointsManager.addPoints(p, pointsWon, "drill_competitive", "Ranking final del minijuego");
                     p.sendTitle(positionMessage, String.format(ChatColor.YELLOW + "Colocaste %d pinturas.", entry.getValue().score), 10, 80, 20);
-
-                    updatePlayerScoreboard(p);
                 }
             }
         }.runTaskAsynchronously(plugin);
     }
 
-    private void updatePlayerScoreboard(Player player) {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (player.isOnline()) {
-                    int totalPoints = pointsManager.getTotalPoints(player);
-                    int topPosition = pointsManager.getPlayerRank(player);
-                    List<PointsManager.PlayerScore> topPlayers = pointsManager.getTopPlayers(3);
-                    DeWaltScoreboardManager.showDefaultPage(player, topPosition, totalPoints, false, topPlayers);
-                }
-            }
-        }.runTask(plugin);
+    private int getPointsForRank(int rank) {
+        return (rank == 1) ? 20 : (rank == 2) ? 10 : (rank == 3) ? 5 : 1;
     }
 
     public void removePlayerFromGame(Player player, boolean wasDisconnected) {
@@ -443,6 +446,18 @@ public class DrillManager {
         return gamePlayers.containsKey(player.getUniqueId());
     }
 
+    /**
+     * Lo que enseño en la página en vivo del scoreboard mientras el jugador está en la ronda.
+     */
+    public ScoreboardPages.LiveStats getLiveStats(UUID uuid) {
+        PlayerGameState state = gamePlayers.get(uuid);
+        if (state == null) {
+            return null;
+        }
+        return new ScoreboardPages.LiveStats("TALADRO", "Pinturas", String.valueOf(state.score), "Tiempo restante",
+                ScoreboardStyle.formatTime(gameTimeLeft));
+    }
+
     public boolean isPaintingManaged(Entity entity) {
         return allManagedPaintings.contains(entity);
     }
@@ -1,14 +1,19 @@
 package com.TNTStudios.deWaltCore.minigames.maze;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
+import com.TNTStudios.deWaltCore.minigames.BlockRestoreScheduler;
+import com.TNTStudios.deWaltCore.points.Minigame;
 import com.TNTStudios.deWaltCore.points.PointsManager;
-import com.TNTStudios.deWaltCore.scoreboard.DeWaltScoreboardManager;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardPages;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardStyle;
 import io.th0rgal.oraxen.api.OraxenItems;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.*;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.MultipleFacing;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
@@ -17,7 +22,6 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Mi controlador para la lógica del minijuego del laberinto.
@@ -35,10 +39,31 @@ public class MazeManager {
 
     private final Map<UUID, PlayerData> playerStates = new ConcurrentHashMap<>();
 
-    // ANÁLISIS: Uso un ConcurrentSkipListMap (una implementación de NavigableMap) para que los ticks estén ordenados.
-    // Esto me permite acceder solo a las tareas de restauración que ya están vencidas, sin iterar todo el mapa.
-    private final NavigableMap<Long, List<Block>> scheduledRestorations = new ConcurrentSkipListMap<>();
-    private final Map<Block, BlockState> originalBlockStates = new ConcurrentHashMap<>();
+    // --- MI TICK REPARTIDO ---
+    // Cada jugador cae en una de 20 cubetas según su UUID y su trabajo de cada segundo (cuenta atrás, tiempo y
+    // action bar) corre solo en el tick de su cubeta. Así, con 200 jugadores, cada tick atiende a ~10
+    // en lugar de caer los 200 en el mismo. Las cubetas guardan el Player directo y lo suelto al salir.
+    // Solo el hilo principal las toca.
+    private static final int TICK_BUCKETS = 20;
+    private final List<List<PlayerData>> tickBuckets = new ArrayList<>(TICK_BUCKETS);
+    // Los que están cortando barrotes: su minijuego sí necesita cada tick.
+    private final List<PlayerData> activeCutters = new ArrayList<>();
+
+    // Los barrotes cortados vuelven solos a los 3 segundos. La rueda de restauración solo guarda el BlockData
+    // de cada barrote y, si muchos vencen en el mismo tick, los reparte entre los siguientes.
+    private static final int BAR_RESTORE_DELAY_TICKS = 60;
+    private static final int MAX_BAR_RESTORES_PER_TICK = 64;
+    private final BlockRestoreScheduler barRestorer = new BlockRestoreScheduler(MAX_BAR_RESTORES_PER_TICK);
+    private final BlockData airData = Material.AIR.createBlockData();
+
+    // --- MI MODO DE BARROTES POR JUGADOR ---
+    // Con maze.bar-removal = client el mundo no se toca: solo el que cortó ve el hueco (un sendBlockChange),
+    // así no hay escrituras, ni luz, ni paquetes para los demás jugadores. Como el servidor sigue viendo
+    // los barrotes, él mismo pasa al jugador al otro lado.
+    private final boolean clientSideBars;
+    // Todos los pasajes duran lo mismo, así que en la cola quedan ordenados por tick de cierre.
+    private final ArrayDeque<ClientPassage> clientPassages = new ArrayDeque<>();
+    private final Map<UUID, List<ClientPassage>> openPassages = new HashMap<>();
     private long currentTick = 0; // Mi contador de ticks global.
 
     public enum PlayerState {
@@ -50,30 +75,40 @@ public class MazeManager {
     public MazeManager(DeWaltCore plugin, PointsManager pointsManager) {
         this.plugin = plugin;
         this.pointsManager = pointsManager;
+        this.clientSideBars = "client".equalsIgnoreCase(plugin.getConfig().getString("maze.bar-removal", "world"));
+        for (int i = 0; i < TICK_BUCKETS; i++) {
+            tickBuckets.add(new ArrayList<>());
+        }
         startGlobalTimer();
+        ScoreboardPages.registerLiveStats(this::getLiveStats);
     }
 
     private void startGlobalTimer() {
         new BukkitRunnable() {
             @Override
             public void run() {
-                // Primero, proceso la restauración de bloques de forma eficiente.
-                processBlockRestoration();
+                // Primero, restauro los barrotes que ya vencieron.
+                barRestorer.tick();
+                closeExpiredPassages();
 
                 if (playerStates.isEmpty()) {
                     currentTick++;
                     return;
                 }
 
-                // MI CORRECCIÓN: Itero directamente sobre el mapa concurrente.
-                // Es seguro contra ConcurrentModificationException y evita crear un nuevo mapa cada tick.
-                for (Map.Entry<UUID, PlayerData> entry : playerStates.entrySet()) {
-                    UUID uuid = entry.getKey();
-                    PlayerData data = entry.getValue();
-                    Player player = Bukkit.getPlayer(uuid);
+                tickActiveCutters();
+
+                // Solo la cubeta de este tick. La recorro al revés para poder sacar a los desconectados sin saltarme a nadie.
+                List<PlayerData> bucket = tickBuckets.get((int) (currentTick % TICK_BUCKETS));
+                for (int i = bucket.size() - 1; i >= 0; i--) {
+                    PlayerData data = bucket.get(i);
+                    Player player = data.getPlayer();
 
-                    if (player == null || !player.isOnline()) {
-                        playerStates.remove(uuid);
+                    if (!player.isOnline()) {
+                        bucket.remove(i);
+                        activeCutters.remove(data);
+                        playerStates.remove(player.getUniqueId());
+                        openPassages.remove(player.getUniqueId());
                         continue;
                     }
 
@@ -85,9 +120,7 @@ public class MazeManager {
                             tickMaze(player, data);
                             break;
                         case IN_CUTTER_MINIGAME:
-                            if (data.getActiveMinigame() != null) {
-                                data.getActiveMinigame().tick();
-                            }
+                            // El reloj se detiene mientras corta, como siempre.
                             break;
                     }
                 }
@@ -96,45 +129,51 @@ public class MazeManager {
         }.runTaskTimer(plugin, 0L, 1L);
     }
 
-    private void tickPreLobby(Player player, PlayerData data) {
-        if (currentTick % 20 == 0) {
-            int remaining = data.getCountdown();
-            if (remaining > 0) {
-                player.spigot().sendMessage(ChatMessageType.ACTION_BAR,
-                        new TextComponent(ChatColor.AQUA + "El laberinto comienza en " + remaining + " segundos..."));
-                data.setCountdown(remaining - 1);
+    // Los minijuegos de corte avanzan cada tick. El que terminó (su callback ya soltó el minijuego) sale de la lista.
+    private void tickActiveCutters() {
+        for (int i = activeCutters.size() - 1; i >= 0; i--) {
+            PlayerData data = activeCutters.get(i);
+            BoltCutterMinigame minigame = data.getActiveMinigame();
+            // Si se desconectó sin pasar por untrack, dejo de tickear su minijuego ya;
+            // el resto de su estado lo suelta su cubeta.
+            if (minigame == null || !data.getPlayer().isOnline()) {
+                activeCutters.remove(i);
             } else {
-                startMaze(player);
+                minigame.tick();
             }
         }
     }
 
-    private void tickMaze(Player player, PlayerData data) {
-        if (currentTick % 20 == 0) {
-            data.incrementTime();
+    // Una vez por segundo, en el tick de la cubeta del jugador.
+    private void tickPreLobby(Player player, PlayerData data) {
+        int remaining = data.getCountdown();
+        if (remaining > 0) {
             player.spigot().sendMessage(ChatMessageType.ACTION_BAR,
-                    new TextComponent(ChatColor.GREEN + "Tiempo: " + formatTime(data.getTime())));
+                    new TextComponent(ChatColor.AQUA + "El laberinto comienza en " + remaining + " segundos..."));
+            data.setCountdown(remaining - 1);
+        } else {
+            startMaze(player);
         }
     }
 
-    private void processBlockRestoration() {
-        if (scheduledRestorations.isEmpty()) return;
+    // Una vez por segundo, en el tick de la cubeta del jugador.
+    private void tickMaze(Player player, PlayerData data) {
+        data.incrementTime();
+        player.spigot().sendMessage(ChatMessageType.ACTION_BAR,
+                new TextComponent(ChatColor.GREEN + "Tiempo: " + ScoreboardStyle.formatTime(data.getTime())));
+    }
 
-        // Gracias al NavigableMap, solo obtengo las entradas cuyo tick es menor o igual al actual.
-        // Esto es increíblemente más eficiente que iterar un mapa completo.
-        for (Map.Entry<Long, List<Block>> entry : scheduledRestorations.headMap(currentTick, true).entrySet()) {
-            for (Block block : entry.getValue()) {
-                BlockState originalState = originalBlockStates.remove(block);
-                if (originalState != null) {
-                    originalState.update(true, true);
-                }
-            }
-        }
-        // Limpio del mapa todas las entradas que acabo de procesar.
-        scheduledRestorations.headMap(currentTick, true).clear();
+    private void track(PlayerData data) {
+        tickBuckets.get(Math.floorMod(data.getPlayer().getUniqueId().hashCode(), TICK_BUCKETS)).add(data);
+    }
+
+    // Suelto la referencia al Player en cuanto sale del laberinto.
+    private void untrack(PlayerData data) {
+        tickBuckets.get(Math.floorMod(data.getPlayer().getUniqueId().hashCode(), TICK_BUCKETS)).remove(data);
+        activeCutters.remove(data);
     }
 
-    private void removeBarsTemporarily(Block clickedBlock) {
+    private void removeBarsTemporarily(Player player, Block clickedBlock) {
         List<Block> barsToRemove = new ArrayList<>();
         barsToRemove.add(clickedBlock);
         Block blockAbove = clickedBlock.getRelative(0, 1, 0);
@@ -142,24 +181,94 @@ public class MazeManager {
         Block blockBelow = clickedBlock.getRelative(0, -1, 0);
         if (blockBelow.getType() == Material.IRON_BARS) barsToRemove.add(blockBelow);
 
-        long restoreTick = currentTick + 60L; // 3 segundos a partir de ahora.
+        if (clientSideBars) {
+            openClientPassage(player, clickedBlock, barsToRemove);
+            return;
+        }
 
         for (Block bar : barsToRemove) {
-            if (!originalBlockStates.containsKey(bar)) {
-                originalBlockStates.put(bar, bar.getState());
-                // MI CORRECCIÓN: Añado el bloque a la lista del tick de restauración correspondiente.
-                // computeIfAbsent crea la lista si no existe, de forma muy limpia.
-                scheduledRestorations.computeIfAbsent(restoreTick, k -> new ArrayList<>()).add(bar);
-                bar.setType(Material.AIR);
-            }
+            // Si el barrote ya estaba quitado, el programador lo ignora y conserva su original.
+            barRestorer.replaceTemporarily(bar, airData, BAR_RESTORE_DELAY_TICKS);
         }
         clickedBlock.getWorld().playSound(clickedBlock.getLocation(), Sound.ENTITY_SHEEP_SHEAR, 1.0f, 0.8f);
     }
 
-    // El resto de los métodos (joinPreLobby, startMaze, startBoltCutterMinigame, leaveGame, finishMaze, etc.)
-    // no necesitan cambios estructurales y se integran perfectamente con la nueva lógica optimizada.
+    /**
+     * El hueco solo existe en el cliente del que cortó: le mando aire en lugar de los barrotes
+     * y guardo el pasaje para devolvérselos a los 3 segundos.
+     */
+    private void openClientPassage(Player player, Block clickedBlock, List<Block> bars) {
+        for (Block bar : bars) {
+            player.sendBlockChange(bar.getLocation(), airData);
+        }
+        ClientPassage passage = new ClientPassage(player, bars, currentTick + BAR_RESTORE_DELAY_TICKS);
+        clientPassages.addLast(passage);
+        openPassages.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>()).add(passage);
+
+        player.playSound(clickedBlock.getLocation(), Sound.ENTITY_SHEEP_SHEAR, 1.0f, 0.8f);
+        carryThroughPassage(player, clickedBlock);
+    }
+
+    /**
+     * Para el servidor los barrotes siguen ahí y rechazaría el movimiento del jugador a través de ellos,
+     * así que lo paso yo al bloque del otro lado, cruzando la fila de barrotes.
+     */
+    private void carryThroughPassage(Player player, Block clickedBlock) {
+        Location from = player.getLocation();
+        BlockFace facing = player.getFacing();
+        int dx = 0;
+        int dz = 0;
+        if (crossesAlongX(clickedBlock, facing)) {
+            dx = Integer.signum(clickedBlock.getX() - from.getBlockX());
+            if (dx == 0) dx = facing.getModX();
+        } else {
+            dz = Integer.signum(clickedBlock.getZ() - from.getBlockZ());
+            if (dz == 0) dz = facing.getModZ();
+        }
+        if (dx == 0 && dz == 0) return;
+
+        Block target = clickedBlock.getWorld().getBlockAt(clickedBlock.getX() + dx, from.getBlockY(), clickedBlock.getZ() + dz);
+        if (!target.isPassable() || !target.getRelative(0, 1, 0).isPassable()) return;
 
-    // ... [Aquí irían el resto de tus métodos sin cambios: joinPreLobby, startMaze, etc.] ...
+        Location destination = target.getLocation().add(0.5, 0, 0.5);
+        destination.setYaw(from.getYaw());
+        destination.setPitch(from.getPitch());
+        player.teleport(destination);
+    }
+
+    // El eje lo dicen las conexiones de los barrotes: si la fila va de norte a sur, se cruza en X, y al revés.
+    // Un barrote suelto o una esquina no lo dicen; ahí uso hacia dónde mira el jugador.
+    private static boolean crossesAlongX(Block bar, BlockFace facing) {
+        if (bar.getBlockData() instanceof MultipleFacing bars) {
+            boolean northSouth = bars.hasFace(BlockFace.NORTH) || bars.hasFace(BlockFace.SOUTH);
+            boolean eastWest = bars.hasFace(BlockFace.EAST) || bars.hasFace(BlockFace.WEST);
+            if (northSouth != eastWest) return northSouth;
+        }
+        return facing.getModX() != 0;
+    }
+
+    // Devuelvo los barrotes reales a quien ya se le venció el pasaje.
+    private void closeExpiredPassages() {
+        while (!clientPassages.isEmpty() && clientPassages.peekFirst().closeTick <= currentTick) {
+            ClientPassage passage = clientPassages.pollFirst();
+            List<ClientPassage> open = openPassages.get(passage.player.getUniqueId());
+            // Si no está en su lista, ya lo cerré cuando salió del laberinto.
+            if (open == null || !open.remove(passage)) continue;
+            if (open.isEmpty()) {
+                openPassages.remove(passage.player.getUniqueId());
+            }
+            passage.close();
+        }
+    }
+
+    // Cierro todos los pasajes del jugador (salió o terminó el laberinto).
+    private void closePassagesOf(Player player) {
+        List<ClientPassage> open = openPassages.remove(player.getUniqueId());
+        if (open == null) return;
+        for (ClientPassage passage : open) {
+            passage.close();
+        }
+    }
 
     public void joinPreLobby(Player player) {
         if (isPlayerInGame(player)) {
@@ -168,9 +277,10 @@ public class MazeManager {
         }
 
         player.teleport(PRE_LOBBY_LOCATION);
-        PlayerData data = new PlayerData(PlayerState.IN_PRE_LOBBY);
+        PlayerData data = new PlayerData(player, PlayerState.IN_PRE_LOBBY);
         data.setCountdown(30);
         playerStates.put(player.getUniqueId(), data);
+        track(data);
     }
 
     public void startMaze(Player player) {
@@ -196,18 +306,23 @@ public class MazeManager {
 
         BoltCutterMinigame minigame = new BoltCutterMinigame(player, success -> {
             if (success) {
-                removeBarsTemporarily(clickedBlock);
+                removeBarsTemporarily(player, clickedBlock);
             }
             data.setState(PlayerState.IN_MAZE);
             data.setActiveMinigame(null);
         });
 
         data.setActiveMinigame(minigame);
+        if (!activeCutters.contains(data)) {
+            activeCutters.add(data);
+        }
     }
 
     public void leaveGame(Player player, boolean teleportToExit) {
         PlayerData data = playerStates.remove(player.getUniqueId());
         if (data == null) return;
+        untrack(data);
+        closePassagesOf(player);
 
         if (data.getActiveMinigame() != null) {
             data.getActiveMinigame().cancel();
@@ -224,6 +339,10 @@ public class MazeManager {
 
     public void finishMaze(Player player) {
         PlayerData data = playerStates.remove(player.getUniqueId());
+        if (data != null) {
+            untrack(data);
+        }
+        closePassagesOf(player);
         if (data == null || data.getState() == PlayerState.IN_PRE_LOBBY) {
             player.sendMessage(ChatColor.RED + "No has iniciado el laberinto. Usa /empezar.");
             return;
@@ -234,20 +353,16 @@ public class MazeManager {
 
         int finalTime = data.getTime();
         player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 1.0f);
-        int pointsWon = pointsManager.recordCompletion(player, "maze", finalTime);
+        int pointsWon = pointsManager.recordCompletion(player, Minigame.MAZE, finalTime);
 
         if (pointsWon > 0) {
             player.sendTitle(ChatColor.GREEN + "¡Laberinto completado!",
-                    String.format(ChatColor.YELLOW + "Tu tiempo: %s (+%d pts)", formatTime(finalTime), pointsWon), 10, 80, 20);
+                    String.format(ChatColor.YELLOW + "Tu tiempo: %s (+%d pts)", ScoreboardStyle.formatTime(finalTime), pointsWon), 10, 80, 20);
         } else {
             player.sendTitle(ChatColor.GREEN + "¡Laberinto completado!",
-                    String.format(ChatColor.YELLOW + "Tu tiempo fue de %s", formatTime(finalTime)), 10, 80, 20);
+                    String.format(ChatColor.YELLOW + "Tu tiempo fue de %s", ScoreboardStyle.formatTime(finalTime)), 10, 80, 20);
         }
-
-        int totalPoints = pointsManager.getTotalPoints(player);
-        int topPosition = pointsManager.getPlayerRank(player);
-        List<PointsManager.PlayerScore> topPlayers = pointsManager.getTopPlayers(3);
-        DeWaltScoreboardManager.showDefaultPage(player, topPosition, totalPoints, false, topPlayers);
+        // Si ganó puntos, su scoreboard se refresca solo con los eventos del leaderboard.
     }
 
     private void clearPlayerInventory(Player player) {
@@ -267,6 +382,21 @@ public class MazeManager {
         return "casco".equals(oraxenId);
     }
 
+    /**
+     * Al apagar el plugin devuelvo todos los barrotes pendientes para que no se guarde el mapa con huecos,
+     * y a quien tenga un pasaje abierto le reenvío los barrotes reales: si no, su cliente seguiría viendo el hueco.
+     */
+    public void shutdown() {
+        barRestorer.restoreAll();
+        for (List<ClientPassage> open : openPassages.values()) {
+            for (ClientPassage passage : open) {
+                passage.close();
+            }
+        }
+        openPassages.clear();
+        clientPassages.clear();
+    }
+
     public boolean isPlayerInGame(Player player) {
         return playerStates.containsKey(player.getUniqueId());
     }
@@ -276,10 +406,16 @@ public class MazeManager {
         return (data != null) ? data.getState() : null;
     }
 
-    private String formatTime(int seconds) {
-        int minutes = seconds / 60;
-        int secs = seconds % 60;
-        return String.format("%02d:%02d", minutes, secs);
+    /**
+     * Lo que enseño en la página en vivo del scoreboard mientras el jugador corre el laberinto.
+     */
+    public ScoreboardPages.LiveStats getLiveStats(UUID uuid) {
+        PlayerData data = playerStates.get(uuid);
+        if (data == null || data.getState() == PlayerState.IN_PRE_LOBBY) {
+            return null;
+        }
+        String phase = (data.getState() == PlayerState.IN_CUTTER_MINIGAME) ? "Cortando barrotes" : "Buscando la salida";
+        return new ScoreboardPages.LiveStats("LABERINTO", "Tiempo", ScoreboardStyle.formatTime(data.getTime()), "Fase", phase);
     }
 
     public void handleMinigameInteract(Player player, PlayerInteractEvent event) {
@@ -289,18 +425,43 @@ public class MazeManager {
         }
     }
 
+    /**
+     * Un hueco que solo ve un jugador. Cerrarlo es reenviarle los bloques reales, que nunca cambiaron.
+     */
+    private static final class ClientPassage {
+        private final Player player;
+        private final List<Block> bars;
+        private final long closeTick;
+
+        private ClientPassage(Player player, List<Block> bars, long closeTick) {
+            this.player = player;
+            this.bars = bars;
+            this.closeTick = closeTick;
+        }
+
+        private void close() {
+            if (!player.isOnline()) return;
+            for (Block bar : bars) {
+                player.sendBlockChange(bar.getLocation(), bar.getBlockData());
+            }
+        }
+    }
+
     private static class PlayerData {
+        private final Player player;
         private PlayerState state;
         private int time;
         private int countdown;
         private BoltCutterMinigame activeMinigame;
 
-        public PlayerData(PlayerState initialState) {
+        public PlayerData(Player player, PlayerState initialState) {
+            this.player = player;
             this.state = initialState;
             this.time = 0;
             this.countdown = 0;
         }
 
+        public Player getPlayer() { return player; }
         public PlayerState getState() { return state; }
         public void setState(PlayerState state) { this.state = state; }
         public int getTime() { return time; }
@@ -2,6 +2,8 @@ package com.TNTStudios.deWaltCore.minigames.woodcutter;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
 import com.TNTStudios.deWaltCore.points.PointsManager;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardPages;
+import com.TNTStudios.deWaltCore.scoreboard.ScoreboardStyle;
 import io.th0rgal.oraxen.api.OraxenItems;
 import io.th0rgal.oraxen.mechanics.provided.gameplay.furniture.FurnitureMechanic;
 import net.md_5.bungee.api.ChatMessageType;
@@ -87,6 +89,7 @@ public class WoodcutterManager {
     public WoodcutterManager(DeWaltCore plugin, PointsManager pointsManager) {
         this.plugin = plugin;
         this.pointsManager = pointsManager;
+        ScoreboardPages.registerLiveStats(this::getLiveStats);
     }
 
     // --- 1. LÓGICA DE LOBBY Y ACCESO ---
@@ -519,8 +522,6 @@ public class WoodcutterManager {
                 .sorted(Map.Entry.<UUID, PlayerData>comparingByValue(Comparator.comparingInt(d -> d.score)).reversed())
                 .collect(Collectors.toList());
 
-        final List<PointsManager.PlayerScore> topBefore = pointsManager.getTopPlayers(3);
-
         // 1. Construyo el mensaje del Top 3 (o más si hay empates) para enviarlo a todos.
         StringBuilder topMessage = new StringBuilder("\n§6--- Resultados de Cortadora de Madera ---\n");
         int lastScore = -1;
@@ -548,76 +549,54 @@ public class WoodcutterManager {
         topMessage.append("§6--------------------------------------\n");
         String finalTopMessage = topMessage.toString();
 
-        // 2. Ahora itero de nuevo para asignar puntos y enviar mensajes personalizados.
+        // 2. Ahora itero de nuevo para calcular los puestos y pagar toda la ronda de una vez.
         lastScore = -1;
         rank = 0;
+        int[] ranks = new int[sortedPlayers.size()];
+        List<PointsManager.RoundAward> awards = new ArrayList<>(sortedPlayers.size());
         for (int i = 0; i < sortedPlayers.size(); i++) {
             Map.Entry<UUID, PlayerData> entry = sortedPlayers.get(i);
-            Player p = Bukkit.getPlayer(entry.getKey());
-            if (p == null || !p.isOnline()) continue;
-
             int currentScore = entry.getValue().score;
             if (currentScore != lastScore) {
                 rank = i + 1; // Actualizo el rango basado en la posición en la lista ordenada.
             }
+            lastScore = currentScore;
+            ranks[i] = rank;
 
-            int pointsWon = switch (rank) {
-                case 1 -> 15;
-                case 2 -> 7;
-                case 3 -> 3;
-                default -> 1; // El resto gana 1 punto por participar.
-            };
+            // Pago por UUID: quien se desconectó durante la espera final no pierde sus puntos.
+            Player p = Bukkit.getPlayer(entry.getKey());
+            awards.add(new PointsManager.RoundAward(entry.getKey(), (p != null) ? p.getName() : null, getPointsForRank(rank)));
+        }
+        // Un solo re-ranking para toda la ronda. Los scoreboards se refrescan con los eventos del leaderboard.
+        pointsManager.awardRound("woodcutter_minigame", "Ranking final", awards);
 
-            pointsManager.addPoints(p, pointsWon, "woodcutter_minigame", "Ranking final");
+        // 3. Mensajes personalizados.
+        for (int i = 0; i < sortedPlayers.size(); i++) {
+            Map.Entry<UUID, PlayerData> entry = sortedPlayers.get(i);
+            Player p = Bukkit.getPlayer(entry.getKey());
+            if (p == null || !p.isOnline()) continue;
+
+            int currentScore = entry.getValue().score;
+            int pointsWon = getPointsForRank(ranks[i]);
+            rank = ranks[i];
 
             // Le envío el podio general...
             p.sendMessage(finalTopMessage);
             // ...y su resultado personal detallado.
             p.sendMessage(String.format("§aQuedaste en la posición #%d con %d mesas. ¡Ganaste §e%d puntos§a!", rank, currentScore, pointsWon));
-
-            lastScore = currentScore;
         }
 
-        // La lógica para actualizar el scoreboard global ya estaba bien, así que la mantengo intacta.
-        final List<PointsManager.PlayerScore> topAfter = pointsManager.getTopPlayers(3);
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!topBefore.equals(topAfter)) {
-                    plugin.getLogger().info("El Top 3 ha cambiado. Actualizando scoreboard para todos los jugadores online...");
-                    for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                        if (onlinePlayer.isOnline()) {
-                            updatePlayerScoreboard(onlinePlayer, topAfter);
-                        }
-                    }
-                } else {
-                    for (Map.Entry<UUID, PlayerData> entry : sortedPlayers) {
-                        Player p = Bukkit.getPlayer(entry.getKey());
-                        if (p != null && p.isOnline()) {
-                            updatePlayerScoreboard(p, topAfter);
-                        }
-                    }
-                }
-            }
-        }.runTask(plugin);
     }
 
-// --- MI NUEVO MÉTODO DE AYUDA (Añádelo al final de la clase WoodcutterManager) ---
-    /**
-     * Un método de ayuda para centralizar la lógica de actualización del scoreboard.
-     * Es privado porque solo lo necesita esta clase.
-     * @param player El jugador cuyo scoreboard se actualizará.
-     * @param topPlayers La lista actualizada del Top 3 para mostrar.
-     */
-    private void updatePlayerScoreboard(Player player, List<PointsManager.PlayerScore> topPlayers) {
-        int totalPoints = pointsManager.getTotalPoints(player);
-        int topPosition = pointsManager.getPlayerRank(player);
-        // Tu lógica para 'unlockedAll' debería estar aquí, por ahora será false.
-        boolean unlockedAll = false;
-        com.TNTStudios.deWaltCore.scoreboard.DeWaltScoreboardManager.showDefaultPage(player, topPosition, totalPoints, unlockedAll, topPlayers);
+    private int getPointsForRank(int rank) {
+        return switch (rank) {
+            case 1 -> 15;
+            case 2 -> 7;
+            case 3 -> 3;
+            default -> 1; // El resto gana 1 punto por participar.
+        };
     }
 
-
     private void teleportAllToSafety(Set<UUID> playerUuids) {
         new BukkitRunnable() {
             @Override
@@ -747,6 +726,18 @@ public class WoodcutterManager {
         return gamePlayers.containsKey(player.getUniqueId());
     }
 
+    /**
+     * Lo que enseño en la página en vivo del scoreboard mientras el jugador está en la ronda.
+     */
+    public ScoreboardPages.LiveStats getLiveStats(UUID uuid) {
+        PlayerData data = gamePlayers.get(uuid);
+        if (data == null) {
+            return null;
+        }
+        return new ScoreboardPages.LiveStats("MADERA", "Puntos", String.valueOf(data.score), "Tiempo restante",
+                ScoreboardStyle.formatTime(gameTimeLeft));
+    }
+
     // --- MÉTODOS DE AYUDA (BROADCASTS, SONIDOS, ETC) ---
     private List<Player> getLobbyPlayers() { return lobbyPlayers.stream().map(Bukkit::getPlayer).filter(Objects::nonNull).collect(Collectors.toList()); }
     private void broadcastToLobby(String message) {
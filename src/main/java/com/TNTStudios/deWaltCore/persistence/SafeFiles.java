@@ -0,0 +1,270 @@
+package com.TNTStudios.deWaltCore.persistence;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Mi capa de escritura segura para todos los archivos de datos del plugin.
+ * <p>
+ * Nunca escribo encima del archivo vivo: escribo a un temporal, hago fsync y lo renombro de forma atómica.
+ * La versión anterior se queda como {@code .bak}, así que siempre hay una generación buena a la que volver.
+ * Cada archivo empieza con una línea de cabecera con la generación, el tamaño y un CRC32 del contenido:
+ * <pre>#DWSF gen=12 len=3456 crc=1a2b3c4d</pre>
+ * Empieza con '#', así que en un YAML es solo un comentario y el archivo sigue siendo legible a mano.
+ * <p>
+ * Todo esto es I/O bloqueante con fsync: solo se llama desde hilos asíncronos (o en onDisable).
+ */
+public final class SafeFiles {
+
+    private static final String HEADER_PREFIX = "#DWSF ";
+    private static final String BACKUP_SUFFIX = ".bak";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // La cabecera nunca llega a esto; si no encuentro el salto de línea antes, el archivo no es mío.
+    private static final int MAX_HEADER_LENGTH = 128;
+
+    private SafeFiles() {
+        // Clase de utilidad.
+    }
+
+    /**
+     * Escribe {@code payload} en {@code target} de forma atómica, guardando la generación anterior como respaldo.
+     */
+    public static void write(File target, byte[] payload) throws IOException {
+        File folder = target.getAbsoluteFile().getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        long generation = readGeneration(target) + 1;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        byte[] header = String.format("%sgen=%d len=%d crc=%08x\n", HEADER_PREFIX, generation, payload.length, crc.getValue())
+                .getBytes(StandardCharsets.US_ASCII);
+
+        File tempFile = new File(folder, target.getName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(header.length + payload.length);
+            buffer.put(header).put(payload).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        // Solo guardo de respaldo una generación que sé que está bien; una dañada no me sirve de nada.
+        if (target.exists() && verify(target) != null) {
+            move(target, backupFile(target));
+        }
+        move(tempFile, target);
+        syncDirectory(folder);
+    }
+
+    /**
+     * Lee el contenido de {@code target}. Si está dañado (o falta a mitad de un renombrado), uso la generación anterior.
+     * Los archivos antiguos sin cabecera se devuelven tal cual, para no romper datos de versiones anteriores.
+     *
+     * @return El contenido, o null si no existe ninguna generación válida.
+     */
+    public static byte[] read(File target, Logger logger) throws IOException {
+        if (target.exists()) {
+            byte[] payload = verify(target);
+            if (payload != null) {
+                return payload;
+            }
+            logger.severe("El archivo " + target.getName() + " está dañado o incompleto. Intento recuperar la generación anterior.");
+        }
+
+        File backup = backupFile(target);
+        if (backup.exists()) {
+            byte[] payload = verify(backup);
+            if (payload != null) {
+                logger.warning("Cargando " + target.getName() + " desde la generación anterior (" + backup.getName() + ").");
+                return payload;
+            }
+            logger.severe("La generación anterior de " + target.getName() + " también está dañada.");
+        }
+        return null;
+    }
+
+    /**
+     * @return true si existe alguna generación del archivo (la actual o su respaldo).
+     */
+    public static boolean exists(File target) {
+        return target.exists() || backupFile(target).exists();
+    }
+
+    public static void saveYaml(YamlConfiguration config, File target) throws IOException {
+        write(target, config.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Versión segura de {@code YamlConfiguration.loadConfiguration}: esa devuelve una configuración vacía
+     * si el archivo quedó truncado, y el jugador "pierde" todo sin que nadie se entere.
+     *
+     * @return La configuración, o una vacía si el archivo no existe en ninguna generación.
+     */
+    public static YamlConfiguration loadYaml(File target, Logger logger) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        byte[] payload = read(target, logger);
+        if (payload == null) {
+            return config;
+        }
+        try {
+            config.loadFromString(new String(payload, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("El archivo " + target.getName() + " no es un YAML válido.", e);
+        }
+        return config;
+    }
+
+    /**
+     * Pone en su sitio un archivo que ya escribí y sincronicé yo mismo (por ejemplo, uno que se lee por posición
+     * y no puede llevar la cabecera). Es solo el renombrado atómico y el sync de la carpeta.
+     */
+    public static void moveIntoPlace(File tempFile, File target) throws IOException {
+        move(tempFile, target);
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    /**
+     * @return El contenido si el archivo está completo y su CRC coincide (o si es un archivo antiguo sin cabecera);
+     * null si está dañado.
+     */
+    private static byte[] verify(File file) throws IOException {
+        byte[] raw = Files.readAllBytes(file.toPath());
+        if (!startsWithHeader(raw)) {
+            // Archivo de antes de esta capa: no tengo con qué comprobarlo. Uno vacío sí lo doy por dañado.
+            return (raw.length > 0) ? raw : null;
+        }
+
+        int newline = indexOfNewline(raw);
+        if (newline < 0) {
+            return null;
+        }
+        Header header = Header.parse(new String(raw, 0, newline, StandardCharsets.US_ASCII));
+        int payloadStart = newline + 1;
+        if (header == null || raw.length - payloadStart != header.length) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, payloadStart, header.length);
+        if (crc.getValue() != header.crc) {
+            return null;
+        }
+        byte[] payload = new byte[header.length];
+        System.arraycopy(raw, payloadStart, payload, 0, header.length);
+        return payload;
+    }
+
+    private static long readGeneration(File target) {
+        if (!target.exists()) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_HEADER_LENGTH);
+            channel.read(buffer);
+            byte[] raw = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(raw);
+            int newline = indexOfNewline(raw);
+            if (!startsWithHeader(raw) || newline < 0) {
+                return 0;
+            }
+            Header header = Header.parse(new String(raw, 0, newline, StandardCharsets.US_ASCII));
+            return (header != null) ? header.generation : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean startsWithHeader(byte[] raw) {
+        byte[] prefix = HEADER_PREFIX.getBytes(StandardCharsets.US_ASCII);
+        if (raw.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (raw[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfNewline(byte[] raw) {
+        int limit = Math.min(raw.length, MAX_HEADER_LENGTH);
+        for (int i = 0; i < limit; i++) {
+            if (raw[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Sin esto, el renombrado puede no haber llegado al disco aunque el contenido sí.
+     * Algunos sistemas (Windows) no permiten abrir una carpeta; ahí me conformo con el rename.
+     */
+    private static void syncDirectory(File folder) {
+        try (FileChannel channel = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static File backupFile(File target) {
+        return new File(target.getAbsoluteFile().getParentFile(), target.getName() + BACKUP_SUFFIX);
+    }
+
+    private record Header(long generation, int length, long crc) {
+
+        static Header parse(String line) {
+            long generation = -1;
+            int length = -1;
+            long crc = -1;
+            for (String field : line.substring(HEADER_PREFIX.length()).trim().split(" ")) {
+                int equals = field.indexOf('=');
+                if (equals < 0) {
+                    continue;
+                }
+                String value = field.substring(equals + 1);
+                try {
+                    switch (field.substring(0, equals)) {
+                        case "gen" -> generation = Long.parseLong(value);
+                        case "len" -> length = Integer.parseInt(value);
+                        case "crc" -> crc = Long.parseLong(value, 16);
+                        default -> {
+                            // Campo desconocido de una versión futura: lo ignoro.
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return (generation < 0 || length < 0 || crc < 0) ? null : new Header(generation, length, crc);
+        }
+    }
+}
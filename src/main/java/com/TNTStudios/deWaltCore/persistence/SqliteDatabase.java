@@ -0,0 +1,296 @@
+package com.TNTStudios.deWaltCore.persistence;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mi base de datos SQLite embebida (modo WAL) compartida por los almacenamientos de puntos y registros.
+ * <p>
+ * Las escrituras nunca se hacen en el hilo que las pide: se encolan como {@link Write} y un único hilo
+ * escritor las vacía una vez por intervalo, en el orden en que llegaron y dentro de una sola transacción.
+ * Cada sentencia se prepara una sola vez por flush y las escrituras seguidas con la misma sentencia van en un batch.
+ * Si el flush falla, las escrituras vuelven al principio de la cola y se reintentan en el siguiente.
+ * Las lecturas usan otra conexión: con WAL no bloquean al escritor.
+ */
+public class SqliteDatabase {
+
+    // Igual que la cola del journal: un segundo junta los premios de una ronda en una sola transacción.
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+    private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+
+    /**
+     * Una escritura pendiente. Dentro de un flush se ejecutan en el orden en que se encolaron.
+     * Como un flush fallido se reintenta completo, cada una debe poder repetirse (valores absolutos, upserts).
+     */
+    public interface Write {
+        String sql();
+
+        void bind(PreparedStatement statement) throws SQLException;
+
+        /**
+         * Si dos escrituras pendientes tienen la misma clave, solo se ejecuta la última, en el lugar de la última.
+         * Entre las dos no debe haber otra escritura que toque las mismas filas con otra sentencia.
+         * @return La clave, o null si nunca se debe descartar.
+         */
+        default String coalesceKey() {
+            return null;
+        }
+    }
+
+    public interface RowHandler {
+        void handle(ResultSet row) throws SQLException;
+    }
+
+    public interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface SqlTask {
+        void run(Connection connection) throws SQLException;
+    }
+
+    private final Logger logger;
+    private final Connection writeConnection;
+    private final Connection readConnection;
+    // Deque: si un flush falla, devuelvo sus escrituras al principio, delante de las que llegaron mientras tanto.
+    private final ConcurrentLinkedDeque<Write> pending = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService writer;
+
+    public SqliteDatabase(File file, Logger logger) throws SQLException {
+        this.logger = logger;
+        try {
+            // El driver lo pone Paper; lo cargo a mano para que, si falta, el error diga qué pasa.
+            Class.forName(DRIVER_CLASS);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("No encuentro el driver de SQLite (" + DRIVER_CLASS + ") en el servidor.", e);
+        }
+        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+        this.writeConnection = DriverManager.getConnection(url);
+        try (Statement statement = writeConnection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            // Con WAL, NORMAL solo arriesga la última transacción en un apagón, nunca corrompe la base.
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("PRAGMA foreign_keys=ON");
+        }
+        writeConnection.setAutoCommit(false);
+        this.readConnection = DriverManager.getConnection(url);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DeWaltCore-SQLiteWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Crea tablas e índices. Solo al arrancar, antes de que haya escrituras encoladas.
+     */
+    public void executeSchema(String... statements) throws SQLException {
+        runOnWriter(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+        });
+    }
+
+    public void enqueue(Write write) {
+        pending.add(write);
+    }
+
+    /**
+     * Ejecuta algo con la conexión de escritura en el hilo escritor, después de vaciar la cola, y espera a que termine.
+     * La transacción se confirma al final. Pensado para migraciones y mantenimiento, no para el juego normal.
+     */
+    public void runOnWriter(SqlTask task) throws SQLException {
+        try {
+            writer.submit(() -> {
+                flush();
+                try {
+                    task.run(writeConnection);
+                    writeConnection.commit();
+                } catch (SQLException e) {
+                    writeConnection.rollback();
+                    throw e;
+                }
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando al hilo escritor de SQLite.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * Igual que {@link #runOnWriter}, pero sin esperar. Los errores solo se registran en el log.
+     */
+    public void runOnWriterAsync(SqlTask task) {
+        writer.execute(() -> {
+            try {
+                flush();
+                task.run(writeConnection);
+                writeConnection.commit();
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Falló una tarea en el hilo escritor de SQLite.", e);
+                rollbackQuietly();
+            }
+        });
+    }
+
+    /**
+     * Consulta con la conexión de lectura. Es I/O: nunca en el hilo principal.
+     * Solo ve lo que el escritor ya confirmó.
+     */
+    public void query(String sql, Binder binder, RowHandler handler) throws SQLException {
+        synchronized (readConnection) {
+            try (PreparedStatement statement = readConnection.prepareStatement(sql)) {
+                binder.bind(statement);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        handler.handle(rows);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía la cola, hace un checkpoint del WAL y cierra las conexiones. Solo para onDisable.
+     */
+    public void close() {
+        try {
+            runOnWriter(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                }
+            });
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "No pude vaciar la cola de SQLite al apagar.", e);
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("El hilo escritor de SQLite no terminó a tiempo.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            readConnection.close();
+            writeConnection.close();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "No pude cerrar la base de datos SQLite.", e);
+        }
+    }
+
+    // --- MÉTODOS INTERNOS (solo en el hilo escritor) ---
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "No pude escribir el lote pendiente en SQLite; lo reintento en el siguiente flush.", e);
+        } catch (RuntimeException e) {
+            // Si dejo escapar la excepción, el executor cancela el flush periódico para siempre.
+            logger.log(Level.SEVERE, "Error inesperado en el hilo escritor de SQLite.", e);
+        }
+    }
+
+    /**
+     * Escribo lo pendiente en una transacción. Si algo falla, la deshago y devuelvo todas las escrituras
+     * al principio de la cola en su orden original: nada se pierde y el siguiente flush las vuelve a intentar.
+     */
+    private void flush() throws SQLException {
+        List<Write> drained = new ArrayList<>();
+        Write write;
+        while ((write = pending.pollFirst()) != null) {
+            drained.add(write);
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            execute(coalesce(drained));
+            writeConnection.commit();
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly();
+            for (int i = drained.size() - 1; i >= 0; i--) {
+                pending.addFirst(drained.get(i));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * De cada clave me quedo con la última escritura, en su posición; el resto conserva su orden.
+     */
+    private static List<Write> coalesce(List<Write> drained) {
+        Set<String> seenKeys = new HashSet<>();
+        Write[] kept = new Write[drained.size()];
+        for (int i = drained.size() - 1; i >= 0; i--) {
+            Write candidate = drained.get(i);
+            String key = candidate.coalesceKey();
+            if (key == null || seenKeys.add(key)) {
+                kept[i] = candidate;
+            }
+        }
+        List<Write> writes = new ArrayList<>(drained.size());
+        for (Write candidate : kept) {
+            if (candidate != null) {
+                writes.add(candidate);
+            }
+        }
+        return writes;
+    }
+
+    // Ejecuto en orden. Una sentencia se prepara una vez por flush; cuando cambia, mando el batch de la anterior.
+    // En SQLite un batch es el mismo bucle de ejecuciones dentro de la transacción, así que cortarlo no cuesta nada:
+    // lo que ahorra es preparar la sentencia y confirmar una sola vez.
+    private void execute(List<Write> writes) throws SQLException {
+        Map<String, PreparedStatement> statements = new HashMap<>();
+        try {
+            PreparedStatement batch = null;
+            for (Write write : writes) {
+                PreparedStatement statement = statements.get(write.sql());
+                if (statement == null) {
+                    statement = writeConnection.prepareStatement(write.sql());
+                    statements.put(write.sql(), statement);
+                }
+                if (batch != null && batch != statement) {
+                    batch.executeBatch();
+                }
+                write.bind(statement);
+                statement.addBatch();
+                batch = statement;
+            }
+            if (batch != null) {
+                batch.executeBatch();
+            }
+        } finally {
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            writeConnection.rollback();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.TNTStudios.deWaltCore.persistence;
+
+import com.TNTStudios.deWaltCore.DeWaltCore;
+import com.TNTStudios.deWaltCore.points.storage.JournalPointsStore;
+import com.TNTStudios.deWaltCore.points.storage.PointsStorage;
+import com.TNTStudios.deWaltCore.points.storage.SqlitePointsStore;
+import com.TNTStudios.deWaltCore.registration.RegistrationStorage;
+import com.TNTStudios.deWaltCore.registration.SqliteRegistrationStorage;
+import com.TNTStudios.deWaltCore.registration.YamlRegistrationStorage;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.logging.Level;
+
+/**
+ * Elijo los almacenamientos según {@code storage.type} en config.yml:
+ * <ul>
+ *     <li>{@code files}: journal binario para los puntos y un YAML por registro (lo de siempre).</li>
+ *     <li>{@code sqlite}: todo en una base SQLite embebida (dewalt.db). La primera vez migra los archivos.</li>
+ * </ul>
+ * Si SQLite no se puede abrir, vuelvo a los archivos para que el evento no se quede sin guardar nada.
+ * <p>
+ * El driver (org.xerial sqlite-jdbc) no va en el jar del plugin: Paper ya lo trae en el servidor.
+ */
+public class StorageBackend {
+
+    private final PointsStorage pointsStorage;
+    private final RegistrationStorage registrationStorage;
+    private final SqliteDatabase database;
+
+    private StorageBackend(PointsStorage pointsStorage, RegistrationStorage registrationStorage, SqliteDatabase database) {
+        this.pointsStorage = pointsStorage;
+        this.registrationStorage = registrationStorage;
+        this.database = database;
+    }
+
+    public static StorageBackend fromConfig(DeWaltCore plugin) {
+        File dataFolder = plugin.getDataFolder();
+        String type = plugin.getConfig().getString("storage.type", "files");
+        int historyRetentionDays = plugin.getConfig().getInt("storage.history-retention-days", 90);
+
+        if ("sqlite".equalsIgnoreCase(type)) {
+            SqliteDatabase database = null;
+            try {
+                database = new SqliteDatabase(new File(dataFolder, "dewalt.db"), plugin.getLogger());
+                RegistrationStorage registrations = new SqliteRegistrationStorage(database, dataFolder, plugin.getLogger());
+                plugin.getLogger().info("Usando el almacenamiento SQLite.");
+                return new StorageBackend(new SqlitePointsStore(database, dataFolder, plugin.getLogger(), historyRetentionDays), registrations, database);
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "¡ERROR CRÍTICO! No pude abrir dewalt.db. Uso el almacenamiento en archivos.", e);
+                if (database != null) {
+                    database.close();
+                }
+            }
+        } else if (!"files".equalsIgnoreCase(type)) {
+            plugin.getLogger().warning("storage.type desconocido: '" + type + "'. Uso el almacenamiento en archivos.");
+        }
+
+        return new StorageBackend(new JournalPointsStore(dataFolder, plugin.getLogger(), historyRetentionDays),
+                new YamlRegistrationStorage(dataFolder, plugin.getLogger()), null);
+    }
+
+    public PointsStorage getPointsStorage() {
+        return pointsStorage;
+    }
+
+    public RegistrationStorage getRegistrationStorage() {
+        return registrationStorage;
+    }
+
+    /**
+     * Cierra la base de datos compartida, si la hay. Va después de cerrar los almacenamientos.
+     */
+    public void close() {
+        if (database != null) {
+            database.close();
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Una versión inmutable del leaderboard. Se publica entera a través de un solo AtomicReference,
+ * así que cualquier hilo puede leer un top-N y un puesto consistentes entre sí sin ningún lock.
+ * <p>
+ * Los jugadores pueden estar en tres sitios:
+ * <ul>
+ *     <li>En memoria: dos {@link RankTree}, uno por orden de ranking (para puestos y top-k) y otro por UUID
+ *     (para encontrar el puntaje actual de un jugador).</li>
+ *     <li>En el snapshot caliente mapeado ({@code warm}): recién arrancado, el tier caliente se lee directo del
+ *     {@link SortedScoreFile} hasta que termina de pasar a memoria en segundo plano.</li>
+ *     <li>En el tier frío ({@code cold}): los jugadores inactivos con pocos puntos, que nunca pasan a memoria.</li>
+ * </ul>
+ * Los puestos y el top siempre combinan todo, así que desde fuera es un solo leaderboard.
+ * Si un jugador de un archivo recibe un cambio, pasa a memoria y su registro del archivo queda tapado
+ * hasta que el archivo se reescribe o se termina de cargar.
+ */
+public final class LeaderboardSnapshot {
+
+    // Orden total del ranking: más puntos primero y, en empate, por UUID para que nadie "salte" de puesto.
+    static final Comparator<PointsManager.PlayerScore> RANK_ORDER =
+            Comparator.<PointsManager.PlayerScore>naturalOrder().thenComparing(PointsManager.PlayerScore::uuid);
+    private static final Comparator<PointsManager.PlayerScore> UUID_ORDER =
+            Comparator.comparing(PointsManager.PlayerScore::uuid);
+
+    static final LeaderboardSnapshot EMPTY = new LeaderboardSnapshot(0, null, null, null, null);
+
+    private final long version;
+    private final RankTree<PointsManager.PlayerScore> byRank;
+    private final RankTree<PointsManager.PlayerScore> byUuid;
+    private final FileTier warm;
+    private final FileTier cold;
+
+    private LeaderboardSnapshot(long version, RankTree<PointsManager.PlayerScore> byRank, RankTree<PointsManager.PlayerScore> byUuid,
+                                FileTier warm, FileTier cold) {
+        this.version = version;
+        this.byRank = byRank;
+        this.byUuid = byUuid;
+        this.warm = warm;
+        this.cold = cold;
+    }
+
+    /**
+     * Sube en uno con cada publicación. Sirve para saber si algo cambió sin comparar listas.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Todos los jugadores clasificados, de todos los tiers.
+     */
+    public int size() {
+        return getHotSize() + getColdSize();
+    }
+
+    /**
+     * @return Los jugadores del tier caliente, estén ya en memoria o todavía en el snapshot mapeado.
+     */
+    public int getHotSize() {
+        return RankTree.size(byRank) + FileTier.size(warm);
+    }
+
+    public int getColdSize() {
+        return FileTier.size(cold);
+    }
+
+    /**
+     * @return true mientras el tier caliente se sigue leyendo del snapshot mapeado.
+     */
+    public boolean isWarmingUp() {
+        return warm != null;
+    }
+
+    /**
+     * @return El puntaje del jugador en esta versión, o null si no está clasificado. O(log n).
+     */
+    public PointsManager.PlayerScore get(UUID uuid) {
+        PointsManager.PlayerScore score = getInMemory(uuid);
+        if (score == null) {
+            score = FileTier.get(warm, uuid);
+        }
+        if (score == null) {
+            score = FileTier.get(cold, uuid);
+        }
+        return score;
+    }
+
+    /**
+     * @return El puesto (empezando en 1) en esta versión, o 0 si no está clasificado. O(log n).
+     */
+    public int getRank(UUID uuid) {
+        PointsManager.PlayerScore score = get(uuid);
+        if (score == null) {
+            return 0;
+        }
+        return RankTree.countBefore(byRank, score, RANK_ORDER) + FileTier.countBefore(warm, score)
+                + FileTier.countBefore(cold, score) + 1;
+    }
+
+    /**
+     * @return El jugador en el puesto indicado (empezando en 1), o null. O(rank).
+     */
+    public PointsManager.PlayerScore getAtRank(int rank) {
+        if (rank < 1) {
+            return null;
+        }
+        List<PointsManager.PlayerScore> top = getTop(rank);
+        return (top.size() == rank) ? top.get(rank - 1) : null;
+    }
+
+    /**
+     * Los mejores {@code amount} jugadores: O(log n + amount). Mezclo memoria y archivos, que ya vienen ordenados.
+     */
+    public List<PointsManager.PlayerScore> getTop(int amount) {
+        List<PointsManager.PlayerScore> memory = RankTree.top(byRank, amount);
+        if (warm == null && cold == null) {
+            return memory;
+        }
+        return merge(memory, FileTier.top(warm, amount), FileTier.top(cold, amount), amount);
+    }
+
+    /**
+     * Los jugadores del tier caliente, en orden de ranking. Es lo que se guarda en el snapshot caliente.
+     */
+    public List<PointsManager.PlayerScore> getHotEntries() {
+        List<PointsManager.PlayerScore> memory = RankTree.top(byRank, RankTree.size(byRank));
+        return (warm == null) ? memory : merge(memory, warm.entries(), List.of(), Integer.MAX_VALUE);
+    }
+
+    FileTier getColdTier() {
+        return cold;
+    }
+
+    /**
+     * Todos los registros válidos del tier frío, en orden. Lee el archivo completo: solo para reescribirlo.
+     */
+    List<PointsManager.PlayerScore> getColdEntries() {
+        return (cold != null) ? cold.entries() : List.of();
+    }
+
+    /**
+     * Construye la versión siguiente con todos los cambios de un lote. Cada cambio copia solo
+     * O(log n) nodos; lo demás se comparte con esta versión, que sigue intacta para sus lectores.
+     * Un jugador que estaba en un archivo pasa a memoria.
+     */
+    LeaderboardSnapshot with(Collection<PointsManager.PlayerScore> updates) {
+        RankTree<PointsManager.PlayerScore> newByRank = byRank;
+        RankTree<PointsManager.PlayerScore> newByUuid = byUuid;
+        FileTier newWarm = warm;
+        FileTier newCold = cold;
+        for (PointsManager.PlayerScore score : updates) {
+            PointsManager.PlayerScore previous = RankTree.find(newByUuid, existing -> score.uuid().compareTo(existing.uuid()));
+            if (previous != null) {
+                newByRank = RankTree.remove(newByRank, previous, RANK_ORDER);
+            } else {
+                newWarm = FileTier.without(newWarm, score.uuid());
+                newCold = FileTier.without(newCold, score.uuid());
+            }
+            newByRank = RankTree.insert(newByRank, score, RANK_ORDER);
+            newByUuid = RankTree.insert(newByUuid, score, UUID_ORDER);
+        }
+        return new LeaderboardSnapshot(version + 1, newByRank, newByUuid, newWarm, newCold);
+    }
+
+    /**
+     * La versión siguiente con un archivo frío nuevo, escrito a partir de {@code base} más los jugadores {@code evicted}.
+     * Mientras lo escribía pudieron llegar cambios: un jugador desalojado que ganó puntos se queda en memoria,
+     * y uno que volvió del frío después de {@code base} sigue tapado en el archivo nuevo.
+     * Los desalojados deben estar en memoria (no se desaloja mientras el tier caliente se sigue cargando).
+     */
+    LeaderboardSnapshot withColdTier(SortedScoreFile newColdFile, Collection<PointsManager.PlayerScore> evicted, LeaderboardSnapshot base) {
+        RankTree<PointsManager.PlayerScore> newByRank = byRank;
+        RankTree<PointsManager.PlayerScore> newByUuid = byUuid;
+        RankTree<PointsManager.PlayerScore> removed = null;
+        for (PointsManager.PlayerScore score : evicted) {
+            if (score.equals(getInMemory(score.uuid()))) {
+                newByRank = RankTree.remove(newByRank, score, RANK_ORDER);
+                newByUuid = RankTree.remove(newByUuid, score, UUID_ORDER);
+            } else {
+                removed = RankTree.insert(removed, score, RANK_ORDER);
+            }
+        }
+        if (cold != null) {
+            for (PointsManager.PlayerScore promoted : RankTree.top(cold.removed, RankTree.size(cold.removed))) {
+                if (base.cold == null || RankTree.rank(base.cold.removed, promoted, RANK_ORDER) == 0) {
+                    removed = RankTree.insert(removed, promoted, RANK_ORDER);
+                }
+            }
+        }
+        return new LeaderboardSnapshot(version + 1, newByRank, newByUuid, warm, new FileTier(newColdFile, removed));
+    }
+
+    /**
+     * Para el arranque: esta versión con los archivos que dejé guardados, sin leerlos.
+     */
+    LeaderboardSnapshot withFiles(SortedScoreFile warmFile, SortedScoreFile coldFile) {
+        return new LeaderboardSnapshot(version + 1, byRank, byUuid,
+                (warmFile != null) ? new FileTier(warmFile, null) : null,
+                (coldFile != null) ? new FileTier(coldFile, null) : null);
+    }
+
+    /**
+     * @return true si el jugador está en el snapshot caliente mapeado y también en el tier frío.
+     */
+    boolean hasColdDuplicate(UUID uuid) {
+        return FileTier.get(warm, uuid) != null && FileTier.get(cold, uuid) != null;
+    }
+
+    /**
+     * Para el arranque: tapo el registro frío de los jugadores que también están en el snapshot caliente.
+     * Pasa cuando alguien volvió del frío (solo se tapa en memoria hasta que el archivo frío se reescribe)
+     * o cuando el servidor se cayó después de desalojar y antes del siguiente snapshot caliente.
+     * El caliente siempre es el más nuevo, así que es el que vale.
+     */
+    LeaderboardSnapshot withoutColdDuplicates(Collection<UUID> uuids) {
+        FileTier newCold = cold;
+        for (UUID uuid : uuids) {
+            newCold = FileTier.without(newCold, uuid);
+        }
+        return new LeaderboardSnapshot(version + 1, byRank, byUuid, warm, newCold);
+    }
+
+    /**
+     * Todos los registros del snapshot caliente mapeado, incluidos los tapados. Lee el archivo completo:
+     * se llama fuera del lock, antes de {@link #withWarmTierLoaded(List)}.
+     */
+    List<PointsManager.PlayerScore> getWarmEntries() {
+        if (warm == null) {
+            return List.of();
+        }
+        List<PointsManager.PlayerScore> entries = new ArrayList<>(warm.file.size());
+        for (int i = 0; i < warm.file.size(); i++) {
+            entries.add(warm.file.getAt(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Pasa a memoria el snapshot caliente mapeado, con los registros que ya leí de él.
+     * Los que están tapados ya tienen un valor más nuevo en memoria, así que solo inserto el resto.
+     */
+    LeaderboardSnapshot withWarmTierLoaded(List<PointsManager.PlayerScore> warmEntries) {
+        if (warm == null) {
+            return this;
+        }
+        RankTree<PointsManager.PlayerScore> newByRank = byRank;
+        RankTree<PointsManager.PlayerScore> newByUuid = byUuid;
+        for (PointsManager.PlayerScore score : warmEntries) {
+            if (RankTree.rank(warm.removed, score, RANK_ORDER) == 0) {
+                newByRank = RankTree.insert(newByRank, score, RANK_ORDER);
+                newByUuid = RankTree.insert(newByUuid, score, UUID_ORDER);
+            }
+        }
+        return new LeaderboardSnapshot(version + 1, newByRank, newByUuid, null, cold);
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private PointsManager.PlayerScore getInMemory(UUID uuid) {
+        return RankTree.find(byUuid, score -> uuid.compareTo(score.uuid()));
+    }
+
+    // Mezcla de hasta tres listas ya ordenadas (sin repetidos entre ellas), quedándome con los primeros amount.
+    private static List<PointsManager.PlayerScore> merge(List<PointsManager.PlayerScore> a, List<PointsManager.PlayerScore> b,
+                                                         List<PointsManager.PlayerScore> c, int amount) {
+        int total = (int) Math.min((long) a.size() + b.size() + c.size(), amount);
+        List<PointsManager.PlayerScore> result = new ArrayList<>(total);
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (result.size() < total) {
+            PointsManager.PlayerScore best = null;
+            int from = -1;
+            if (i < a.size()) {
+                best = a.get(i);
+                from = 0;
+            }
+            if (j < b.size() && (best == null || RANK_ORDER.compare(b.get(j), best) < 0)) {
+                best = b.get(j);
+                from = 1;
+            }
+            if (k < c.size() && (best == null || RANK_ORDER.compare(c.get(k), best) < 0)) {
+                best = c.get(k);
+                from = 2;
+            }
+            result.add(best);
+            if (from == 0) {
+                i++;
+            } else if (from == 1) {
+                j++;
+            } else {
+                k++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Un {@link SortedScoreFile} más los registros que ya no valen porque el jugador pasó a memoria.
+     * También es inmutable: tapar un registro devuelve un FileTier nuevo.
+     */
+    static final class FileTier {
+
+        final SortedScoreFile file;
+        final RankTree<PointsManager.PlayerScore> removed;
+
+        private FileTier(SortedScoreFile file, RankTree<PointsManager.PlayerScore> removed) {
+            this.file = file;
+            this.removed = removed;
+        }
+
+        static int size(FileTier tier) {
+            return (tier != null) ? tier.file.size() - RankTree.size(tier.removed) : 0;
+        }
+
+        static PointsManager.PlayerScore get(FileTier tier, UUID uuid) {
+            if (tier == null) {
+                return null;
+            }
+            PointsManager.PlayerScore score = tier.file.get(uuid);
+            return (score != null && RankTree.rank(tier.removed, score, RANK_ORDER) == 0) ? score : null;
+        }
+
+        static int countBefore(FileTier tier, PointsManager.PlayerScore score) {
+            if (tier == null) {
+                return 0;
+            }
+            return tier.file.countBefore(score) - RankTree.countBefore(tier.removed, score, RANK_ORDER);
+        }
+
+        // El tier sin el registro de ese jugador (si lo tenía).
+        static FileTier without(FileTier tier, UUID uuid) {
+            PointsManager.PlayerScore score = get(tier, uuid);
+            return (score != null) ? new FileTier(tier.file, RankTree.insert(tier.removed, score, RANK_ORDER)) : tier;
+        }
+
+        static List<PointsManager.PlayerScore> top(FileTier tier, int amount) {
+            if (tier == null) {
+                return List.of();
+            }
+            List<PointsManager.PlayerScore> result = new ArrayList<>(Math.min(amount, size(tier)));
+            for (int i = 0; i < tier.file.size() && result.size() < amount; i++) {
+                PointsManager.PlayerScore score = tier.file.getAt(i);
+                if (RankTree.rank(tier.removed, score, RANK_ORDER) == 0) {
+                    result.add(score);
+                }
+            }
+            return result;
+        }
+
+        SortedScoreFile getFile() {
+            return file;
+        }
+
+        List<PointsManager.PlayerScore> entries() {
+            return top(this, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.TNTStudios.deWaltCore.points;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Mi persistencia incremental del leaderboard.
+ * El snapshot completo del tier caliente es leaderboard-hot-&lt;generación&gt;.dat, un {@link SortedScoreFile}
+ * ya ordenado que al arrancar solo se mapea, sin parsear nada. No lo reescribo en cada guardado:
+ * cada checkpoint solo anexa a un change log binario los jugadores que cambiaron desde el anterior,
+ * y cada {@link #FULL_SNAPSHOT_EVERY} checkpoints escribo una generación nueva del snapshot y vacío el log.
+ * <p>
+ * Cada entrada guarda el valor absoluto (nombre y puntos), así que reproducir el log sobre un snapshot
+ * más nuevo da el mismo resultado. Por eso no importa si el servidor se cae entre escribir el snapshot y borrar el log.
+ * <p>
+ * Los jugadores inactivos viven en leaderboard-cold-&lt;generación&gt;.dat, con el mismo formato.
+ * En los dos casos cada reescritura es una generación nueva, y solo retiro la anterior cuando la nueva ya está
+ * escrita y verificada (abre con su CRC). La retirada se queda en disco como respaldo hasta el siguiente retiro
+ * del mismo tier, así siempre hay una generación buena a la que volver. El leaderboard.yml de versiones
+ * anteriores se migra solo.
+ */
+public class LeaderboardStore {
+
+    private static final int CHANGE_LOG_MAGIC = 0x44574C43; // "DWLC"
+    // Con el guardado cada 5 minutos, esto es un snapshot completo por hora.
+    private static final int FULL_SNAPSHOT_EVERY = 12;
+    // Un lote nunca pasa de los jugadores del evento; si leo más, es basura.
+    private static final int MAX_BATCH_SIZE = 1_000_000;
+
+    private static final String HOT_PREFIX = "leaderboard-hot-";
+    private static final String COLD_PREFIX = "leaderboard-cold-";
+    private static final String DAT_SUFFIX = ".dat";
+
+    private final File dataFolder;
+    private final File legacySnapshotFile;
+    private final File changeLogFile;
+    private final Logger logger;
+    private int checkpointsSinceSnapshot = 0;
+    // Si el log terminó con un lote roto, no puedo anexar detrás: el próximo checkpoint será completo.
+    private boolean changeLogDamaged = false;
+    private long hotGeneration = 0;
+    private long coldGeneration = 0;
+    private SortedScoreFile currentHot;
+    // La generación anterior de cada tier (por prefijo): es el respaldo, y alguna versión vieja puede seguir leyéndola.
+    // La borro cuando retiro la siguiente de ese mismo tier.
+    private final Map<String, File> retiredFiles = new HashMap<>();
+
+    public LeaderboardStore(File dataFolder, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.legacySnapshotFile = new File(dataFolder, "leaderboard.yml");
+        this.changeLogFile = new File(dataFolder, "leaderboard-changes.dat");
+        this.logger = logger;
+    }
+
+    /**
+     * Mapeo el snapshot caliente más nuevo y entrego los cambios del log en orden.
+     * Un mismo jugador puede llegar varias veces; el último valor es el bueno y tapa al del snapshot.
+     * Si solo hay un leaderboard.yml antiguo, sus jugadores también llegan por {@code changes}.
+     *
+     * @return El snapshot mapeado, o null si no hay ninguno.
+     */
+    public synchronized SortedScoreFile load(Consumer<PointsManager.PlayerScore> changes) {
+        // La siguiente generación va después de todas las que hay en disco, aunque estén dañadas: nunca piso una.
+        hotGeneration = highestGeneration(HOT_PREFIX);
+        currentHot = openLatest(HOT_PREFIX);
+        if (currentHot == null && SafeFiles.exists(legacySnapshotFile)) {
+            loadLegacySnapshot(changes);
+            // Lo paso al formato binario en el primer checkpoint.
+            changeLogDamaged = true;
+        } else if (currentHot == null && hotGeneration > 0) {
+            // Había snapshots pero ninguno sano: escribo uno completo en el primer checkpoint.
+            changeLogDamaged = true;
+        } else if (currentHot == null) {
+            logger.info("No se encontró un snapshot del leaderboard, se creará uno nuevo.");
+        }
+
+        if (changeLogFile.exists()) {
+            checkpointsSinceSnapshot = replayChangeLog(changes);
+        }
+        return currentHot;
+    }
+
+    /**
+     * Guarda un checkpoint. Normalmente solo anexa {@code changed}; si ya toca, escribe el snapshot completo.
+     * Hace I/O, así que no se debe llamar desde el hilo principal salvo en onDisable.
+     *
+     * @param changed      Los puntajes que cambiaron desde el checkpoint anterior.
+     * @param fullSnapshot Solo se pide cuando toca snapshot completo, ya en orden de ranking.
+     */
+    public synchronized void checkpoint(Collection<PointsManager.PlayerScore> changed,
+                                        Supplier<List<PointsManager.PlayerScore>> fullSnapshot) throws IOException {
+        if (changeLogDamaged || checkpointsSinceSnapshot + 1 >= FULL_SNAPSHOT_EVERY) {
+            writeSnapshot(fullSnapshot.get());
+            if (changeLogFile.exists() && !changeLogFile.delete()) {
+                logger.warning("No pude vaciar el change log del leaderboard; se volverá a aplicar sin problema.");
+            }
+            checkpointsSinceSnapshot = 0;
+            changeLogDamaged = false;
+            return;
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        appendChanges(changed);
+        checkpointsSinceSnapshot++;
+    }
+
+    /**
+     * El próximo checkpoint será completo. Lo pido después de mover jugadores al tier frío,
+     * para que el snapshot caliente deje de tenerlos.
+     */
+    public synchronized void requestFullSnapshot() {
+        changeLogDamaged = true;
+    }
+
+    /**
+     * Abro la generación más nueva del tier frío que esté sana.
+     * @return El archivo, o null si todavía no hay tier frío (o ninguna generación está sana).
+     */
+    synchronized SortedScoreFile openColdTier() {
+        coldGeneration = highestGeneration(COLD_PREFIX);
+        return openLatest(COLD_PREFIX);
+    }
+
+    /**
+     * Escribe una generación nueva del tier frío con {@code scores} (ya ordenados) y la abre, lo que verifica su CRC.
+     * Si algo falla, lanza la excepción y la generación actual sigue siendo la buena.
+     */
+    synchronized SortedScoreFile writeColdTier(List<PointsManager.PlayerScore> scores) throws IOException {
+        File target = new File(dataFolder, COLD_PREFIX + (coldGeneration + 1) + DAT_SUFFIX);
+        SortedScoreFile.write(target, scores);
+        coldGeneration++;
+        return SortedScoreFile.open(target);
+    }
+
+    /**
+     * Retiro una generación anterior, ya que la nueva está escrita y verificada. Se queda de respaldo y la borro
+     * en el siguiente retiro del mismo tier, cuando ya nadie puede estar leyéndola.
+     * Si el sistema no me deja (en Windows un archivo mapeado no se puede borrar), se borra en el próximo arranque.
+     */
+    synchronized void retire(SortedScoreFile previous) {
+        File file = previous.getFile();
+        String prefix = file.getName().startsWith(HOT_PREFIX) ? HOT_PREFIX : COLD_PREFIX;
+        File older = retiredFiles.put(prefix, file);
+        if (older != null && older.exists() && !older.delete()) {
+            logger.warning("No pude borrar " + older.getName() + "; se borrará en el próximo arranque.");
+        }
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    /**
+     * Mapeo la generación más nueva que abra bien (con su CRC) y me quedo también con la siguiente sana como respaldo.
+     * Solo borro las demás si encontré las dos: si nada abre, no borro nada, para poder revisarlas a mano.
+     */
+    private SortedScoreFile openLatest(String prefix) {
+        File[] files = listGenerations(prefix);
+        if (files.length == 0) {
+            return null;
+        }
+        // De la más nueva a la más vieja: la primera que abra bien es la buena y la segunda, su respaldo.
+        Arrays.sort(files, Comparator.<File>comparingLong(file -> parseGeneration(file, prefix)).reversed());
+        SortedScoreFile opened = null;
+        File backup = null;
+        for (File file : files) {
+            try {
+                SortedScoreFile candidate = SortedScoreFile.open(file);
+                if (opened == null) {
+                    opened = candidate;
+                } else {
+                    backup = file;
+                    break;
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "No pude abrir " + file.getName() + "; pruebo con la generación anterior.", e);
+            }
+        }
+        if (opened == null) {
+            logger.severe("Ninguna generación de " + prefix + "*" + DAT_SUFFIX + " está sana. No borro ninguna;"
+                    + " el leaderboard se reconstruye con los datos de puntos.");
+            return null;
+        }
+        if (backup == null) {
+            // Sin respaldo sano no toco nada: la que abrí es la única buena que tengo.
+            return opened;
+        }
+        for (File file : files) {
+            if (!file.equals(opened.getFile()) && !file.equals(backup)) {
+                file.delete();
+            }
+        }
+        retiredFiles.put(prefix, backup);
+        return opened;
+    }
+
+    private File[] listGenerations(String prefix) {
+        File[] files = dataFolder.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(DAT_SUFFIX));
+        return (files != null) ? files : new File[0];
+    }
+
+    private long highestGeneration(String prefix) {
+        long highest = 0;
+        for (File file : listGenerations(prefix)) {
+            highest = Math.max(highest, parseGeneration(file, prefix));
+        }
+        return highest;
+    }
+
+    private static long parseGeneration(File file, String prefix) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - DAT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void writeSnapshot(List<PointsManager.PlayerScore> scores) throws IOException {
+        File target = new File(dataFolder, HOT_PREFIX + (hotGeneration + 1) + DAT_SUFFIX);
+        SortedScoreFile.write(target, scores);
+        hotGeneration++;
+        SortedScoreFile previous = currentHot;
+        currentHot = SortedScoreFile.open(target);
+        if (previous != null) {
+            retire(previous);
+        }
+        // Ya migré: guardo el YAML antiguo aparte para que no se vuelva a cargar.
+        if (legacySnapshotFile.exists()
+                && !legacySnapshotFile.renameTo(new File(dataFolder, "leaderboard-legacy.yml"))) {
+            logger.warning("No pude renombrar leaderboard.yml; se ignorará mientras exista el snapshot binario.");
+        }
+    }
+
+    /**
+     * El formato de versiones anteriores: un YAML con el nombre y los puntos de cada jugador, sin orden.
+     */
+    private void loadLegacySnapshot(Consumer<PointsManager.PlayerScore> consumer) {
+        FileConfiguration config;
+        try {
+            config = SafeFiles.loadYaml(legacySnapshotFile, logger);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "No pude leer leaderboard.yml; se reconstruirá con los datos de puntos.", e);
+            return;
+        }
+        ConfigurationSection topSection = config.getConfigurationSection("top");
+        if (topSection == null) {
+            return;
+        }
+        for (String uuidString : topSection.getKeys(false)) {
+            try {
+                UUID uuid = UUID.fromString(uuidString);
+                String name = topSection.getString(uuidString + ".name");
+                int points = topSection.getInt(uuidString + ".points");
+                if (name != null) {
+                    consumer.accept(new PointsManager.PlayerScore(uuid, name, points));
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warning("UUID inválido en leaderboard.yml: " + uuidString);
+            }
+        }
+    }
+
+    /**
+     * Un lote por checkpoint: cantidad, entradas y un CRC del lote completo.
+     * Si el servidor se apaga a mitad de un lote, al cargar lo descarto entero.
+     */
+    private void appendChanges(Collection<PointsManager.PlayerScore> changed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 * changed.size() + 16);
+        DataOutputStream batch = new DataOutputStream(bytes);
+        batch.writeInt(changed.size());
+        for (PointsManager.PlayerScore score : changed) {
+            batch.writeLong(score.uuid().getMostSignificantBits());
+            batch.writeLong(score.uuid().getLeastSignificantBits());
+            batch.writeInt(score.points());
+            batch.writeUTF(score.playerName());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        boolean newFile = !changeLogFile.exists();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(changeLogFile, true)))) {
+            if (newFile) {
+                out.writeInt(CHANGE_LOG_MAGIC);
+            }
+            bytes.writeTo(out);
+            out.writeInt((int) crc.getValue());
+        }
+    }
+
+    /**
+     * @return Cuántos lotes válidos tenía el log.
+     */
+    private int replayChangeLog(Consumer<PointsManager.PlayerScore> consumer) {
+        int batches = 0;
+        boolean insideBatch = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(changeLogFile)))) {
+            if (in.readInt() != CHANGE_LOG_MAGIC) {
+                logger.warning("leaderboard-changes.dat no tiene el formato esperado; lo ignoro.");
+                changeLogDamaged = true;
+                return 0;
+            }
+            while (true) {
+                int count = in.readInt();
+                insideBatch = true;
+                if (count < 0 || count > MAX_BATCH_SIZE) {
+                    logger.warning("Lote dañado en leaderboard-changes.dat; ignoro desde ahí.");
+                    changeLogDamaged = true;
+                    break;
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 * count + 16);
+                DataOutputStream copy = new DataOutputStream(bytes);
+                copy.writeInt(count);
+                PointsManager.PlayerScore[] scores = new PointsManager.PlayerScore[count];
+                for (int i = 0; i < count; i++) {
+                    long msb = in.readLong();
+                    long lsb = in.readLong();
+                    int points = in.readInt();
+                    String name = in.readUTF();
+                    copy.writeLong(msb);
+                    copy.writeLong(lsb);
+                    copy.writeInt(points);
+                    copy.writeUTF(name);
+                    scores[i] = new PointsManager.PlayerScore(new UUID(msb, lsb), name, points);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(bytes.toByteArray());
+                if (in.readInt() != (int) crc.getValue()) {
+                    logger.warning("Lote dañado en leaderboard-changes.dat; ignoro desde ahí.");
+                    changeLogDamaged = true;
+                    break;
+                }
+                for (PointsManager.PlayerScore score : scores) {
+                    consumer.accept(score);
+                }
+                batches++;
+                insideBatch = false;
+            }
+        } catch (EOFException e) {
+            // Fin del log. Si quedó un lote a medias por un apagón, lo que leí antes sigue siendo válido,
+            // pero ya no puedo anexar detrás de ese lote.
+            changeLogDamaged |= insideBatch;
+        } catch (IOException e) {
+            logger.warning("No pude leer completo leaderboard-changes.dat: " + e.getMessage());
+            changeLogDamaged = true;
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,32 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Las ventanas de tiempo de los leaderboards por minijuego.
+ * Las horarias y diarias van alineadas al reloj del evento (hora de la Ciudad de México),
+ * así "el mejor tiempo de hoy" es el de hoy para todos, sin importar la zona del servidor.
+ */
+public enum LeaderboardWindow {
+    HOURLY,
+    DAILY,
+    EVENT;
+
+    public static final ZoneId EVENT_ZONE = ZoneId.of("America/Mexico_City");
+
+    /**
+     * @return El inicio (epoch millis) del periodo que contiene el instante dado.
+     * Cuando cambia, el leaderboard de esta ventana empieza de cero. EVENT nunca cambia.
+     */
+    public long periodStart(long epochMillis) {
+        if (this == EVENT) {
+            return 0;
+        }
+        ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(EVENT_ZONE);
+        ZonedDateTime start = (this == HOURLY) ? time.truncatedTo(ChronoUnit.HOURS) : time.truncatedTo(ChronoUnit.DAYS);
+        return start.toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,53 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Los minijuegos que guardan marcas personales. El ordinal es el índice en el arreglo de marcas
+ * de cada jugador, así que buscar una marca es indexar un arreglo: nada de armar rutas de texto.
+ * <p>
+ * El id es el texto que se guarda en disco y en el historial; no se debe cambiar una vez publicado.
+ * Para añadir un minijuego, se agrega al final.
+ */
+public enum Minigame {
+    MAZE("maze", true),
+    DRILL("drill_competitive", false),
+    CONCRETE("concrete_minigame", false),
+    WOODCUTTER("woodcutter_minigame", false);
+
+    private static final Map<String, Minigame> BY_ID = new HashMap<>();
+
+    static {
+        for (Minigame minigame : values()) {
+            BY_ID.put(minigame.id, minigame);
+        }
+    }
+
+    private final String id;
+    private final boolean lowerIsBetter;
+
+    Minigame(String id, boolean lowerIsBetter) {
+        this.id = id;
+        this.lowerIsBetter = lowerIsBetter;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * true si la marca es un tiempo (menor es mejor); false si es una puntuación (mayor es mejor).
+     */
+    public boolean isLowerBetter() {
+        return lowerIsBetter;
+    }
+
+    /**
+     * Solo para traducir lo que viene de disco o de una API con texto.
+     * @return El minijuego, o null si el id no es de ninguno.
+     */
+    public static Minigame fromId(String id) {
+        return BY_ID.get(id);
+    }
+}
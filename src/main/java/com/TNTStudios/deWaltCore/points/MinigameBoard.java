@@ -0,0 +1,109 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Una versión inmutable del leaderboard de un minijuego en una ventana de tiempo.
+ * Igual que {@link LeaderboardSnapshot}: dos {@link RankTree} (por marca y por UUID) que se publican juntos,
+ * así que se lee sin locks desde cualquier hilo. Cada jugador aparece una vez, con su mejor marca del periodo.
+ */
+public final class MinigameBoard {
+
+    /**
+     * La mejor marca de un jugador en el periodo: un tiempo o una puntuación, según el minijuego.
+     */
+    public record Entry(UUID uuid, String playerName, int value) {
+    }
+
+    private static final Comparator<Entry> UUID_ORDER = Comparator.comparing(Entry::uuid);
+
+    private final Minigame minigame;
+    private final LeaderboardWindow window;
+    private final long periodStart;
+    private final long version;
+    private final Comparator<Entry> order;
+    private final RankTree<Entry> byRank;
+    private final RankTree<Entry> byUuid;
+
+    private MinigameBoard(Minigame minigame, LeaderboardWindow window, long periodStart, long version, Comparator<Entry> order,
+                          RankTree<Entry> byRank, RankTree<Entry> byUuid) {
+        this.minigame = minigame;
+        this.window = window;
+        this.periodStart = periodStart;
+        this.version = version;
+        this.order = order;
+        this.byRank = byRank;
+        this.byUuid = byUuid;
+    }
+
+    static MinigameBoard empty(Minigame minigame, LeaderboardWindow window, long periodStart) {
+        // Mejor marca primero y, en empate, por UUID para tener un orden total.
+        Comparator<Entry> byValue = Comparator.comparingInt(Entry::value);
+        Comparator<Entry> order = (minigame.isLowerBetter() ? byValue : byValue.reversed()).thenComparing(Entry::uuid);
+        return new MinigameBoard(minigame, window, periodStart, 0, order, null, null);
+    }
+
+    public Minigame getMinigame() {
+        return minigame;
+    }
+
+    public LeaderboardWindow getWindow() {
+        return window;
+    }
+
+    /**
+     * @return El inicio del periodo que cubre esta versión (0 para la ventana de todo el evento).
+     */
+    public long getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return RankTree.size(byRank);
+    }
+
+    /**
+     * @return La mejor marca del jugador en este periodo, o null si no ha jugado.
+     */
+    public Entry get(UUID uuid) {
+        return RankTree.find(byUuid, entry -> uuid.compareTo(entry.uuid()));
+    }
+
+    /**
+     * @return El puesto (empezando en 1), o 0 si no ha jugado en este periodo. O(log n).
+     */
+    public int getRank(UUID uuid) {
+        Entry entry = get(uuid);
+        return (entry != null) ? RankTree.rank(byRank, entry, order) : 0;
+    }
+
+    /**
+     * Los mejores {@code amount} jugadores del periodo: O(log n + amount).
+     */
+    public List<Entry> getTop(int amount) {
+        return RankTree.top(byRank, amount);
+    }
+
+    /**
+     * Registra una marca. Si no mejora la que el jugador ya tiene en este periodo, devuelvo esta misma versión.
+     */
+    MinigameBoard with(UUID uuid, String playerName, int value) {
+        Entry previous = get(uuid);
+        Entry entry = new Entry(uuid, playerName, value);
+        if (previous != null) {
+            if (order.compare(entry, previous) >= 0) {
+                return this;
+            }
+        }
+        RankTree<Entry> newByRank = (previous != null) ? RankTree.remove(byRank, previous, order) : byRank;
+        newByRank = RankTree.insert(newByRank, entry, order);
+        RankTree<Entry> newByUuid = RankTree.insert(byUuid, entry, UUID_ORDER);
+        return new MinigameBoard(minigame, window, periodStart, version + 1, order, newByRank, newByUuid);
+    }
+}
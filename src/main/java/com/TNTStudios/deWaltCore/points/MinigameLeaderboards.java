@@ -0,0 +1,102 @@
+package com.TNTStudios.deWaltCore.points;
+
+import com.TNTStudios.deWaltCore.points.storage.PlayerRecord;
+import com.TNTStudios.deWaltCore.points.storage.PointEvent;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Todos los leaderboards por minijuego: uno por cada combinación de {@link Minigame} y {@link LeaderboardWindow}.
+ * Cada uno es un {@link MinigameBoard} inmutable; los guardo en un arreglo indexado por ordinales,
+ * así encontrar el de "maze de hoy" es indexar, y leerlo no necesita locks.
+ * <p>
+ * Se actualizan con cada marca, no solo con los récords personales: el mejor tiempo de la hora
+ * puede no ser el mejor de siempre del jugador.
+ */
+final class MinigameLeaderboards {
+
+    private static final int WINDOWS = LeaderboardWindow.values().length;
+
+    private final AtomicReferenceArray<MinigameBoard> boards = new AtomicReferenceArray<>(Minigame.values().length * WINDOWS);
+    // Los escritores se turnan; los lectores nunca esperan.
+    private final Object writeLock = new Object();
+
+    MinigameLeaderboards() {
+        long now = System.currentTimeMillis();
+        for (Minigame minigame : Minigame.values()) {
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                boards.set(index(minigame, window), MinigameBoard.empty(minigame, window, window.periodStart(now)));
+            }
+        }
+    }
+
+    /**
+     * Reconstruyo los leaderboards al arrancar, un jugador a la vez (dentro de la misma pasada que reconcilia
+     * el leaderboard general). El de todo el evento sale de las mejores marcas guardadas;
+     * el horario y el diario, de los eventos recientes de cada jugador que caen en el periodo actual.
+     * Las marcas que no dieron puntos no se guardan, así que esos dos son una aproximación hasta la siguiente marca.
+     */
+    void restore(PlayerRecord record, long now) {
+        synchronized (writeLock) {
+            for (Minigame minigame : Minigame.values()) {
+                PlayerRecord.MinigameStats stats = record.stats(minigame);
+                int best = minigame.isLowerBetter() ? stats.bestTime : stats.bestScore;
+                if (best != -1) {
+                    publish(minigame, LeaderboardWindow.EVENT, record.getUuid(), record.getPlayerName(), best, now);
+                }
+            }
+            for (PointEvent event : record.getHistory().recent()) {
+                if (event.kind() == PointEvent.Kind.REWARD) {
+                    continue;
+                }
+                Minigame minigame = Minigame.fromId(event.minigameId());
+                if (minigame == null) {
+                    continue;
+                }
+                publish(minigame, LeaderboardWindow.HOURLY, event.uuid(), record.getPlayerName(), event.scoreValue(), event.epochMillis());
+                publish(minigame, LeaderboardWindow.DAILY, event.uuid(), record.getPlayerName(), event.scoreValue(), event.epochMillis());
+            }
+        }
+    }
+
+    /**
+     * Registra una marca en las tres ventanas del minijuego. O(log n) por ventana.
+     */
+    void submit(Minigame minigame, UUID uuid, String playerName, int value) {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                publish(minigame, window, uuid, playerName, value, now);
+            }
+        }
+    }
+
+    /**
+     * @return La versión actual del leaderboard. Si su periodo ya terminó y nadie ha jugado desde entonces,
+     * devuelvo uno vacío del periodo nuevo en lugar del viejo.
+     */
+    MinigameBoard get(Minigame minigame, LeaderboardWindow window) {
+        MinigameBoard board = boards.get(index(minigame, window));
+        long currentPeriod = window.periodStart(System.currentTimeMillis());
+        return (board.getPeriodStart() == currentPeriod) ? board : MinigameBoard.empty(minigame, window, currentPeriod);
+    }
+
+    // Quien lo llama tiene writeLock.
+    private void publish(Minigame minigame, LeaderboardWindow window, UUID uuid, String playerName, int value, long epochMillis) {
+        int index = index(minigame, window);
+        MinigameBoard board = boards.get(index);
+        long period = window.periodStart(epochMillis);
+        if (period != board.getPeriodStart()) {
+            if (period < board.getPeriodStart()) {
+                return; // Una marca de un periodo que ya pasó.
+            }
+            board = MinigameBoard.empty(minigame, window, period);
+        }
+        boards.set(index, board.with(uuid, playerName, value));
+    }
+
+    private static int index(Minigame minigame, LeaderboardWindow window) {
+        return minigame.ordinal() * WINDOWS + window.ordinal();
+    }
+}
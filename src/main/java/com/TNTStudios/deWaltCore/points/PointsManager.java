@@ -1,21 +1,23 @@
 package com.TNTStudios.deWaltCore.points;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
+import com.TNTStudios.deWaltCore.points.event.LeaderboardTopChangeEvent;
+import com.TNTStudios.deWaltCore.points.event.PlayerPointsChangeEvent;
+import com.TNTStudios.deWaltCore.points.event.PlayerRankChangeEvent;
+import com.TNTStudios.deWaltCore.points.storage.PlayerRecord;
+import com.TNTStudios.deWaltCore.points.storage.PointEvent;
+import com.TNTStudios.deWaltCore.points.storage.PointsStorage;
 import org.bukkit.Bukkit;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Mi gestor de datos y puntos para todos los minijuegos.
@@ -23,9 +25,16 @@ import java.util.stream.Collectors;
  * y guarda los datos de jugador de forma asíncrona para no causar lag.
  * NUEVA OPTIMIZACIÓN: Añado un caché para los datos de jugadores online,
  * evitando leer sus archivos .yml en cada acción.
+ * ALMACENAMIENTO: Los datos de jugador ya no son YAML; cada premio es un evento en un journal binario.
+ * TIERS: El leaderboard general va por tiers (memoria, snapshot mapeado y archivo frío), y los PlayerRecord también:
+ * el almacenamiento solo tiene en memoria a los que pido (online o recibiendo un premio) y a los que tienen cambios
+ * sin compactar; los demás se leen del disco cuando hacen falta.
  */
 public class PointsManager {
 
+    // El tamaño del top que se muestra en el scoreboard; LeaderboardTopChangeEvent solo se lanza si cambia este tramo.
+    public static final int TOP_EVENT_SIZE = 3;
+
     // Defino mi estructura para guardar los puntajes de los jugadores.
     public record PlayerScore(UUID uuid, String playerName, int points) implements Comparable<PlayerScore> {
         @Override
@@ -34,58 +43,109 @@ public class PointsManager {
         }
     }
 
-    // Un objeto simple para cachear los datos de un jugador.
-    private static class PlayerData {
-        String playerName;
-        int totalPoints;
-        FileConfiguration config;
-        File file;
+    private final DeWaltCore plugin;
+    // --- MI MOTOR DE ALMACENAMIENTO ---
+    // Journal binario + snapshot, o SQLite, según config.yml. Nada de un YAML por jugador.
+    private final PointsStorage store;
+    // --- MI GUARDADO INCREMENTAL DEL LEADERBOARD ---
+    // Solo persisto los jugadores que cambiaron desde el último checkpoint.
+    private final LeaderboardStore leaderboardStore;
+    private final Set<UUID> dirtyLeaderboard = ConcurrentHashMap.newKeySet();
+    // --- MI LEADERBOARD PUBLICADO ---
+    // Versiones inmutables detrás de una sola referencia atómica: cualquier hilo lee sin locks
+    // un top-N y un puesto consistentes. Solo los escritores se turnan con leaderboardWriteLock.
+    private final AtomicReference<LeaderboardSnapshot> leaderboard = new AtomicReference<>(LeaderboardSnapshot.EMPTY);
+    private final Object leaderboardWriteLock = new Object();
+    // --- MI TIER FRÍO ---
+    // Quien tenga menos de estos puntos y no haya jugado en estos días sale de la memoria y pasa al archivo frío.
+    private final int hotMinPoints;
+    private final long hotActiveMillis;
+    private final Object coldTierLock = new Object();
+    // --- MIS LEADERBOARDS POR MINIJUEGO ---
+    // Mejor marca por minijuego en la hora, el día y todo el evento. Se actualizan con cada marca.
+    private final MinigameLeaderboards minigameLeaderboards = new MinigameLeaderboards();
 
-        PlayerData(String playerName, int totalPoints, FileConfiguration config, File file) {
-            this.playerName = playerName;
-            this.totalPoints = totalPoints;
-            this.config = config;
-            this.file = file;
+    // --- MI NUEVO CACHÉ DE DATOS DE JUGADOR ---
+    // Guardo los datos de los jugadores que están online para no buscarlos a cada rato.
+    private final Map<UUID, PlayerRecord> playerDataCache = new ConcurrentHashMap<>();
+    // Los que precargué en el pre-login pero todavía no entran. Si el login se rechaza después (whitelist,
+    // ban, servidor lleno) nunca llega el quit, así que los saco al rechazarse o cuando caducan.
+    private static final long PREFETCH_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final Map<UUID, Long> prefetchedAt = new ConcurrentHashMap<>();
+
+    public PointsManager(DeWaltCore plugin, PointsStorage store) {
+        this.plugin = plugin;
+        this.store = store;
+        try {
+            store.open();
+        } catch (IOException e) {
+            plugin.getLogger().severe("¡ERROR CRÍTICO! No pude cargar el almacenamiento de puntos.");
+            e.printStackTrace();
         }
+        this.leaderboardStore = new LeaderboardStore(plugin.getDataFolder(), plugin.getLogger());
+        this.hotMinPoints = plugin.getConfig().getInt("leaderboard.hot-min-points", 100);
+        this.hotActiveMillis = TimeUnit.DAYS.toMillis(plugin.getConfig().getInt("leaderboard.hot-active-days", 7));
+        loadLeaderboard();
     }
 
-    private final DeWaltCore plugin;
-    private final File playerDataFolder;
-    private final File leaderboardFile;
-    private final Map<UUID, PlayerScore> leaderboard = new ConcurrentHashMap<>();
-    private List<PlayerScore> sortedLeaderboardCache = new ArrayList<>();
-
-    // --- MI NUEVO CACHÉ DE DATOS DE JUGADOR ---
-    // Guardo los datos de los jugadores que están online para no leer el disco a cada rato.
-    private final Map<UUID, PlayerData> playerDataCache = new ConcurrentHashMap<>();
+    /**
+     * Precarga los datos de un jugador en el caché. Se llama desde AsyncPlayerPreLoginEvent,
+     * así el join del hilo principal ya los encuentra listos: si su registro no está en memoria,
+     * la lectura del disco se hace aquí, fuera del hilo principal. También deja hecho el cambio de nick.
+     */
+    public void prefetchPlayerData(UUID uuid, String playerName) {
+        long now = System.currentTimeMillis();
+        expirePrefetched(now);
+        updatePlayerNameInLeaderboard(uuid, playerName);
+        PlayerRecord record = store.load(uuid, playerName);
+        store.updateName(record, playerName);
+        // Si ya estaba en caché (por ejemplo, sigue conectado desde otra sesión) no lo marco como pendiente:
+        // un rechazo de este login no debe sacar al que ya está dentro.
+        if (playerDataCache.putIfAbsent(uuid, record) == null) {
+            prefetchedAt.put(uuid, now);
+        } else {
+            // El caché ya tiene su load(); este sobra.
+            store.release(uuid);
+        }
+    }
 
-    private final ZoneId cdmxZoneId = ZoneId.of("America/Mexico_City");
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * El login que precargué no llegó a entrar (otro plugin o el servidor lo rechazó después del pre-login).
+     * Libero lo que dejé en caché para él.
+     */
+    public void discardPrefetchedData(UUID uuid) {
+        if (prefetchedAt.remove(uuid) != null) {
+            playerDataCache.remove(uuid);
+            store.release(uuid);
+        }
+    }
 
-    public PointsManager(DeWaltCore plugin) {
-        this.plugin = plugin;
-        this.playerDataFolder = new File(plugin.getDataFolder(), "playerdata");
-        if (!playerDataFolder.exists()) {
-            playerDataFolder.mkdirs();
+    // Lo que lleva más de un minuto precargado sin entrar ya no va a entrar (se cayó la conexión a medio login).
+    private void expirePrefetched(long now) {
+        for (Map.Entry<UUID, Long> entry : prefetchedAt.entrySet()) {
+            if (now - entry.getValue() > PREFETCH_EXPIRY_MILLIS && prefetchedAt.remove(entry.getKey(), entry.getValue())) {
+                playerDataCache.remove(entry.getKey());
+                store.release(entry.getKey());
+            }
         }
-        this.leaderboardFile = new File(plugin.getDataFolder(), "leaderboard.yml");
-        loadLeaderboard();
     }
 
     /**
      * Carga los datos de un jugador a mi caché en memoria.
-     * Se llama cuando un jugador entra al servidor.
+     * Se llama cuando un jugador entra al servidor. Normalmente la precarga ya los dejó listos;
+     * si no llegó a ejecutarse, la hago aquí mismo (una lectura indexada si no estaba en memoria).
      */
     public void loadPlayerData(Player player) {
+        if (playerDataCache.containsKey(player.getUniqueId())) {
+            // Ya entró: desde ahora su entrada se libera con el quit.
+            prefetchedAt.remove(player.getUniqueId());
+            return;
+        }
         // --- MI MEJORA ---
         // Al cargar, me aseguro de que el nombre del jugador esté actualizado en el leaderboard.
         // Esto corrige nombres si un jugador cambia su nick.
-        updatePlayerNameInLeaderboard(player.getUniqueId(), player.getName());
-
-        File playerFile = new File(playerDataFolder, player.getUniqueId().toString() + ".yml");
-        FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-        int totalPoints = config.getInt("total-points", 0);
-        playerDataCache.put(player.getUniqueId(), new PlayerData(player.getName(), totalPoints, config, playerFile));
+        prefetchPlayerData(player.getUniqueId(), player.getName());
+        prefetchedAt.remove(player.getUniqueId());
     }
 
     /**
@@ -93,54 +153,119 @@ public class PointsManager {
      * Se llama cuando un jugador sale del servidor para liberar memoria.
      */
     public void unloadPlayerData(Player player) {
-        playerDataCache.remove(player.getUniqueId());
+        prefetchedAt.remove(player.getUniqueId());
+        if (playerDataCache.remove(player.getUniqueId()) != null) {
+            store.release(player.getUniqueId());
+        }
     }
 
     private void loadLeaderboard() {
-        if (!leaderboardFile.exists()) {
-            plugin.getLogger().info("No se encontró leaderboard.yml, se creará uno nuevo.");
+        // --- MI ARRANQUE RÁPIDO ---
+        // Los dos archivos solo se mapean: no parseo ni ordeno nada. Los puestos se buscan con búsqueda binaria
+        // sobre el snapshot caliente hasta que termina de pasar a memoria en segundo plano.
+        // El tier frío nunca pasa a memoria.
+        Map<UUID, PlayerScore> changes = new LinkedHashMap<>();
+        SortedScoreFile hot = leaderboardStore.load(score -> changes.put(score.uuid(), score));
+        SortedScoreFile cold = leaderboardStore.openColdTier();
+        leaderboard.set(leaderboard.get().withFiles(hot, cold));
+        // Encima, solo los cambios del log.
+        publishLeaderboard(changes.values(), false);
+        // Lo que acabo de cargar ya está en disco: no hace falta volver a guardarlo.
+        dirtyLeaderboard.clear();
+        LeaderboardSnapshot current = leaderboard.get();
+        plugin.getLogger().info("Leaderboard cargado con " + current.size() + " jugadores (" + current.getColdSize() + " en el tier frío).");
+
+        // Lo que recorre a todos los jugadores ya no va en onEnable: el leaderboard mapeado ya está publicado
+        // y sirve puestos mientras tanto. Primero reviso contra los datos de puntos (necesita el snapshot
+        // caliente todavía mapeado para ver los duplicados) y después lo paso a memoria.
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                reconcileWithStore();
+                if (leaderboard.get().isWarmingUp()) {
+                    warmUpLeaderboard();
+                }
+            }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    // Una corrección del arranque: lo que vi publicado (null si no estaba) y lo que dicen los datos de puntos.
+    private record Correction(PlayerScore seen, PlayerScore score) {
+    }
+
+    /**
+     * El journal de puntos es la fuente de verdad. Si el leaderboard se quedó atrás (por ejemplo,
+     * porque tuve que cargar una generación anterior), lo corrijo aquí y quedará marcado para guardarse.
+     * En la misma pasada (la única sobre todos los registros) busco a los que están en los dos tiers
+     * y reconstruyo los leaderboards por minijuego (hasta que termina, solo tienen las marcas nuevas).
+     * Corre en segundo plano con el servidor ya abierto, así que una corrección solo se publica si el puesto
+     * del jugador sigue como lo vi: si mientras tanto ganó puntos, lo publicado ya es más nuevo.
+     */
+    private void reconcileWithStore() {
+        List<Correction> corrections = new ArrayList<>();
+        List<UUID> coldDuplicates = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try {
+            store.forEachRecord(record -> {
+                LeaderboardSnapshot loaded = leaderboard.get();
+                if (loaded.hasColdDuplicate(record.getUuid())) {
+                    coldDuplicates.add(record.getUuid());
+                }
+                PlayerScore score = loaded.get(record.getUuid());
+                if (score == null || score.points() != record.getTotalPoints()) {
+                    corrections.add(new Correction(score, new PlayerScore(record.getUuid(), record.getPlayerName(), record.getTotalPoints())));
+                }
+                minigameLeaderboards.restore(record, now);
+            });
+        } catch (IOException e) {
+            plugin.getLogger().severe("No pude recorrer los datos de puntos para revisar el leaderboard.");
+            e.printStackTrace();
             return;
         }
 
-        FileConfiguration config = YamlConfiguration.loadConfiguration(leaderboardFile);
-        ConfigurationSection topSection = config.getConfigurationSection("top");
-        if (topSection == null) return;
-
-        for (String uuidString : topSection.getKeys(false)) {
-            try {
-                UUID uuid = UUID.fromString(uuidString);
-                String name = topSection.getString(uuidString + ".name");
-                int points = topSection.getInt(uuidString + ".points");
-                if (name != null) {
-                    leaderboard.put(uuid, new PlayerScore(uuid, name, points));
+        synchronized (leaderboardWriteLock) {
+            if (!coldDuplicates.isEmpty()) {
+                // Vale el del snapshot caliente; el archivo frío se limpia en el siguiente desalojo.
+                leaderboard.set(leaderboard.get().withoutColdDuplicates(coldDuplicates));
+                plugin.getLogger().info("Leaderboard: " + coldDuplicates.size() + " jugadores estaban en los dos tiers; cuento solo el caliente.");
+            }
+            LeaderboardSnapshot base = leaderboard.get();
+            List<PlayerScore> stillValid = new ArrayList<>(corrections.size());
+            for (Correction correction : corrections) {
+                if (Objects.equals(base.get(correction.score().uuid()), correction.seen())) {
+                    stillValid.add(correction.score());
                 }
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("UUID inválido en leaderboard.yml: " + uuidString);
             }
+            if (!stillValid.isEmpty()) {
+                publishLeaderboard(stillValid, false);
+                plugin.getLogger().info("Leaderboard: corregí " + stillValid.size() + " jugadores con los datos de puntos.");
+            }
+        }
+    }
+
+    /**
+     * Paso a memoria el snapshot caliente mapeado. Leo el archivo fuera del lock (es lo que puede tocar disco)
+     * y solo construyo la versión nueva dentro. Los puestos no cambian, así que no lanzo eventos.
+     */
+    private void warmUpLeaderboard() {
+        LeaderboardSnapshot base = leaderboard.get();
+        List<PlayerScore> entries = base.getWarmEntries();
+        synchronized (leaderboardWriteLock) {
+            leaderboard.set(leaderboard.get().withWarmTierLoaded(entries));
         }
-        updateSortedLeaderboardCache();
-        plugin.getLogger().info("Leaderboard cargado con " + leaderboard.size() + " jugadores.");
+        plugin.getLogger().info("Leaderboard: " + entries.size() + " jugadores del snapshot pasaron a memoria.");
     }
 
     // --- MI NUEVO MÉTODO SINCRÓNICO ---
     /**
      * Guarda el leaderboard en el hilo principal.
      * Es crucial usar este método solo en onDisable para garantizar que los datos se guarden.
+     * Como es un checkpoint incremental, solo escribe lo que cambió desde el último guardado.
      */
     public void saveLeaderboardSync() {
-        FileConfiguration config = new YamlConfiguration();
-        // Hago una copia para evitar problemas si algo más intenta modificarlo
-        Map<UUID, PlayerScore> leaderboardCopy = new HashMap<>(this.leaderboard);
-
-        ConfigurationSection topSection = config.createSection("top");
-        for (PlayerScore score : leaderboardCopy.values()) {
-            String path = score.uuid().toString();
-            topSection.set(path + ".name", score.playerName());
-            topSection.set(path + ".points", score.points());
-        }
-
+        List<PlayerScore> changed = drainDirtyLeaderboard();
         try {
-            config.save(leaderboardFile);
+            leaderboardStore.checkpoint(changed, this::copyLeaderboard);
         } catch (IOException e) {
             plugin.getLogger().severe("¡ERROR CRÍTICO! No pude guardar el archivo del leaderboard en onDisable!");
             e.printStackTrace();
@@ -149,66 +274,171 @@ public class PointsManager {
 
     // Renombro el método original para mayor claridad
     public void saveLeaderboardAsync() {
-        Map<UUID, PlayerScore> leaderboardCopy = new HashMap<>(this.leaderboard);
+        // Saco los cambios ya mismo; los que lleguen mientras escribo van al siguiente checkpoint.
+        List<PlayerScore> changed = drainDirtyLeaderboard();
 
         new BukkitRunnable() {
             @Override
             public void run() {
-                FileConfiguration config = new YamlConfiguration();
-                ConfigurationSection topSection = config.createSection("top");
-                for (PlayerScore score : leaderboardCopy.values()) {
-                    String path = score.uuid().toString();
-                    topSection.set(path + ".name", score.playerName());
-                    topSection.set(path + ".points", score.points());
-                }
-
                 try {
-                    config.save(leaderboardFile);
+                    leaderboardStore.checkpoint(changed, PointsManager.this::copyLeaderboard);
                 } catch (IOException e) {
                     plugin.getLogger().severe("No pude guardar el archivo del leaderboard de forma asíncrona!");
                     e.printStackTrace();
+                    // Los vuelvo a marcar para no perderlos en el siguiente intento.
+                    for (PlayerScore score : changed) {
+                        dirtyLeaderboard.add(score.uuid());
+                    }
                 }
             }
         }.runTaskAsynchronously(plugin);
     }
 
+    /**
+     * Saca del conjunto de cambios a cada jugador y devuelve su puntaje actual.
+     * Es O(jugadores que cambiaron), no O(jugadores registrados).
+     */
+    private List<PlayerScore> drainDirtyLeaderboard() {
+        List<PlayerScore> changed = new ArrayList<>();
+        LeaderboardSnapshot current = leaderboard.get();
+        Iterator<UUID> iterator = dirtyLeaderboard.iterator();
+        while (iterator.hasNext()) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+            PlayerScore score = current.get(uuid);
+            if (score != null) {
+                changed.add(score);
+            }
+        }
+        return changed;
+    }
+
+    private List<PlayerScore> copyLeaderboard() {
+        return leaderboard.get().getHotEntries();
+    }
+
+    /**
+     * Paso al tier frío a los jugadores con pocos puntos que llevan tiempo sin jugar y no están online.
+     * Reescribo el archivo frío (ya ordenado, mezclando lo que tenía con los nuevos) y publico la versión
+     * que ya no los tiene en memoria. Los puestos no cambian, así que no lanzo eventos.
+     * Hace I/O: solo desde una tarea asíncrona.
+     */
+    public void evictDormantPlayers() {
+        synchronized (coldTierLock) {
+            LeaderboardSnapshot base = leaderboard.get();
+            if (base.isWarmingUp()) {
+                return; // Todavía no termina de cargar; lo intento en la siguiente vuelta.
+            }
+            long cutoff = System.currentTimeMillis() - hotActiveMillis;
+            List<PlayerScore> evicted = new ArrayList<>();
+            for (PlayerScore score : base.getHotEntries()) {
+                if (score.points() >= hotMinPoints || playerDataCache.containsKey(score.uuid())) {
+                    continue;
+                }
+                PlayerRecord record = store.get(score.uuid());
+                if (record == null || record.getHistory().lastEventMillis() < cutoff) {
+                    evicted.add(score);
+                }
+            }
+            if (evicted.isEmpty()) {
+                return;
+            }
+
+            // Los dos ya vienen en orden de ranking: los mezclo en O(n).
+            List<PlayerScore> coldEntries = base.getColdEntries();
+            List<PlayerScore> merged = new ArrayList<>(coldEntries.size() + evicted.size());
+            int coldIndex = 0;
+            int evictedIndex = 0;
+            while (coldIndex < coldEntries.size() || evictedIndex < evicted.size()) {
+                if (evictedIndex == evicted.size() || (coldIndex < coldEntries.size()
+                        && LeaderboardSnapshot.RANK_ORDER.compare(coldEntries.get(coldIndex), evicted.get(evictedIndex)) < 0)) {
+                    merged.add(coldEntries.get(coldIndex++));
+                } else {
+                    merged.add(evicted.get(evictedIndex++));
+                }
+            }
+
+            SortedScoreFile newCold;
+            try {
+                newCold = leaderboardStore.writeColdTier(merged);
+            } catch (IOException e) {
+                plugin.getLogger().severe("No pude escribir el tier frío del leaderboard; los jugadores siguen en memoria.");
+                e.printStackTrace();
+                return;
+            }
+            synchronized (leaderboardWriteLock) {
+                leaderboard.set(leaderboard.get().withColdTier(newCold, evicted, base));
+            }
+            if (base.getColdTier() != null) {
+                leaderboardStore.retire(base.getColdTier().getFile());
+            }
+            // El snapshot caliente todavía los tiene: el próximo checkpoint lo reescribe sin ellos.
+            leaderboardStore.requestFullSnapshot();
+            plugin.getLogger().info("Pasé " + evicted.size() + " jugadores inactivos al tier frío del leaderboard.");
+        }
+    }
+
     /**
      * Registra el tiempo de un jugador en un minijuego donde un tiempo MENOR es mejor.
      * @return Los puntos ganados.
      */
+    public int recordCompletion(Player player, Minigame minigame, int newTime) {
+        return recordCompletion(player.getUniqueId(), player.getName(), minigame, newTime);
+    }
+
+    /**
+     * Versión con el id de texto, para quien todavía no usa {@link Minigame}.
+     * Traduzco el id una sola vez; el resto del camino es indexar arreglos.
+     * @return Los puntos ganados.
+     */
     public int recordCompletion(Player player, String minigameId, int newTime) {
-        UUID uuid = player.getUniqueId();
-        PlayerData data = playerDataCache.get(uuid);
-        if (data == null) {
-            plugin.getLogger().warning("Intenté registrar puntos para " + player.getName() + " pero sus datos no estaban cacheados.");
-            return 0;
-        }
+        Minigame minigame = resolveMinigame(minigameId);
+        return (minigame != null) ? recordCompletion(player, minigame, newTime) : 0;
+    }
 
-        FileConfiguration config = data.config;
-        int bestTime = config.getInt("minigames." + minigameId + ".best-time", -1);
-        int improvementCount = config.getInt("minigames." + minigameId + ".improvement-count", 0);
+    /**
+     * Igual que {@link #recordCompletion(Player, Minigame, int)}, pero por UUID: funciona aunque el jugador
+     * ya se haya desconectado (por ejemplo, durante la espera del final de una ronda).
+     * Como devuelve los puntos, si el jugador no está en memoria lee su registro del disco aquí mismo.
+     * @param playerName El nombre actual, o null si no lo sé (uso el que tengo guardado).
+     * @return Los puntos ganados.
+     */
+    public int recordCompletion(UUID uuid, String playerName, Minigame minigame, int newTime) {
+        return withPlayerData(uuid, playerName, data -> {
+            int pointsAwarded;
+            synchronized (data) {
+                pointsAwarded = applyCompletion(data, playerName, minigame, newTime);
+            }
+            minigameLeaderboards.submit(minigame, uuid, data.getPlayerName(), newTime);
+            return pointsAwarded;
+        });
+    }
+
+    private int applyCompletion(PlayerRecord data, String playerName, Minigame minigame, int newTime) {
+        PlayerRecord.MinigameStats stats = data.stats(minigame);
         int pointsAwarded;
         String reason;
 
-        if (bestTime == -1) {
+        if (stats.bestTime == -1) {
             pointsAwarded = 20;
             reason = "Primera finalización";
-            config.set("minigames." + minigameId + ".best-time", newTime);
-        } else if (newTime < bestTime) {
-            pointsAwarded = switch (improvementCount) {
+            stats.bestTime = newTime;
+        } else if (newTime < stats.bestTime) {
+            pointsAwarded = switch (stats.improvementCount) {
                 case 0 -> 10;
                 case 1 -> 5;
                 default -> 1;
             };
             reason = "Nuevo mejor tiempo";
-            config.set("minigames." + minigameId + ".best-time", newTime);
-            config.set("minigames." + minigameId + ".improvement-count", improvementCount + 1);
+            stats.bestTime = newTime;
+            stats.improvementCount++;
         } else {
             // Si el tiempo no es mejor, no se hace nada y no se otorgan puntos.
             return 0;
         }
 
-        updateAndSavePlayerData(player, data, minigameId, newTime, pointsAwarded, reason, "Tiempo");
+        updateAndSavePlayerData(data, playerName, PointEvent.Kind.COMPLETION, minigame.getId(), newTime, pointsAwarded, reason,
+                stats.bestTime, stats.improvementCount);
         return pointsAwarded;
     }
 
@@ -217,42 +447,64 @@ public class PointsManager {
      * Registra la puntuación de un jugador en un minijuego donde una puntuación MAYOR es mejor.
      * @return Los puntos ganados.
      */
+    public int recordScore(Player player, Minigame minigame, int newScore) {
+        return recordScore(player.getUniqueId(), player.getName(), minigame, newScore);
+    }
+
+    /**
+     * Versión con el id de texto, para quien todavía no usa {@link Minigame}.
+     * @return Los puntos ganados.
+     */
     public int recordScore(Player player, String minigameId, int newScore) {
-        UUID uuid = player.getUniqueId();
-        PlayerData data = playerDataCache.get(uuid);
-        if (data == null) {
-            plugin.getLogger().warning("Intenté registrar puntos para " + player.getName() + " pero sus datos no estaban cacheados.");
-            return 0;
-        }
+        Minigame minigame = resolveMinigame(minigameId);
+        return (minigame != null) ? recordScore(player, minigame, newScore) : 0;
+    }
+
+    /**
+     * Igual que {@link #recordScore(Player, Minigame, int)}, pero por UUID: funciona con el jugador desconectado.
+     * Igual que {@link #recordCompletion(UUID, String, Minigame, int)}, puede leer su registro del disco.
+     * @param playerName El nombre actual, o null si no lo sé.
+     * @return Los puntos ganados.
+     */
+    public int recordScore(UUID uuid, String playerName, Minigame minigame, int newScore) {
+        return withPlayerData(uuid, playerName, data -> {
+            int pointsAwarded;
+            synchronized (data) {
+                pointsAwarded = applyScore(data, playerName, minigame, newScore);
+            }
+            minigameLeaderboards.submit(minigame, uuid, data.getPlayerName(), newScore);
+            return pointsAwarded;
+        });
+    }
 
-        FileConfiguration config = data.config;
+    private int applyScore(PlayerRecord data, String playerName, Minigame minigame, int newScore) {
+        PlayerRecord.MinigameStats stats = data.stats(minigame);
         // Aquí la lógica cambia: -1 sigue siendo "nunca ha jugado", pero ahora buscamos un score mayor.
-        int bestScore = config.getInt("minigames." + minigameId + ".best-score", -1);
-        int improvementCount = config.getInt("minigames." + minigameId + ".improvement-count", 0);
         int pointsAwarded;
         String reason;
 
-        if (bestScore == -1) {
+        if (stats.bestScore == -1) {
             pointsAwarded = 10;
             reason = "Primera participación";
-            config.set("minigames." + minigameId + ".best-score", newScore);
-        } else if (newScore > bestScore) {
+            stats.bestScore = newScore;
+        } else if (newScore > stats.bestScore) {
             // El sistema de puntos por mejora es el mismo que en el otro minijuego.
-            pointsAwarded = switch (improvementCount) {
+            pointsAwarded = switch (stats.improvementCount) {
                 case 0 -> 5;
                 // --- MI CORRECCIÓN ---
                 // Ajusto los puntos a 5 y 1 según lo solicitado, similar al otro minijuego.
                 default -> 1;
             };
             reason = "Nuevo récord personal";
-            config.set("minigames." + minigameId + ".best-score", newScore);
-            config.set("minigames." + minigameId + ".improvement-count", improvementCount + 1);
+            stats.bestScore = newScore;
+            stats.improvementCount++;
         } else {
             // Si el puntaje no es mejor, no se otorgan puntos.
             return 0;
         }
 
-        updateAndSavePlayerData(player, data, minigameId, newScore, pointsAwarded, reason, "Pinturas");
+        updateAndSavePlayerData(data, playerName, PointEvent.Kind.SCORE, minigame.getId(), newScore, pointsAwarded, reason,
+                stats.bestScore, stats.improvementCount);
         return pointsAwarded;
     }
 
@@ -266,116 +518,345 @@ public class PointsManager {
      * @param reason La razón por la que se otorgan los puntos.
      */
     public void addPoints(Player player, int pointsToAdd, String minigameId, String reason) {
-        UUID uuid = player.getUniqueId();
-        PlayerData data = playerDataCache.get(uuid);
-        if (data == null) {
-            plugin.getLogger().warning("Intenté añadir puntos para " + player.getName() + " pero sus datos no estaban cacheados.");
+        addPoints(player.getUniqueId(), player.getName(), pointsToAdd, minigameId, reason);
+    }
+
+    /**
+     * Igual que {@link #addPoints(Player, int, String, String)}, pero por UUID.
+     * Si el jugador se desconectó justo antes del premio, sus puntos ya no se pierden:
+     * se aplican a su registro guardado y los verá al volver a entrar. Si para eso hay que leer su registro
+     * del disco y estoy en el hilo principal, el premio se aplica un momento después en una tarea asíncrona.
+     * @param playerName El nombre actual, o null si no lo sé.
+     */
+    public void addPoints(UUID uuid, String playerName, int pointsToAdd, String minigameId, String reason) {
+        if (needsDiskRead(uuid)) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    addPoints(uuid, playerName, pointsToAdd, minigameId, reason);
+                }
+            }.runTaskAsynchronously(plugin);
             return;
         }
+        withPlayerData(uuid, playerName, data -> {
+            synchronized (data) {
+                // Aquí no hay lógica de "mejor puntuación", simplemente llamo al método que guarda los datos.
+                // Uso un valor de "score" de 0 porque no es relevante aquí, y -1 porque no hay mejor marca.
+                updateAndSavePlayerData(data, playerName, PointEvent.Kind.REWARD, minigameId, 0, pointsToAdd, reason, -1, 0);
+            }
+            return null;
+        });
+    }
 
-        // Aquí no hay lógica de "mejor puntuación", simplemente llamo al método que guarda los datos.
-        // Uso un valor de "score" de 0 porque no es relevante aquí.
-        updateAndSavePlayerData(player, data, minigameId, 0, pointsToAdd, reason, "Recompensa");
+    /**
+     * Un premio dentro de una ronda: a quién y cuántos puntos.
+     * @param playerName El nombre actual, o null si no lo sé.
+     */
+    public record RoundAward(UUID uuid, String playerName, int points) {
     }
 
+    /**
+     * Lo que cambió el top con el pago de una ronda: los primeros {@link #TOP_EVENT_SIZE} antes y después,
+     * tomados de las dos versiones del leaderboard que separa esta publicación (sin mezclar otras).
+     * No incluye los premios que se aplicaron después en segundo plano (ver {@link #awardRound}).
+     */
+    public record RoundResult(List<PlayerScore> topBefore, List<PlayerScore> topAfter) {
+        public boolean topChanged() {
+            return !topBefore.equals(topAfter);
+        }
+    }
+
+    // --- MI PAGO POR RONDA ---
+    /**
+     * Paga todos los premios del final de una ronda como una sola transacción: aplico cada premio,
+     * publico UNA sola versión nueva del leaderboard y los eventos salen juntos en el mismo flush de la cola.
+     * Quien refresca los scoreboards son los eventos del leaderboard que lanza la publicación; el resultado
+     * es para quien además quiera saber si la ronda movió el top (por ejemplo, para anunciarlo).
+     * <p>
+     * Los que se desconectaron durante la espera final y ya no están en memoria no se leen del disco en el
+     * hilo principal: sus premios se aplican en una tarea asíncrona, con su propia publicación, justo después.
+     * @return El top antes y después del pago.
+     */
+    public RoundResult awardRound(String minigameId, String reason, List<RoundAward> awards) {
+        List<PlayerScore> updates = new ArrayList<>(awards.size());
+        List<RoundAward> fromDisk = new ArrayList<>();
+        for (RoundAward award : awards) {
+            if (needsDiskRead(award.uuid())) {
+                fromDisk.add(award);
+            } else {
+                applyRoundAward(minigameId, reason, award, updates);
+            }
+        }
+
+        Publication publication = publishLeaderboard(updates, true);
+        if (!fromDisk.isEmpty()) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    List<PlayerScore> lateUpdates = new ArrayList<>(fromDisk.size());
+                    for (RoundAward award : fromDisk) {
+                        applyRoundAward(minigameId, reason, award, lateUpdates);
+                    }
+                    publishLeaderboard(lateUpdates);
+                }
+            }.runTaskAsynchronously(plugin);
+        }
+        return new RoundResult(publication.previous().getTop(TOP_EVENT_SIZE), publication.current().getTop(TOP_EVENT_SIZE));
+    }
+
+    private void applyRoundAward(String minigameId, String reason, RoundAward award, List<PlayerScore> updates) {
+        withPlayerData(award.uuid(), award.playerName(), data -> {
+            synchronized (data) {
+                PlayerScore score = applyAward(data, award.playerName(), PointEvent.Kind.REWARD, minigameId, 0, award.points(), reason, -1, 0);
+                if (score != null) {
+                    updates.add(score);
+                }
+            }
+            return null;
+        });
+    }
+
+    private Minigame resolveMinigame(String minigameId) {
+        Minigame minigame = Minigame.fromId(minigameId);
+        if (minigame == null) {
+            plugin.getLogger().warning("Intenté registrar una marca para el minijuego desconocido '" + minigameId + "'.");
+        }
+        return minigame;
+    }
+
+    /**
+     * @return true si un premio a este jugador tendría que leer su registro del disco en el hilo principal:
+     * no está online ni en memoria. Con el plugin apagándose ya no puedo programar tareas, así que ahí lo leo igual.
+     */
+    private boolean needsDiskRead(UUID uuid) {
+        return Bukkit.isPrimaryThread() && plugin.isEnabled() && !playerDataCache.containsKey(uuid) && !store.isLoaded(uuid);
+    }
+
+    /**
+     * Busco los datos del jugador y le aplico {@code action}: primero en el caché de online y, si ya se fue,
+     * en el almacenamiento. Si no estaba en memoria, el almacenamiento lo lee del disco (una lectura indexada);
+     * lo dejo pedido mientras aplico el premio y lo suelto al terminar. El premio queda encolado en el almacenamiento
+     * y, mientras tenga cambios sin guardar, su próxima carga devuelve el mismo registro.
+     */
+    private <T> T withPlayerData(UUID uuid, String playerName, Function<PlayerRecord, T> action) {
+        PlayerRecord data = playerDataCache.get(uuid);
+        if (data != null) {
+            return action.apply(data);
+        }
+        // Si nunca ha ganado puntos y no está online, el almacenamiento le crea su registro una sola vez,
+        // aunque lleguen dos premios a la vez: los dos se aplican sobre el mismo objeto.
+        data = store.load(uuid, (playerName != null) ? playerName : uuid.toString());
+        try {
+            return action.apply(data);
+        } finally {
+            store.release(uuid);
+        }
+    }
 
     /**
      * Método centralizado para actualizar y guardar los datos del jugador.
+     * El guardado ahora es un solo evento de tamaño fijo anexado al journal: nada de YAML.
+     * Además va por la cola de escritura diferida, así que aquí no se toca el disco.
+     * Quien lo llama ya tiene el monitor de {@code data}.
      */
-    private void updateAndSavePlayerData(Player player, PlayerData data, String minigameId, int scoreValue, int pointsAwarded, String reason, String scoreType) {
-        if (pointsAwarded <= 0) {
-            return;
+    private void updateAndSavePlayerData(PlayerRecord data, String playerName, PointEvent.Kind kind, String minigameId, int scoreValue,
+                                         int pointsAwarded, String reason, int bestValue, int improvementCount) {
+        PlayerScore score = applyAward(data, playerName, kind, minigameId, scoreValue, pointsAwarded, reason, bestValue, improvementCount);
+        if (score != null) {
+            publishLeaderboard(List.of(score));
         }
+    }
 
-        int totalPoints = data.totalPoints + pointsAwarded;
-        data.totalPoints = totalPoints;
-        data.config.set("total-points", totalPoints);
-        data.config.set("player-name", player.getName());
+    /**
+     * Aplica y encola el premio, pero no toca el leaderboard: así {@link #awardRound} publica toda la ronda de una vez.
+     * @return El nuevo puntaje del jugador, o null si no hubo puntos.
+     */
+    private PlayerScore applyAward(PlayerRecord data, String playerName, PointEvent.Kind kind, String minigameId, int scoreValue,
+                                   int pointsAwarded, String reason, int bestValue, int improvementCount) {
+        if (pointsAwarded <= 0) {
+            return null;
+        }
 
-        String timestamp = LocalDateTime.now(cdmxZoneId).format(dateTimeFormatter);
-        // Ajusto el log para que tenga sentido si no hay un "score" relevante.
-        String logEntry;
-        if (scoreType.equals("Recompensa")) {
-            logEntry = String.format("%s [CDMX] | Fuente: %s | Puntos: +%d | Razón: %s",
-                    timestamp, minigameId, pointsAwarded, reason);
-        } else {
-            logEntry = String.format("%s [CDMX] | Minijuego: %s | %s: %d | Puntos: +%d | Razón: %s",
-                    timestamp, minigameId, scoreType, scoreValue, pointsAwarded, reason);
+        int totalPoints = data.getTotalPoints() + pointsAwarded;
+        data.setTotalPoints(totalPoints);
+        if (playerName != null) {
+            data.setPlayerName(playerName);
         }
 
-        List<String> history = data.config.getStringList("history");
-        history.add(logEntry);
-        data.config.set("history", history);
+        store.recordAward(data, new PointEvent(data.getUuid(), System.currentTimeMillis(), kind, minigameId, reason,
+                scoreValue, pointsAwarded, totalPoints, bestValue, improvementCount));
+        return new PlayerScore(data.getUuid(), data.getPlayerName(), totalPoints);
+    }
 
-        savePlayerFile(data.file, data.config);
-        updateLeaderboard(player.getUniqueId(), player.getName(), totalPoints);
+    /**
+     * Mantenimiento del almacenamiento (compactar el journal o hacer checkpoint de SQLite).
+     * Es seguro llamarlo desde una tarea asíncrona.
+     */
+    public void runStorageMaintenance() {
+        store.runMaintenance();
     }
 
-    private void savePlayerFile(File file, FileConfiguration config) {
-        String dataToSave = config.saveToString();
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    FileConfiguration asyncConfig = new YamlConfiguration();
-                    asyncConfig.loadFromString(dataToSave);
-                    asyncConfig.save(file);
-                } catch (Exception e) {
-                    plugin.getLogger().severe("No pude guardar el archivo de datos del jugador: " + file.getName());
-                    e.printStackTrace();
-                }
+    /**
+     * Vacía la cola de escritura y cierra el almacenamiento dejando un snapshot al día. Solo para onDisable.
+     */
+    public void closeStorage() {
+        store.close();
+    }
+
+    /**
+     * Publica una versión nueva del leaderboard con todos los cambios del lote.
+     * Cada cambio es O(log n) y los lectores nunca esperan: siguen con la versión anterior hasta que cambio la referencia.
+     */
+    private void publishLeaderboard(Collection<PlayerScore> updates) {
+        publishLeaderboard(updates, true);
+    }
+
+    // Las dos versiones del leaderboard que separa una publicación.
+    private record Publication(LeaderboardSnapshot previous, LeaderboardSnapshot current) {
+    }
+
+    private Publication publishLeaderboard(Collection<PlayerScore> updates, boolean notify) {
+        LeaderboardSnapshot previous;
+        LeaderboardSnapshot current;
+        synchronized (leaderboardWriteLock) {
+            previous = leaderboard.get();
+            current = previous.with(updates);
+            leaderboard.set(current);
+        }
+        for (PlayerScore score : updates) {
+            dirtyLeaderboard.add(score.uuid());
+        }
+        if (notify) {
+            fireLeaderboardEvents(previous, current, updates);
+        }
+        return new Publication(previous, current);
+    }
+
+    // --- MIS EVENTOS DEL LEADERBOARD ---
+    /**
+     * Comparo la versión anterior con la nueva y lanzo solo los eventos de lo que de verdad cambió.
+     * Para los puestos solo reviso a los jugadores online (los del caché): O(online · log n) por publicación,
+     * y un lote de premios es una sola publicación. Las versiones son inmutables, así que esto se puede
+     * calcular en cualquier hilo; los eventos siempre se lanzan en el hilo principal.
+     */
+    private void fireLeaderboardEvents(LeaderboardSnapshot previous, LeaderboardSnapshot current, Collection<PlayerScore> updates) {
+        List<Event> events = new ArrayList<>();
+
+        for (PlayerScore score : updates) {
+            PlayerScore before = previous.get(score.uuid());
+            int oldPoints = (before != null) ? before.points() : 0;
+            if (oldPoints != score.points()) {
+                events.add(new PlayerPointsChangeEvent(score.uuid(), score.playerName(), oldPoints, score.points()));
             }
-        }.runTaskAsynchronously(plugin);
+        }
+
+        for (UUID uuid : playerDataCache.keySet()) {
+            int oldRank = previous.getRank(uuid);
+            int newRank = current.getRank(uuid);
+            if (oldRank != newRank) {
+                events.add(new PlayerRankChangeEvent(uuid, oldRank, newRank));
+            }
+        }
+
+        List<PlayerScore> oldTop = previous.getTop(TOP_EVENT_SIZE);
+        List<PlayerScore> newTop = current.getTop(TOP_EVENT_SIZE);
+        if (!oldTop.equals(newTop)) {
+            events.add(new LeaderboardTopChangeEvent(oldTop, newTop));
+        }
+
+        // Con el plugin apagándose ya no puedo programar tareas, y nadie va a escuchar.
+        if (events.isEmpty() || !plugin.isEnabled()) {
+            return;
+        }
+        if (Bukkit.isPrimaryThread()) {
+            callEvents(events);
+        } else {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    callEvents(events);
+                }
+            }.runTask(plugin);
+        }
     }
 
-    private void updateLeaderboard(UUID uuid, String playerName, int newTotalPoints) {
-        leaderboard.put(uuid, new PlayerScore(uuid, playerName, newTotalPoints));
-        updateSortedLeaderboardCache();
+    private void callEvents(List<Event> events) {
+        for (Event event : events) {
+            Bukkit.getPluginManager().callEvent(event);
+        }
+    }
+
+    /**
+     * La versión actual del leaderboard. Es inmutable: se puede leer desde cualquier hilo
+     * y todos sus datos (top, puestos, puntos) son consistentes entre sí.
+     */
+    public LeaderboardSnapshot getLeaderboardSnapshot() {
+        return leaderboard.get();
     }
 
     // --- MI NUEVO MÉTODO DE UTILIDAD ---
     private void updatePlayerNameInLeaderboard(UUID uuid, String newPlayerName) {
-        PlayerScore currentScore = leaderboard.get(uuid);
+        PlayerScore currentScore = leaderboard.get().get(uuid);
         // Si el jugador ya está en el leaderboard y su nombre ha cambiado, lo actualizo.
         if (currentScore != null && !currentScore.playerName().equals(newPlayerName)) {
-            leaderboard.put(uuid, new PlayerScore(uuid, newPlayerName, currentScore.points()));
-            // No necesito reordenar aquí, porque los puntos no cambiaron.
+            // El puesto no cambia, pero el índice guarda el PlayerScore completo y también debe llevar el nombre nuevo.
+            publishLeaderboard(List.of(new PlayerScore(uuid, newPlayerName, currentScore.points())));
         }
     }
 
-    private void updateSortedLeaderboardCache() {
-        // En servidores con muchísimos jugadores (>10k en el leaderboard) esto podría tardar.
-        // Por ahora, con unos cientos o miles, hacerlo síncrono es casi instantáneo y más simple.
-        // Si llegara a ser un problema, podríamos moverlo a un hilo asíncrono.
-        List<PlayerScore> sortedList = new ArrayList<>(leaderboard.values());
-        Collections.sort(sortedList);
-        this.sortedLeaderboardCache = sortedList;
+    public int getTotalPoints(Player player) {
+        PlayerRecord data = playerDataCache.get(player.getUniqueId());
+        return (data != null) ? data.getTotalPoints() : 0;
     }
 
-    public int getTotalPoints(Player player) {
-        PlayerData data = playerDataCache.get(player.getUniqueId());
-        return (data != null) ? data.totalPoints : 0;
+    /**
+     * Los últimos premios de un jugador, del más reciente al más antiguo.
+     * Solo es su anillo; lo anterior está en los archivos de historial.
+     * Si no está online, puede leer su registro del disco: mejor fuera del hilo principal.
+     */
+    public List<PointEvent> getRecentHistory(UUID uuid) {
+        PlayerRecord data = playerDataCache.get(uuid);
+        if (data == null) {
+            data = store.get(uuid);
+        }
+        return (data != null) ? data.getHistory().recent() : Collections.emptyList();
     }
 
     public int getPlayerRank(Player player) {
-        UUID uuid = player.getUniqueId();
-        // La iteración es muy rápida sobre la lista cacheadada, no requiere optimización adicional.
-        for (int i = 0; i < sortedLeaderboardCache.size(); i++) {
-            if (sortedLeaderboardCache.get(i).uuid().equals(uuid)) {
-                return i + 1;
-            }
-        }
-        return 0; // No clasificado
+        // O(log n) y sin locks; 0 si no está clasificado.
+        return leaderboard.get().getRank(player.getUniqueId());
     }
 
     // --- MI NUEVO MÉTODO PARA EL SCOREBOARD ---
     /**
      * Devuelve una lista con los mejores jugadores.
-     * Es súper rápido porque lee desde la lista cacheada y ordenada.
+     * Es súper rápido: solo recorre los primeros nodos de la versión publicada, sin locks.
      * @param amount El número de jugadores a devolver.
      * @return Una lista de PlayerScore.
      */
     public List<PlayerScore> getTopPlayers(int amount) {
-        return sortedLeaderboardCache.stream().limit(amount).collect(Collectors.toList());
+        return leaderboard.get().getTop(amount);
+    }
+
+    /**
+     * El leaderboard de un minijuego en una ventana de tiempo, por ejemplo "el maze más rápido de hoy".
+     * Es una versión inmutable: sirve para pedir varias cosas seguidas (top y puesto) de forma consistente.
+     */
+    public MinigameBoard getMinigameBoard(Minigame minigame, LeaderboardWindow window) {
+        return minigameLeaderboards.get(minigame, window);
+    }
+
+    /**
+     * Los mejores de un minijuego en una ventana: O(log n + amount).
+     */
+    public List<MinigameBoard.Entry> getTopPlayers(Minigame minigame, LeaderboardWindow window, int amount) {
+        return minigameLeaderboards.get(minigame, window).getTop(amount);
+    }
+
+    /**
+     * @return El puesto del jugador en un minijuego y ventana (O(log n)), o 0 si no ha jugado en ese periodo.
+     */
+    public int getPlayerRank(UUID uuid, Minigame minigame, LeaderboardWindow window) {
+        return minigameLeaderboards.get(minigame, window).getRank(uuid);
     }
 }
\ No newline at end of file
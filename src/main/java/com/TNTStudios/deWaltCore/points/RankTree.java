@@ -0,0 +1,217 @@
+package com.TNTStudios.deWaltCore.points;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * Mi árbol de ranking inmutable: un treap persistente con el tamaño de cada subárbol.
+ * Nunca modifico un nodo; insertar o borrar copia solo el camino desde la raíz (O(log n) nodos nuevos)
+ * y devuelve una raíz nueva. Las versiones anteriores siguen intactas, así que un lector que tenga
+ * una raíz puede recorrerla desde cualquier hilo sin locks mientras otro hilo construye la siguiente.
+ * <p>
+ * El comparador debe ser un orden total (sin empates entre valores distintos).
+ * Un árbol vacío es {@code null}.
+ */
+public final class RankTree<T> {
+
+    final T value;
+    final RankTree<T> left;
+    final RankTree<T> right;
+    final int size;
+    // La prioridad aleatoria mantiene el árbol balanceado en promedio.
+    private final int priority;
+
+    private RankTree(T value, int priority, RankTree<T> left, RankTree<T> right) {
+        this.value = value;
+        this.priority = priority;
+        this.left = left;
+        this.right = right;
+        this.size = 1 + size(left) + size(right);
+    }
+
+    public static int size(RankTree<?> tree) {
+        return (tree == null) ? 0 : tree.size;
+    }
+
+    /**
+     * @return Un árbol nuevo con {@code value}. Si ya había uno igual según el comparador, lo reemplaza.
+     */
+    public static <T> RankTree<T> insert(RankTree<T> tree, T value, Comparator<? super T> order) {
+        return insert(tree, value, ThreadLocalRandom.current().nextInt(), order);
+    }
+
+    private static <T> RankTree<T> insert(RankTree<T> tree, T value, int priority, Comparator<? super T> order) {
+        if (tree == null) {
+            return new RankTree<>(value, priority, null, null);
+        }
+        int comparison = order.compare(value, tree.value);
+        if (comparison == 0) {
+            return new RankTree<>(value, tree.priority, tree.left, tree.right);
+        }
+        if (priority > tree.priority) {
+            // El nodo nuevo sube aquí: parto el subárbol en lo menor y lo mayor que él.
+            RankTree<T> lower = splitBelow(tree, value, order);
+            RankTree<T> higher = splitAbove(tree, value, order);
+            return new RankTree<>(value, priority, lower, higher);
+        }
+        if (comparison < 0) {
+            return new RankTree<>(tree.value, tree.priority, insert(tree.left, value, priority, order), tree.right);
+        }
+        return new RankTree<>(tree.value, tree.priority, tree.left, insert(tree.right, value, priority, order));
+    }
+
+    /**
+     * @return Un árbol nuevo sin el valor igual a {@code value}; el mismo árbol si no estaba.
+     */
+    public static <T> RankTree<T> remove(RankTree<T> tree, T value, Comparator<? super T> order) {
+        if (tree == null) {
+            return null;
+        }
+        int comparison = order.compare(value, tree.value);
+        if (comparison == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (comparison < 0) {
+            RankTree<T> left = remove(tree.left, value, order);
+            return (left == tree.left) ? tree : new RankTree<>(tree.value, tree.priority, left, tree.right);
+        }
+        RankTree<T> right = remove(tree.right, value, order);
+        return (right == tree.right) ? tree : new RankTree<>(tree.value, tree.priority, tree.left, right);
+    }
+
+    /**
+     * Busca un valor guiándose por una función en lugar de un valor completo
+     * (por ejemplo, buscar por UUID en un árbol ordenado por UUID).
+     *
+     * @param direction Negativo si lo buscado va a la izquierda del valor del nodo, positivo a la derecha, 0 si es ese.
+     * @return El valor, o null.
+     */
+    public static <T> T find(RankTree<T> tree, ToIntFunction<? super T> direction) {
+        while (tree != null) {
+            int comparison = direction.applyAsInt(tree.value);
+            if (comparison == 0) {
+                return tree.value;
+            }
+            tree = (comparison < 0) ? tree.left : tree.right;
+        }
+        return null;
+    }
+
+    /**
+     * @return El puesto (empezando en 1) del valor, o 0 si no está.
+     */
+    public static <T> int rank(RankTree<T> tree, T value, Comparator<? super T> order) {
+        int before = 0;
+        while (tree != null) {
+            int comparison = order.compare(value, tree.value);
+            if (comparison < 0) {
+                tree = tree.left;
+            } else if (comparison == 0) {
+                return before + size(tree.left) + 1;
+            } else {
+                before += size(tree.left) + 1;
+                tree = tree.right;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return Cuántos valores van estrictamente antes de {@code value}, esté o no en el árbol. O(log n).
+     */
+    public static <T> int countBefore(RankTree<T> tree, T value, Comparator<? super T> order) {
+        int before = 0;
+        while (tree != null) {
+            if (order.compare(value, tree.value) <= 0) {
+                tree = tree.left;
+            } else {
+                before += size(tree.left) + 1;
+                tree = tree.right;
+            }
+        }
+        return before;
+    }
+
+    /**
+     * @return El valor en el puesto indicado (empezando en 1), o null si no existe.
+     */
+    public static <T> T get(RankTree<T> tree, int rank) {
+        if (rank < 1 || rank > size(tree)) {
+            return null;
+        }
+        while (tree != null) {
+            int leftSize = size(tree.left);
+            if (rank <= leftSize) {
+                tree = tree.left;
+            } else if (rank == leftSize + 1) {
+                return tree.value;
+            } else {
+                rank -= leftSize + 1;
+                tree = tree.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Los primeros {@code amount} valores en orden: O(log n + amount).
+     */
+    public static <T> List<T> top(RankTree<T> tree, int amount) {
+        List<T> result = new ArrayList<>(Math.min(amount, size(tree)));
+        Deque<RankTree<T>> stack = new ArrayDeque<>();
+        RankTree<T> current = tree;
+        while ((current != null || !stack.isEmpty()) && result.size() < amount) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            RankTree<T> node = stack.pop();
+            result.add(node.value);
+            current = node.right;
+        }
+        return result;
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    // Todo lo estrictamente menor que value.
+    private static <T> RankTree<T> splitBelow(RankTree<T> tree, T value, Comparator<? super T> order) {
+        if (tree == null) {
+            return null;
+        }
+        if (order.compare(tree.value, value) < 0) {
+            return new RankTree<>(tree.value, tree.priority, tree.left, splitBelow(tree.right, value, order));
+        }
+        return splitBelow(tree.left, value, order);
+    }
+
+    // Todo lo estrictamente mayor que value.
+    private static <T> RankTree<T> splitAbove(RankTree<T> tree, T value, Comparator<? super T> order) {
+        if (tree == null) {
+            return null;
+        }
+        if (order.compare(tree.value, value) > 0) {
+            return new RankTree<>(tree.value, tree.priority, splitAbove(tree.left, value, order), tree.right);
+        }
+        return splitAbove(tree.right, value, order);
+    }
+
+    // Une dos árboles donde todo lo de "lower" va antes que todo lo de "higher".
+    private static <T> RankTree<T> merge(RankTree<T> lower, RankTree<T> higher) {
+        if (lower == null) {
+            return higher;
+        }
+        if (higher == null) {
+            return lower;
+        }
+        if (lower.priority > higher.priority) {
+            return new RankTree<>(lower.value, lower.priority, lower.left, merge(lower.right, higher));
+        }
+        return new RankTree<>(higher.value, higher.priority, merge(lower, higher.left), higher.right);
+    }
+}
@@ -0,0 +1,206 @@
+package com.TNTStudios.deWaltCore.points;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Mi formato binario del leaderboard: un archivo ya ordenado por ranking que se mapea en memoria.
+ * Lo uso para el snapshot del tier caliente (leaderboard-hot-&lt;gen&gt;.dat) y para el tier frío
+ * (leaderboard-cold-&lt;gen&gt;.dat). Abrirlo es O(1): no parseo nada, el sistema operativo trae las páginas
+ * cuando las toco, y los puestos se sacan con búsqueda binaria directamente sobre el mapeo.
+ * <p>
+ * Formato (big-endian):
+ * <pre>
+ * cabecera:  magic, versión, cantidad (int), inicio de la tabla de nombres (long)
+ * registros: [cantidad] × (uuid msb, uuid lsb, puntos, offset del nombre)  en orden de ranking
+ * índice:    [cantidad] × posición del registro (int)                      en orden de UUID
+ * nombres:   [cantidad] × (largo ushort, bytes UTF-8)
+ * cola:      CRC32 de todo lo anterior (int)
+ * </pre>
+ * Al abrirlo compruebo el CRC: un archivo truncado o con basura no se usa, y se carga la generación anterior.
+ * Nunca se modifica: cada reescritura es un archivo nuevo, así una versión vieja del leaderboard puede seguir leyendo el suyo.
+ * Solo uso lecturas absolutas sobre el buffer, así que varios hilos pueden leer a la vez sin locks.
+ */
+final class SortedScoreFile {
+
+    private static final int MAGIC = 0x44574C46; // "DWLF"
+    // La versión 1 no tenía CRC: ya no la acepto, el leaderboard se reconstruye con los datos de puntos.
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int TRAILER_BYTES = 4;
+    private static final int RECORD_BYTES = 24;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+    private final int namesOffset;
+
+    private SortedScoreFile(File file, MappedByteBuffer buffer, int count, int namesOffset) {
+        this.file = file;
+        this.buffer = buffer;
+        this.count = count;
+        this.indexOffset = HEADER_BYTES + count * RECORD_BYTES;
+        this.namesOffset = namesOffset;
+    }
+
+    /**
+     * Mapea el archivo, valida la cabecera y comprueba el CRC. El CRC es lo único que recorre el archivo
+     * (una lectura secuencial); no parseo ni ordeno nada.
+     * El mapeo sigue vivo aunque cierre el canal, así que no hay nada que cerrar después.
+     */
+    static SortedScoreFile open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("El archivo " + file.getName() + " no tiene un tamaño válido.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("El archivo " + file.getName() + " no es un leaderboard binario.");
+            }
+            int count = buffer.getInt(8);
+            long namesOffset = buffer.getLong(12);
+            long bodyEnd = size - TRAILER_BYTES;
+            if (count < 0 || namesOffset != HEADER_BYTES + (long) count * (RECORD_BYTES + 4) || bodyEnd < namesOffset) {
+                throw new IOException("El archivo " + file.getName() + " está incompleto.");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) bodyEnd));
+            if (buffer.getInt((int) bodyEnd) != (int) crc.getValue()) {
+                throw new IOException("El archivo " + file.getName() + " está dañado (el CRC no coincide).");
+            }
+            return new SortedScoreFile(file, buffer, count, (int) namesOffset);
+        }
+    }
+
+    /**
+     * Escribe un archivo nuevo con {@code scores}, que ya deben venir en orden de ranking.
+     * Lo escribo aparte, lo sincronizo y solo entonces lo pongo en su sitio. Quien lo escribe lo abre
+     * después con {@link #open(File)}, que verifica el CRC, antes de retirar la generación anterior.
+     */
+    static void write(File target, List<PointsManager.PlayerScore> scores) throws IOException {
+        Integer[] byUuid = new Integer[scores.size()];
+        for (int i = 0; i < byUuid.length; i++) {
+            byUuid[i] = i;
+        }
+        Arrays.sort(byUuid, Comparator.comparing(i -> scores.get(i).uuid()));
+
+        byte[][] names = new byte[scores.size()][];
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = scores.get(i).playerName().getBytes(StandardCharsets.UTF_8);
+            names[i] = (name.length > 0xFFFF) ? Arrays.copyOf(name, 0xFFFF) : name;
+        }
+
+        File tempFile = new File(target.getAbsoluteFile().getParentFile(), target.getName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(scores.size());
+            out.writeLong(HEADER_BYTES + (long) scores.size() * (RECORD_BYTES + 4));
+
+            int nameOffset = 0;
+            for (int i = 0; i < scores.size(); i++) {
+                PointsManager.PlayerScore score = scores.get(i);
+                out.writeLong(score.uuid().getMostSignificantBits());
+                out.writeLong(score.uuid().getLeastSignificantBits());
+                out.writeInt(score.points());
+                out.writeInt(nameOffset);
+                nameOffset += 2 + names[i].length;
+            }
+            for (Integer position : byUuid) {
+                out.writeInt(position);
+            }
+            for (byte[] name : names) {
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        SafeFiles.moveIntoPlace(tempFile, target);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return El registro en la posición indicada (0 es el mejor del archivo).
+     */
+    PointsManager.PlayerScore getAt(int position) {
+        int offset = HEADER_BYTES + position * RECORD_BYTES;
+        UUID uuid = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+        return new PointsManager.PlayerScore(uuid, readName(buffer.getInt(offset + 20)), buffer.getInt(offset + 16));
+    }
+
+    /**
+     * Búsqueda binaria en el índice por UUID: O(log n).
+     * @return El registro del jugador, o null si no está en el archivo.
+     */
+    PointsManager.PlayerScore get(UUID uuid) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = buffer.getInt(indexOffset + middle * 4);
+            int offset = HEADER_BYTES + position * RECORD_BYTES;
+            int comparison = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)).compareTo(uuid);
+            if (comparison == 0) {
+                return getAt(position);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cuántos registros van antes de {@code score} en el ranking. Búsqueda binaria: O(log n).
+     */
+    int countBefore(PointsManager.PlayerScore score) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_BYTES + middle * RECORD_BYTES;
+            int points = buffer.getInt(offset + 16);
+            // El mismo orden que LeaderboardSnapshot.RANK_ORDER: más puntos primero y luego por UUID.
+            boolean before = (points != score.points()) ? points > score.points()
+                    : new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)).compareTo(score.uuid()) < 0;
+            if (before) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private String readName(int nameOffset) {
+        int offset = namesOffset + nameOffset;
+        byte[] name = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        buffer.get(offset + 2, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package com.TNTStudios.deWaltCore.points.event;
+
+import com.TNTStudios.deWaltCore.points.PointsManager;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+
+/**
+ * Se lanza (en el hilo principal) cuando cambia el top del leaderboard general:
+ * alguien entró, salió, cambió de puesto o de puntos dentro del top, o se cambió el nick.
+ */
+public class LeaderboardTopChangeEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final List<PointsManager.PlayerScore> oldTop;
+    private final List<PointsManager.PlayerScore> newTop;
+
+    public LeaderboardTopChangeEvent(List<PointsManager.PlayerScore> oldTop, List<PointsManager.PlayerScore> newTop) {
+        this.oldTop = oldTop;
+        this.newTop = newTop;
+    }
+
+    public List<PointsManager.PlayerScore> getOldTop() {
+        return oldTop;
+    }
+
+    public List<PointsManager.PlayerScore> getNewTop() {
+        return newTop;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
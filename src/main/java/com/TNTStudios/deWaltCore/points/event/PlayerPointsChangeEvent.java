@@ -0,0 +1,52 @@
+package com.TNTStudios.deWaltCore.points.event;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.UUID;
+
+/**
+ * Se lanza (en el hilo principal) cuando cambian los puntos totales de un jugador.
+ * El jugador puede estar desconectado: los premios por UUID también lo disparan.
+ */
+public class PlayerPointsChangeEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final UUID uuid;
+    private final String playerName;
+    private final int oldPoints;
+    private final int newPoints;
+
+    public PlayerPointsChangeEvent(UUID uuid, String playerName, int oldPoints, int newPoints) {
+        this.uuid = uuid;
+        this.playerName = playerName;
+        this.oldPoints = oldPoints;
+        this.newPoints = newPoints;
+    }
+
+    public UUID getUniqueId() {
+        return uuid;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getOldPoints() {
+        return oldPoints;
+    }
+
+    public int getNewPoints() {
+        return newPoints;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,46 @@
+package com.TNTStudios.deWaltCore.points.event;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.UUID;
+
+/**
+ * Se lanza (en el hilo principal) cuando cambia el puesto en el leaderboard de un jugador ONLINE,
+ * ya sea porque ganó puntos o porque alguien lo pasó. Un puesto 0 significa "sin clasificar".
+ */
+public class PlayerRankChangeEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final UUID uuid;
+    private final int oldRank;
+    private final int newRank;
+
+    public PlayerRankChangeEvent(UUID uuid, int oldRank, int newRank) {
+        this.uuid = uuid;
+        this.oldRank = oldRank;
+        this.newRank = newRank;
+    }
+
+    public UUID getUniqueId() {
+        return uuid;
+    }
+
+    public int getOldRank() {
+        return oldRank;
+    }
+
+    public int getNewRank() {
+        return newRank;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
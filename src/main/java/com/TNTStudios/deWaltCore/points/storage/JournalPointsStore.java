@@ -0,0 +1,468 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mi motor de almacenamiento para los puntos: snapshot + journal segmentado.
+ * Sustituye a los archivos playerdata/<uuid>.yml. Un premio solo anexa un evento al journal
+ * y, de vez en cuando, compacto los segmentos sellados en un snapshot nuevo.
+ * Toda la escritura pasa por {@link PointsWriteQueue}, así que nada de esto toca el disco en el hilo principal.
+ * <p>
+ * El snapshot se mapea y no se carga: en memoria solo están los jugadores pedidos y los que cambiaron desde
+ * la última compactación ({@link ResidentRecords}). Los demás se decodifican del snapshot cuando alguien los pide.
+ */
+public class JournalPointsStore implements PointsStorage {
+
+    // 1 MiB por segmento son unos 18.000 premios, de sobra para una jornada del evento.
+    private static final long MAX_SEGMENT_BYTES = 1L << 20;
+    // Cuando haya este número de segmentos sellados, vale la pena compactar.
+    private static final int COMPACTION_THRESHOLD = 4;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String DAT_SUFFIX = ".dat";
+
+    private final Logger logger;
+    private final File storageFolder;
+    // El snapshot de las versiones 1 y 2, que se leía completo. Solo lo abro para convertirlo.
+    private final File legacySnapshotFile;
+    private final File historyFolder;
+    private final File legacyFolder;
+    private final PointsJournal journal;
+    private final PointsWriteQueue writeQueue;
+    // Los segmentos archivados más viejos que esto se borran; 0 es conservarlos para siempre.
+    private final long historyRetentionMillis;
+
+    // Los jugadores en memoria; los demás se leen del snapshot mapeado.
+    private final ResidentRecords residents = new ResidentRecords(this::readFromSnapshot);
+    // La compactación y los recorridos completos se turnan: así un recorrido nunca ve a medias el cambio de snapshot.
+    private final Object compactionLock = new Object();
+
+    // El snapshot actual (null hasta la primera compactación) y su número de generación.
+    private volatile PointsSnapshot snapshot;
+    private long snapshotGeneration = 0;
+    // La generación anterior, que se queda de respaldo hasta la siguiente compactación.
+    private File retiredSnapshot;
+    // Hasta qué segmento cubre el snapshot de respaldo. Si el actual se daña, arranco del respaldo y reproduzco
+    // el historial posterior a él, así que ese tramo nunca se borra. -1 mientras no sé qué cubre.
+    private volatile long backupCoveredSegmentId = -1;
+
+    /**
+     * @param historyRetentionDays Cuántos días conservo los segmentos archivados en points/history (0 = siempre).
+     */
+    public JournalPointsStore(File dataFolder, Logger logger, int historyRetentionDays) {
+        this.logger = logger;
+        this.historyRetentionMillis = Math.max(0, historyRetentionDays) * MILLIS_PER_DAY;
+        this.storageFolder = new File(dataFolder, "points");
+        this.legacySnapshotFile = new File(storageFolder, "snapshot.dat");
+        this.historyFolder = new File(storageFolder, "history");
+        this.legacyFolder = new File(dataFolder, "playerdata");
+        this.journal = new PointsJournal(new File(storageFolder, "journal"), logger, MAX_SEGMENT_BYTES);
+        this.writeQueue = new PointsWriteQueue(journal, logger);
+    }
+
+    /**
+     * Mapeo el snapshot, reproduzco lo que haya en el journal y dejo abierto un segmento nuevo.
+     * Solo quedan en memoria los jugadores que aparecen en el journal; el resto sigue en el snapshot.
+     * Si encuentro el snapshot del formato anterior, o es el primer arranque con este formato y hay YAML antiguos,
+     * los convierto y compacto en ese momento.
+     */
+    @Override
+    public void open() throws IOException {
+        boolean hasGenerations = listGenerations().length > 0;
+        openLatestSnapshot();
+        long coveredSegmentId = (snapshot != null) ? snapshot.getCoveredSegmentId() : 0;
+
+        boolean convertLegacy = false;
+        if (!hasGenerations) {
+            PointsSnapshot.Contents legacy = PointsSnapshot.readLegacy(legacySnapshotFile, logger);
+            if (legacy != null) {
+                logger.info("Convirtiendo el snapshot de puntos (" + legacy.records().size() + " jugadores) al formato mapeado...");
+                coveredSegmentId = legacy.coveredSegmentId();
+                for (PlayerRecord record : legacy.records()) {
+                    residents.markChanged(record);
+                }
+                convertLegacy = true;
+            }
+        }
+
+        PointsJournal.Replay replay = new PointsJournal.Replay() {
+            @Override
+            public void onEvent(PointEvent event) {
+                applyEvent(event);
+            }
+
+            @Override
+            public void onName(UUID uuid, String playerName) {
+                PlayerRecord record = residents.resident(uuid, playerName);
+                record.setPlayerName(playerName);
+                residents.markChanged(record);
+            }
+        };
+        // Si tuve que cargar la generación anterior del snapshot, los segmentos que cubría la dañada
+        // ya están archivados en el historial. Los reproduzco de ahí antes que los del journal.
+        // Normalmente no hay ninguno y esto solo lista la carpeta.
+        journal.replayArchive(historyFolder, coveredSegmentId, replay);
+        journal.replay(coveredSegmentId, replay);
+        journal.openAfter(coveredSegmentId, historyFolder);
+
+        if (convertLegacy) {
+            compact();
+        } else if (snapshot == null && !hasGenerations && residents.size() == 0 && !SafeFiles.exists(legacySnapshotFile)) {
+            importLegacyPlayerFiles();
+        }
+        logger.info("Almacenamiento de puntos abierto: " + ((snapshot != null) ? snapshot.size() : 0)
+                + " jugadores en el snapshot, " + residents.size() + " en memoria.");
+    }
+
+    /**
+     * Devuelve el registro de un jugador y lo deja en memoria hasta su {@link #release}. Si no estaba, lo decodifico
+     * del snapshot. Si nunca ha ganado puntos, le doy uno nuevo que todavía no se guarda:
+     * solo entra al almacenamiento con su primer premio.
+     */
+    @Override
+    public PlayerRecord load(UUID uuid, String playerName) {
+        return residents.hold(uuid, playerName);
+    }
+
+    @Override
+    public boolean isLoaded(UUID uuid) {
+        return residents.contains(uuid);
+    }
+
+    @Override
+    public void release(UUID uuid) {
+        residents.release(uuid);
+    }
+
+    @Override
+    public PlayerRecord get(UUID uuid) {
+        PlayerRecord record = residents.get(uuid);
+        return (record != null) ? record : readFromSnapshot(uuid);
+    }
+
+    /**
+     * Recorro el snapshot en orden de UUID, cambiando a cada jugador en memoria por su versión actual,
+     * y después los que todavía no están en ningún snapshot.
+     */
+    @Override
+    public void forEachRecord(Consumer<PlayerRecord> consumer) {
+        synchronized (compactionLock) {
+            PointsSnapshot base = snapshot;
+            if (base != null) {
+                base.forEach(stored -> {
+                    PlayerRecord resident = residents.get(stored.getUuid());
+                    consumer.accept((resident != null) ? resident : stored);
+                });
+            }
+            for (PlayerRecord record : residents.values()) {
+                if (base == null || !base.contains(record.getUuid())) {
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Actualiza el nombre guardado si el jugador se cambió el nick.
+     */
+    @Override
+    public void updateName(PlayerRecord record, String playerName) {
+        if (record.getPlayerName().equals(playerName)) {
+            return;
+        }
+        record.setPlayerName(playerName);
+        if (residents.isSaved(record)) {
+            residents.markChanged(record);
+            writeQueue.enqueue(record.getUuid(), playerName, null);
+        }
+    }
+
+    /**
+     * Persiste un premio. El registro ya debe tener aplicados los valores nuevos.
+     * Solo lo dejo en la cola de escritura; llega al disco en el próximo flush.
+     */
+    @Override
+    public void recordAward(PlayerRecord record, PointEvent event) {
+        record.getHistory().add(event);
+        // Primer premio de este jugador: guardo su nombre antes del evento.
+        boolean firstAward = residents.markChanged(record);
+        writeQueue.enqueue(record.getUuid(), firstAward ? record.getPlayerName() : null, event);
+    }
+
+    /**
+     * En este almacenamiento, el mantenimiento es compactar cuando ya hay suficientes segmentos sellados.
+     */
+    @Override
+    public void runMaintenance() {
+        if (needsCompaction()) {
+            compactAsync();
+        }
+    }
+
+    public boolean needsCompaction() {
+        try {
+            return journal.sealedSegmentCount() >= COMPACTION_THRESHOLD;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Todos los eventos archivados de todos los jugadores, en orden. Lo uso para migrar a otro almacenamiento.
+     */
+    public void scanArchivedEvents(Consumer<PointEvent> consumer) throws IOException {
+        journal.replayArchive(historyFolder, new PointsJournal.Replay() {
+            @Override
+            public void onEvent(PointEvent event) {
+                consumer.accept(event);
+            }
+
+            @Override
+            public void onName(UUID ignored, String playerName) {
+            }
+        });
+    }
+
+    /**
+     * Programa una compactación en el hilo de I/O, detrás de los premios que ya están en la cola.
+     */
+    public void compactAsync() {
+        writeQueue.submit(this::compact);
+    }
+
+    /**
+     * Sello el segmento activo y escribo una generación nueva del snapshot: la anterior con los jugadores que
+     * cambiaron encima. Luego archivo los segmentos cubiertos y saco de la memoria a los que ya nadie usa.
+     * Se puede llamar desde un hilo asíncrono: los eventos que lleguen mientras tanto van al segmento nuevo
+     * y, como son valores absolutos, reproducirlos sobre este snapshot da el mismo resultado.
+     */
+    private void compact() {
+        synchronized (compactionLock) {
+            try {
+                long coveredSegmentId = journal.roll();
+                List<PlayerRecord> copies = new ArrayList<>();
+                for (PlayerRecord record : residents.beginFlush()) {
+                    copies.add(record.copy());
+                }
+                copies.sort(Comparator.comparing(PlayerRecord::getUuid));
+
+                File target = new File(storageFolder, SNAPSHOT_PREFIX + (snapshotGeneration + 1) + DAT_SUFFIX);
+                PointsSnapshot previous = snapshot;
+                PointsSnapshot.write(target, coveredSegmentId, previous, copies);
+                snapshotGeneration++;
+                snapshot = PointsSnapshot.open(target);
+                // Ya están en el snapshot: los que nadie tiene pedidos salen de la memoria.
+                residents.endFlush();
+
+                // El snapshot que acabo de reemplazar pasó a ser el respaldo. Sin anterior, el respaldo es el historial completo.
+                backupCoveredSegmentId = (previous != null) ? previous.getCoveredSegmentId() : 0;
+                if (previous != null) {
+                    retire(previous.getFile());
+                }
+                retireLegacySnapshot();
+                journal.archiveSegmentsUpTo(coveredSegmentId, historyFolder);
+                pruneHistory();
+            } catch (IOException e) {
+                // Los cambios siguen en memoria y entran en la siguiente compactación.
+                logger.log(Level.SEVERE, "No pude compactar el journal de puntos.", e);
+            }
+        }
+    }
+
+    /**
+     * Vacío la cola de escritura, compacto todo y cierro el journal. Solo para onDisable.
+     * Después de esto, todos los eventos están en la carpeta de historial.
+     */
+    @Override
+    public void close() {
+        writeQueue.shutdown(() -> {
+            compact();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "No pude cerrar el journal de puntos.", e);
+            }
+        });
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private PlayerRecord readFromSnapshot(UUID uuid) {
+        PointsSnapshot current = snapshot;
+        return (current != null) ? current.get(uuid) : null;
+    }
+
+    /**
+     * Mapeo la generación más nueva que abra bien (con su CRC) y me quedo también con la siguiente sana como respaldo.
+     * Solo borro las demás si encontré las dos: si nada abre, no borro nada, para poder revisarlas a mano,
+     * y reconstruyo los puntos con todo el historial.
+     */
+    private void openLatestSnapshot() {
+        File[] files = listGenerations();
+        if (files.length == 0) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(JournalPointsStore::parseGeneration).reversed());
+        snapshotGeneration = parseGeneration(files[0]);
+        File backup = null;
+        for (File file : files) {
+            try {
+                PointsSnapshot candidate = PointsSnapshot.open(file);
+                if (snapshot == null) {
+                    snapshot = candidate;
+                } else {
+                    backup = file;
+                    backupCoveredSegmentId = candidate.getCoveredSegmentId();
+                    break;
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "No pude abrir " + file.getName() + "; pruebo con la generación anterior.", e);
+            }
+        }
+        if (snapshot == null) {
+            logger.severe("Ninguna generación del snapshot de puntos está sana. No borro ninguna;"
+                    + " reconstruyo los puntos con todo el historial.");
+            return;
+        }
+        if (backup == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.equals(snapshot.getFile()) && !file.equals(backup)) {
+                file.delete();
+            }
+        }
+        retiredSnapshot = backup;
+    }
+
+    /**
+     * La generación que acabo de reemplazar se queda de respaldo; borro la que era respaldo hasta ahora.
+     * Si el sistema no me deja (en Windows un archivo mapeado no se puede borrar), se borra en el próximo arranque.
+     */
+    private void retire(File previous) {
+        File older = retiredSnapshot;
+        retiredSnapshot = previous;
+        if (older != null && older.exists() && !older.delete()) {
+            logger.warning("No pude borrar " + older.getName() + "; se borrará en el próximo arranque.");
+        }
+    }
+
+    // Ya convertí el snapshot del formato anterior: lo guardo aparte (con su .bak) para que no se vuelva a leer.
+    private void retireLegacySnapshot() {
+        File backup = new File(storageFolder, legacySnapshotFile.getName() + ".bak");
+        for (File file : new File[]{legacySnapshotFile, backup}) {
+            if (file.exists() && !file.renameTo(new File(storageFolder, "legacy-" + file.getName()))) {
+                logger.warning("No pude renombrar " + file.getName() + "; se ignorará mientras exista el snapshot mapeado.");
+            }
+        }
+    }
+
+    private File[] listGenerations() {
+        File[] files = storageFolder.listFiles((dir, name) -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(DAT_SUFFIX));
+        return (files != null) ? files : new File[0];
+    }
+
+    private static long parseGeneration(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - DAT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Borro del historial los segmentos vencidos. Nunca toco los que hacen falta para recuperarme
+     * desde el snapshot de respaldo.
+     */
+    private void pruneHistory() {
+        if (historyRetentionMillis == 0 || backupCoveredSegmentId < 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - historyRetentionMillis;
+        int deleted = journal.pruneArchive(historyFolder, backupCoveredSegmentId, cutoff);
+        if (deleted > 0) {
+            logger.info("Borré " + deleted + " segmentos del historial de puntos con más de "
+                    + (historyRetentionMillis / MILLIS_PER_DAY) + " días.");
+        }
+    }
+
+    private void applyEvent(PointEvent event) {
+        PlayerRecord record = residents.resident(event.uuid(), event.uuid().toString());
+        residents.markChanged(record);
+        record.setTotalPoints(event.newTotal());
+        record.getHistory().addIfAbsent(event);
+        if (event.kind() == PointEvent.Kind.REWARD) {
+            return;
+        }
+
+        PlayerRecord.MinigameStats stats = record.stats(event.minigameId());
+        if (stats == null) {
+            return;
+        }
+        if (event.bestValue() != -1) {
+            if (event.kind() == PointEvent.Kind.COMPLETION) {
+                stats.bestTime = event.bestValue();
+            } else {
+                stats.bestScore = event.bestValue();
+            }
+        }
+        stats.improvementCount = event.improvementCount();
+    }
+
+    /**
+     * Migración de una sola vez desde playerdata/<uuid>.yml.
+     * Dejo la carpeta antigua renombrada para conservar el historial en texto.
+     */
+    private void importLegacyPlayerFiles() throws IOException {
+        File[] files = legacyFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        logger.info("Importando " + files.length + " archivos de playerdata al nuevo almacenamiento...");
+        int imported = 0;
+        for (File file : files) {
+            try {
+                UUID uuid = UUID.fromString(file.getName().substring(0, file.getName().length() - 4));
+                FileConfiguration config = YamlConfiguration.loadConfiguration(file);
+                PlayerRecord record = new PlayerRecord(uuid, config.getString("player-name", uuid.toString()), config.getInt("total-points", 0));
+
+                ConfigurationSection minigames = config.getConfigurationSection("minigames");
+                if (minigames != null) {
+                    for (String minigameId : minigames.getKeys(false)) {
+                        PlayerRecord.MinigameStats stats = record.stats(minigameId);
+                        if (stats == null) {
+                            logger.warning("Ignoro las marcas del minijuego desconocido '" + minigameId + "' en " + file.getName());
+                            continue;
+                        }
+                        stats.bestTime = minigames.getInt(minigameId + ".best-time", -1);
+                        stats.bestScore = minigames.getInt(minigameId + ".best-score", -1);
+                        stats.improvementCount = minigames.getInt(minigameId + ".improvement-count", 0);
+                    }
+                }
+                residents.markChanged(record);
+                imported++;
+            } catch (IllegalArgumentException e) {
+                logger.warning("Ignoro un archivo de playerdata con nombre inválido: " + file.getName());
+            }
+        }
+
+        compact();
+        File migratedFolder = new File(legacyFolder.getParentFile(), "playerdata-legacy");
+        if (!legacyFolder.renameTo(migratedFolder)) {
+            logger.warning("No pude renombrar la carpeta playerdata; se ignorará en los próximos arranques igualmente.");
+        }
+        logger.info("Importación completada: " + imported + " jugadores.");
+    }
+}
@@ -0,0 +1,107 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import com.TNTStudios.deWaltCore.points.Minigame;
+
+import java.util.UUID;
+
+/**
+ * El estado compactado de un jugador: lo que antes vivía en playerdata/<uuid>.yml.
+ * Solo guardo valores absolutos, así reproducir el journal siempre deja el mismo resultado
+ * aunque un evento se aplique dos veces sobre un snapshot.
+ */
+public final class PlayerRecord {
+
+    /**
+     * Mis mejores marcas en un minijuego. -1 significa "nunca lo ha jugado".
+     */
+    public static final class MinigameStats {
+        public int bestTime = -1;
+        public int bestScore = -1;
+        public int improvementCount = 0;
+
+        /**
+         * @return true si nunca lo ha jugado; así no lo guardo en disco.
+         */
+        public boolean isEmpty() {
+            return bestTime == -1 && bestScore == -1 && improvementCount == 0;
+        }
+
+        MinigameStats copy() {
+            MinigameStats copy = new MinigameStats();
+            copy.bestTime = bestTime;
+            copy.bestScore = bestScore;
+            copy.improvementCount = improvementCount;
+            return copy;
+        }
+    }
+
+    private final UUID uuid;
+    private volatile String playerName;
+    private volatile int totalPoints;
+    // Un struct por minijuego, indexado por el ordinal de Minigame. Lo lleno en el constructor
+    // (son pocos) para que el arreglo nunca cambie y se pueda leer desde otro hilo sin sincronizar.
+    private final MinigameStats[] minigames = new MinigameStats[Minigame.values().length];
+    // Los últimos eventos del jugador; lo anterior vive en los archivos de historial.
+    private PointHistory history = new PointHistory();
+
+    public PlayerRecord(UUID uuid, String playerName, int totalPoints) {
+        this.uuid = uuid;
+        this.playerName = playerName;
+        this.totalPoints = totalPoints;
+        for (int i = 0; i < minigames.length; i++) {
+            minigames[i] = new MinigameStats();
+        }
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    public void setTotalPoints(int totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+
+    /**
+     * Devuelve las marcas del minijuego. Es indexar un arreglo, pensado para el camino caliente.
+     */
+    public MinigameStats stats(Minigame minigame) {
+        return minigames[minigame.ordinal()];
+    }
+
+    /**
+     * Solo para cargar desde disco, donde el minijuego viene como texto.
+     * @return Las marcas, o null si el id no es de ningún minijuego conocido.
+     */
+    public MinigameStats stats(String minigameId) {
+        Minigame minigame = Minigame.fromId(minigameId);
+        return (minigame != null) ? stats(minigame) : null;
+    }
+
+    public PointHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Una copia independiente para escribir el snapshot sin bloquear a nadie.
+     */
+    public PlayerRecord copy() {
+        PlayerRecord copy = new PlayerRecord(uuid, playerName, totalPoints);
+        for (int i = 0; i < minigames.length; i++) {
+            copy.minigames[i] = minigames[i].copy();
+        }
+        copy.history = history.copy();
+        return copy;
+    }
+}
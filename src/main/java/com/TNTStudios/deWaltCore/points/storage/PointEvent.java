@@ -0,0 +1,22 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.util.UUID;
+
+/**
+ * Un evento de puntos tal cual lo escribo en el journal.
+ * Todos los campos son absolutos (total nuevo, mejor marca nueva) para que la reproducción sea idempotente.
+ *
+ * @param bestValue La nueva mejor marca tras el evento, o -1 si no cambió.
+ */
+public record PointEvent(UUID uuid, long epochMillis, Kind kind, String minigameId, String reason,
+                         int scoreValue, int pointsAwarded, int newTotal, int bestValue, int improvementCount) {
+
+    /**
+     * De dónde salen los puntos. El orden importa: se guarda como ordinal en disco.
+     */
+    public enum Kind {
+        COMPLETION, // Minijuego por tiempo, menor es mejor.
+        SCORE,      // Minijuego por puntuación, mayor es mejor.
+        REWARD      // Puntos directos (ranking final de una ronda).
+    }
+}
@@ -0,0 +1,65 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * El historial reciente de un jugador: un anillo de tamaño fijo con sus últimos eventos.
+ * Añadir un evento es O(1) sin importar cuánto tiempo lleve jugando; lo más antiguo
+ * se queda en los archivos de historial en disco.
+ */
+public final class PointHistory {
+
+    public static final int CAPACITY = 32;
+
+    private final PointEvent[] ring = new PointEvent[CAPACITY];
+    private int next = 0;
+    private int size = 0;
+
+    public synchronized void add(PointEvent event) {
+        ring[next] = event;
+        next = (next + 1) % CAPACITY;
+        if (size < CAPACITY) {
+            size++;
+        }
+    }
+
+    /**
+     * Igual que {@link #add}, pero ignora el evento si ya está en el anillo.
+     * Lo uso al reproducir el journal, porque el snapshot puede incluir eventos del primer segmento posterior.
+     */
+    public synchronized void addIfAbsent(PointEvent event) {
+        for (int i = 0; i < size; i++) {
+            if (event.equals(ring[i])) {
+                return;
+            }
+        }
+        add(event);
+    }
+
+    /**
+     * @return Los eventos en memoria, del más reciente al más antiguo.
+     */
+    public synchronized List<PointEvent> recent() {
+        List<PointEvent> events = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            events.add(ring[(next - i + CAPACITY) % CAPACITY]);
+        }
+        return events;
+    }
+
+    /**
+     * @return Cuándo fue el último evento (epoch millis), o 0 si no hay ninguno en memoria.
+     */
+    public synchronized long lastEventMillis() {
+        return (size == 0) ? 0 : ring[(next - 1 + CAPACITY) % CAPACITY].epochMillis();
+    }
+
+    synchronized PointHistory copy() {
+        PointHistory copy = new PointHistory();
+        System.arraycopy(ring, 0, copy.ring, 0, CAPACITY);
+        copy.next = next;
+        copy.size = size;
+        return copy;
+    }
+}
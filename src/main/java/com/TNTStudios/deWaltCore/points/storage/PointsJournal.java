@@ -0,0 +1,512 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Mi journal binario de solo-anexar para los eventos de puntos.
+ * Cada premio es un registro de tamaño fijo (EVENT_SIZE bytes) escrito al final del segmento activo,
+ * así que otorgar puntos cuesta una escritura secuencial pequeña en lugar de reescribir un YAML completo.
+ * <p>
+ * Los ids de minijuego y las razones se guardan como códigos cortos. Cada segmento empieza con el
+ * diccionario completo, así un segmento se puede reproducir sin depender de los que ya se compactaron.
+ */
+public class PointsJournal implements Closeable {
+
+    /**
+     * Lo que necesito del que reproduce el journal al arrancar.
+     */
+    public interface Replay {
+        void onEvent(PointEvent event);
+
+        void onName(UUID uuid, String playerName);
+    }
+
+    private static final int SEGMENT_MAGIC = 0x44574A31; // "DWJ1"
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dwj";
+
+    private static final byte TYPE_EVENT = 1;
+    private static final byte TYPE_DEFINE = 2;
+    private static final byte TYPE_NAME = 3;
+
+    // tipo(1) + kind(1) + minijuego(2) + razón(2) + relleno(2) + uuid(16) + fecha(8) + 5 enteros(20) + crc(4)
+    static final int EVENT_SIZE = 56;
+    private static final int HEADER_SIZE = 12;
+    // Acumulo los registros aquí y los mando al disco en una sola escritura por flush.
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final File directory;
+    private final Logger logger;
+    private final long maxSegmentBytes;
+
+    // Mi diccionario de textos repetidos (ids de minijuego y razones).
+    private final Map<String, Short> codes = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+
+    // Reutilizo el buffer del evento: solo se toca dentro de métodos sincronizados.
+    private final ByteBuffer eventBuffer = ByteBuffer.allocate(EVENT_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+    private FileChannel activeChannel;
+    private long activeSegmentId = 0;
+
+    public PointsJournal(File directory, Logger logger, long maxSegmentBytes) {
+        this.directory = directory;
+        this.logger = logger;
+        this.maxSegmentBytes = maxSegmentBytes;
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+    }
+
+    /**
+     * Reproduce en orden todos los segmentos con id mayor a {@code afterSegmentId}.
+     * Si un segmento termina con un registro roto (apagón a mitad de escritura), lo ignoro desde ahí.
+     */
+    public synchronized void replay(long afterSegmentId, Replay replay) throws IOException {
+        for (long segmentId : listSegmentIds()) {
+            if (segmentId <= afterSegmentId) {
+                continue;
+            }
+            replaySegment(segmentFile(segmentId), segmentId, replay, true);
+        }
+    }
+
+    /**
+     * Recorre los segmentos archivados de una carpeta de historial, del más antiguo al más reciente.
+     * No toca el diccionario activo (cada segmento trae el suyo), así que no bloquea las escrituras.
+     * Es lectura de disco: nunca en el hilo principal.
+     */
+    public void replayArchive(File archiveDirectory, Replay replay) throws IOException {
+        replayArchive(archiveDirectory, 0, replay);
+    }
+
+    /**
+     * Igual que {@link #replayArchive(File, Replay)}, pero solo los segmentos con id mayor a {@code afterSegmentId}.
+     */
+    public void replayArchive(File archiveDirectory, long afterSegmentId, Replay replay) throws IOException {
+        for (long segmentId : listSegmentIds(archiveDirectory)) {
+            if (segmentId > afterSegmentId) {
+                replaySegment(segmentFile(archiveDirectory, segmentId), segmentId, replay, false);
+            }
+        }
+    }
+
+    private void replaySegment(File file, long segmentId, Replay replay, boolean learnDictionary) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            try {
+                if (in.readInt() != SEGMENT_MAGIC || in.readLong() != segmentId) {
+                    logger.warning("El segmento del journal " + file.getName() + " tiene una cabecera inválida, lo ignoro.");
+                    return;
+                }
+            } catch (EOFException e) {
+                // Se creó pero nunca se llegó a escribir: no hay nada que reproducir.
+                return;
+            }
+
+            // CRC local: así la lectura del archivo no comparte estado con las escrituras.
+            CRC32 checksum = new CRC32();
+            List<String> segmentDictionary = new ArrayList<>();
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    return;
+                }
+                try {
+                    switch (type) {
+                        case TYPE_EVENT -> replay.onEvent(readEvent(in, checksum, segmentDictionary));
+                        case TYPE_DEFINE -> readDefine(in, checksum, segmentDictionary, learnDictionary);
+                        case TYPE_NAME -> readName(in, checksum, replay);
+                        default -> throw new IOException("tipo de registro desconocido " + type);
+                    }
+                } catch (EOFException | CorruptRecordException e) {
+                    logger.warning("El segmento " + file.getName() + " termina con un registro incompleto o dañado. Lo ignoro desde ahí.");
+                    return;
+                }
+            }
+        }
+    }
+
+    private PointEvent readEvent(DataInputStream in, CRC32 checksum, List<String> segmentDictionary) throws IOException {
+        byte[] raw = new byte[EVENT_SIZE];
+        raw[0] = TYPE_EVENT;
+        in.readFully(raw, 1, EVENT_SIZE - 1);
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        checksum.reset();
+        checksum.update(raw, 0, EVENT_SIZE - 4);
+        if ((int) checksum.getValue() != buffer.getInt(EVENT_SIZE - 4)) {
+            throw new CorruptRecordException();
+        }
+
+        buffer.position(1);
+        byte kindOrdinal = buffer.get();
+        if (kindOrdinal < 0 || kindOrdinal >= PointEvent.Kind.values().length) {
+            throw new CorruptRecordException();
+        }
+        PointEvent.Kind kind = PointEvent.Kind.values()[kindOrdinal];
+        String minigameId = lookup(segmentDictionary, buffer.getShort());
+        String reason = lookup(segmentDictionary, buffer.getShort());
+        buffer.getShort(); // relleno
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        long epochMillis = buffer.getLong();
+        return new PointEvent(uuid, epochMillis, kind, minigameId, reason,
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    private void readDefine(DataInputStream in, CRC32 checksum, List<String> segmentDictionary, boolean learnDictionary) throws IOException {
+        short code = in.readShort();
+        byte[] text = new byte[in.readUnsignedShort()];
+        in.readFully(text);
+        int storedCrc = in.readInt();
+
+        checksum.reset();
+        checksum.update(TYPE_DEFINE);
+        checksum.update(code >> 8);
+        checksum.update(code);
+        checksum.update(text);
+        if ((int) checksum.getValue() != storedCrc) {
+            throw new CorruptRecordException();
+        }
+
+        String value = new String(text, StandardCharsets.UTF_8);
+        while (segmentDictionary.size() <= code) {
+            segmentDictionary.add(null);
+        }
+        segmentDictionary.set(code, value);
+        // El diccionario en memoria siempre conserva los mismos códigos entre segmentos.
+        if (learnDictionary && !codes.containsKey(value)) {
+            while (dictionary.size() <= code) {
+                dictionary.add(null);
+            }
+            dictionary.set(code, value);
+            codes.put(value, code);
+        }
+    }
+
+    private void readName(DataInputStream in, CRC32 checksum, Replay replay) throws IOException {
+        long msb = in.readLong();
+        long lsb = in.readLong();
+        byte[] text = new byte[in.readUnsignedShort()];
+        in.readFully(text);
+        int storedCrc = in.readInt();
+
+        checksum.reset();
+        checksum.update(TYPE_NAME);
+        checksum.update(longBytes(msb, lsb));
+        checksum.update(text);
+        if ((int) checksum.getValue() != storedCrc) {
+            throw new CorruptRecordException();
+        }
+        replay.onName(new UUID(msb, lsb), new String(text, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Abre el primer segmento de esta sesión. Siempre empiezo uno nuevo al arrancar,
+     * así nunca escribo detrás de un registro que quedó a medias. El id siempre queda por encima
+     * de lo que ya cubre el snapshot y de todo lo archivado en {@code archiveDirectory}: si arranqué desde
+     * la generación anterior del snapshot, un id repetido pisaría un segmento del historial al archivarlo.
+     */
+    public synchronized void openAfter(long coveredSegmentId, File archiveDirectory) throws IOException {
+        List<Long> archived = listSegmentIds(archiveDirectory);
+        long lastArchived = archived.isEmpty() ? 0 : archived.get(archived.size() - 1);
+        activeSegmentId = Math.max(activeSegmentId, Math.max(coveredSegmentId, lastArchived));
+        openNewSegment();
+    }
+
+    private void openNewSegment() throws IOException {
+        List<Long> existing = listSegmentIds();
+        long nextId = Math.max(activeSegmentId, existing.isEmpty() ? 0 : existing.get(existing.size() - 1)) + 1;
+        if (activeChannel != null) {
+            flushBuffer();
+            activeChannel.close();
+        }
+
+        activeSegmentId = nextId;
+        activeChannel = FileChannel.open(segmentFile(nextId).toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC).putLong(nextId).flip();
+        writeFully(header);
+        for (short code = 0; code < dictionary.size(); code++) {
+            if (dictionary.get(code) != null) {
+                writeDefine(code, dictionary.get(code));
+            }
+        }
+    }
+
+    /**
+     * Anexa un evento de puntos. Queda en el buffer hasta el próximo {@link #flush()}.
+     */
+    public synchronized void append(PointEvent event) throws IOException {
+        ensureOpen();
+        short minigameCode = codeFor(event.minigameId());
+        short reasonCode = codeFor(event.reason());
+
+        eventBuffer.clear();
+        eventBuffer.put(TYPE_EVENT)
+                .put((byte) event.kind().ordinal())
+                .putShort(minigameCode)
+                .putShort(reasonCode)
+                .putShort((short) 0)
+                .putLong(event.uuid().getMostSignificantBits())
+                .putLong(event.uuid().getLeastSignificantBits())
+                .putLong(event.epochMillis())
+                .putInt(event.scoreValue())
+                .putInt(event.pointsAwarded())
+                .putInt(event.newTotal())
+                .putInt(event.bestValue())
+                .putInt(event.improvementCount());
+
+        crc.reset();
+        crc.update(eventBuffer.array(), 0, EVENT_SIZE - 4);
+        eventBuffer.putInt((int) crc.getValue());
+        eventBuffer.flip();
+        writeFully(eventBuffer);
+        rollIfFull();
+    }
+
+    /**
+     * Anexa el nombre actual de un jugador (primer premio o cambio de nick).
+     */
+    public synchronized void appendName(UUID uuid, String playerName) throws IOException {
+        ensureOpen();
+        byte[] text = playerName.getBytes(StandardCharsets.UTF_8);
+        byte[] uuidBytes = longBytes(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        crc.reset();
+        crc.update(TYPE_NAME);
+        crc.update(uuidBytes);
+        crc.update(text);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 16 + 2 + text.length + 4);
+        buffer.put(TYPE_NAME).put(uuidBytes).putShort((short) text.length).put(text).putInt((int) crc.getValue()).flip();
+        writeFully(buffer);
+        rollIfFull();
+    }
+
+    /**
+     * Manda al disco todo lo que está acumulado en el buffer. Lo llama la cola de escritura una vez por intervalo.
+     */
+    public synchronized void flush() throws IOException {
+        if (activeChannel != null) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Tira lo que está en el buffer y suelta el segmento activo, que puede haber quedado con un registro a medias.
+     * Lo llama la cola de escritura cuando un flush falla: ella vuelve a mandar esos eventos, y el próximo
+     * {@link #append} abre un segmento nuevo (con el diccionario completo) en lugar de escribir detrás del registro roto.
+     */
+    public synchronized void discardUnflushed() {
+        writeBuffer.clear();
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                logger.warning("No pude cerrar el segmento " + activeSegmentId + " tras un error de escritura.");
+            }
+            activeChannel = null;
+        }
+    }
+
+    /**
+     * Sella el segmento activo y abre uno nuevo.
+     * @return El id del último segmento sellado; todo lo que está hasta ahí puede ir al snapshot.
+     */
+    public synchronized long roll() throws IOException {
+        ensureOpen();
+        long sealedId = activeSegmentId;
+        flushBuffer();
+        activeChannel.force(false);
+        openNewSegment();
+        return sealedId;
+    }
+
+    /**
+     * Cuántos segmentos sellados hay esperando compactación.
+     */
+    public synchronized int sealedSegmentCount() throws IOException {
+        int count = 0;
+        for (long id : listSegmentIds()) {
+            if (id != activeSegmentId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mueve a la carpeta de historial los segmentos que ya quedaron cubiertos por un snapshot.
+     * Es un simple renombrado: el formato del archivo ya es el registro compacto que quiero conservar.
+     */
+    public synchronized void archiveSegmentsUpTo(long segmentId, File archiveDirectory) throws IOException {
+        if (!archiveDirectory.exists()) {
+            archiveDirectory.mkdirs();
+        }
+        for (long id : listSegmentIds()) {
+            if (id <= segmentId && id != activeSegmentId) {
+                File file = segmentFile(id);
+                if (!file.renameTo(segmentFile(archiveDirectory, id))) {
+                    logger.warning("No pude archivar el segmento compactado " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Borra de la carpeta de historial los segmentos con id hasta {@code upToSegmentId}
+     * cuya última escritura es anterior a {@code olderThanMillis}.
+     *
+     * @return Cuántos borré.
+     */
+    public int pruneArchive(File archiveDirectory, long upToSegmentId, long olderThanMillis) {
+        int deleted = 0;
+        for (long id : listSegmentIds(archiveDirectory)) {
+            if (id > upToSegmentId) {
+                break;
+            }
+            File file = segmentFile(archiveDirectory, id);
+            if (file.lastModified() < olderThanMillis) {
+                if (file.delete()) {
+                    deleted++;
+                } else {
+                    logger.warning("No pude borrar el segmento vencido del historial " + file.getName());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            flushBuffer();
+            activeChannel.force(true);
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private short codeFor(String value) throws IOException {
+        Short code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (dictionary.size() >= Short.MAX_VALUE) {
+            throw new IOException("El diccionario del journal está lleno.");
+        }
+        short newCode = (short) dictionary.size();
+        dictionary.add(value);
+        codes.put(value, newCode);
+        writeDefine(newCode, value);
+        return newCode;
+    }
+
+    private void writeDefine(short code, String value) throws IOException {
+        byte[] text = value.getBytes(StandardCharsets.UTF_8);
+        crc.reset();
+        crc.update(TYPE_DEFINE);
+        crc.update(code >> 8);
+        crc.update(code);
+        crc.update(text);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + 2 + text.length + 4);
+        buffer.put(TYPE_DEFINE).putShort(code).putShort((short) text.length).put(text).putInt((int) crc.getValue()).flip();
+        writeFully(buffer);
+    }
+
+    private void rollIfFull() throws IOException {
+        if (activeChannel.position() + writeBuffer.position() >= maxSegmentBytes) {
+            flushBuffer();
+            activeChannel.force(false);
+            openNewSegment();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (activeChannel == null) {
+            openNewSegment();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() > writeBuffer.remaining()) {
+            flushBuffer();
+        }
+        if (buffer.remaining() > writeBuffer.remaining()) {
+            // Un registro más grande que el buffer (nombre enorme): lo escribo directo.
+            while (buffer.hasRemaining()) {
+                activeChannel.write(buffer);
+            }
+            return;
+        }
+        writeBuffer.put(buffer);
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            activeChannel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private static String lookup(List<String> segmentDictionary, short code) throws CorruptRecordException {
+        if (code < 0 || code >= segmentDictionary.size() || segmentDictionary.get(code) == null) {
+            throw new CorruptRecordException();
+        }
+        return segmentDictionary.get(code);
+    }
+
+    private static byte[] longBytes(long msb, long lsb) {
+        return ByteBuffer.allocate(16).putLong(msb).putLong(lsb).array();
+    }
+
+    private List<Long> listSegmentIds() {
+        return listSegmentIds(directory);
+    }
+
+    private List<Long> listSegmentIds(File folder) {
+        List<Long> ids = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return ids;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            } catch (NumberFormatException e) {
+                logger.warning("Ignoro un archivo con nombre inesperado en el journal: " + name);
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private File segmentFile(long segmentId) {
+        return segmentFile(directory, segmentId);
+    }
+
+    private static File segmentFile(File folder, long segmentId) {
+        return new File(folder, String.format("%s%08d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private static class CorruptRecordException extends IOException {
+        CorruptRecordException() {
+            super("registro del journal dañado");
+        }
+    }
+}
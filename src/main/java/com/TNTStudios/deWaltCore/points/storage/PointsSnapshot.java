@@ -0,0 +1,419 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+import com.TNTStudios.deWaltCore.points.Minigame;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * El snapshot compactado del journal: el estado de todos los jugadores hasta cierto segmento.
+ * Desde la versión 3 es un archivo ordenado por UUID que se mapea en memoria (points/snapshot-&lt;gen&gt;.dat):
+ * abrirlo no carga a nadie, y el registro de un jugador se decodifica solo cuando se pide, con búsqueda binaria.
+ * <p>
+ * Formato (big-endian):
+ * <pre>
+ * registros: [cantidad] × registro                                 en orden de UUID
+ * índice:    [cantidad] × (uuid msb, uuid lsb, posición del registro int)
+ * pie:       segmento cubierto (long), cantidad (int), inicio del índice (int), versión (int), magic (int)
+ * cola:      CRC32 de todo lo anterior (int)
+ *
+ * registro:  uuid msb, uuid lsb, nombre, total (int),
+ *            minijuegos (ushort) × (id, mejor tiempo, mejor puntuación, mejoras),
+ *            historial (ubyte) × (epoch millis long, tipo ubyte, minijuego, razón, score, puntos, total, mejor marca, mejoras)
+ * texto:     largo (ushort), bytes UTF-8
+ * </pre>
+ * El pie va al final porque el archivo se escribe de corrido, mezclando el snapshot anterior con los cambios.
+ * Igual que {@code SortedScoreFile}, nunca se modifica y solo uso lecturas absolutas, así que varios hilos leen sin locks.
+ * <p>
+ * Las versiones 1 y 2 (points/snapshot.dat, escrito con {@link SafeFiles}) se leen completas una sola vez con
+ * {@link #readLegacy} para convertirlas.
+ */
+public final class PointsSnapshot {
+
+    private static final int SNAPSHOT_MAGIC = 0x44575053; // "DWPS"
+    // Versión 2: añade el historial reciente de cada jugador.
+    // Versión 3: ordenado por UUID, con índice, y se mapea en lugar de leerse completo.
+    private static final int FORMAT_VERSION = 3;
+    private static final int LEGACY_VERSION = 2;
+    private static final int FOOTER_BYTES = 24;
+    private static final int TRAILER_BYTES = 4;
+    private static final int INDEX_ENTRY_BYTES = 20;
+
+    /**
+     * Lo que traía un snapshot de las versiones 1 y 2.
+     * @param coveredSegmentId El último segmento del journal cuyo contenido ya está incluido.
+     */
+    public record Contents(long coveredSegmentId, List<PlayerRecord> records) {
+    }
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final long coveredSegmentId;
+    private final int count;
+    private final int indexOffset;
+
+    private PointsSnapshot(File file, MappedByteBuffer buffer, long coveredSegmentId, int count, int indexOffset) {
+        this.file = file;
+        this.buffer = buffer;
+        this.coveredSegmentId = coveredSegmentId;
+        this.count = count;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * Mapea el archivo, valida el pie y comprueba el CRC. El CRC es lo único que recorre el archivo;
+     * no decodifico a ningún jugador.
+     */
+    public static PointsSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("El archivo " + file.getName() + " no tiene un tamaño válido.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyEnd = (int) size - TRAILER_BYTES;
+            int footer = bodyEnd - FOOTER_BYTES;
+            if (buffer.getInt(footer + 20) != SNAPSHOT_MAGIC || buffer.getInt(footer + 16) != FORMAT_VERSION) {
+                throw new IOException("El archivo " + file.getName() + " no es un snapshot de puntos.");
+            }
+            long coveredSegmentId = buffer.getLong(footer);
+            int count = buffer.getInt(footer + 8);
+            int indexOffset = buffer.getInt(footer + 12);
+            if (count < 0 || indexOffset < 0 || indexOffset + (long) count * INDEX_ENTRY_BYTES != footer) {
+                throw new IOException("El archivo " + file.getName() + " está incompleto.");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, bodyEnd));
+            if (buffer.getInt(bodyEnd) != (int) crc.getValue()) {
+                throw new IOException("El archivo " + file.getName() + " está dañado (el CRC no coincide).");
+            }
+            return new PointsSnapshot(file, buffer, coveredSegmentId, count, indexOffset);
+        }
+    }
+
+    /**
+     * Escribe un snapshot nuevo: el de {@code base} (puede ser null) con {@code changed} encima.
+     * {@code changed} deben ser copias que nadie más toca, ordenadas por UUID. Los jugadores que no cambiaron
+     * se copian byte a byte del archivo anterior, sin decodificarlos.
+     * Lo escribo aparte, lo sincronizo y solo entonces lo pongo en su sitio; quien lo escribe lo abre después
+     * con {@link #open(File)}, que verifica el CRC, antes de retirar la generación anterior.
+     */
+    public static void write(File target, long coveredSegmentId, PointsSnapshot base, List<PlayerRecord> changed) throws IOException {
+        int baseCount = (base != null) ? base.count : 0;
+        int capacity = baseCount + changed.size();
+        long[] mostSignificant = new long[capacity];
+        long[] leastSignificant = new long[capacity];
+        int[] offsets = new int[capacity];
+        int written = 0;
+
+        File tempFile = new File(target.getAbsoluteFile().getParentFile(), target.getName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc))) {
+            int baseIndex = 0;
+            int changedIndex = 0;
+            while (baseIndex < baseCount || changedIndex < changed.size()) {
+                int order;
+                if (baseIndex == baseCount) {
+                    order = 1;
+                } else if (changedIndex == changed.size()) {
+                    order = -1;
+                } else {
+                    order = base.uuidAt(baseIndex).compareTo(changed.get(changedIndex).getUuid());
+                }
+
+                ensureAddressable(out);
+                offsets[written] = out.size();
+                if (order < 0) {
+                    // No cambió: copio sus bytes tal cual.
+                    UUID uuid = base.uuidAt(baseIndex);
+                    mostSignificant[written] = uuid.getMostSignificantBits();
+                    leastSignificant[written] = uuid.getLeastSignificantBits();
+                    int start = base.recordOffset(baseIndex);
+                    int end = (baseIndex + 1 < baseCount) ? base.recordOffset(baseIndex + 1) : base.indexOffset;
+                    byte[] bytes = new byte[end - start];
+                    base.buffer.get(start, bytes);
+                    out.write(bytes);
+                    baseIndex++;
+                } else {
+                    PlayerRecord record = changed.get(changedIndex++);
+                    mostSignificant[written] = record.getUuid().getMostSignificantBits();
+                    leastSignificant[written] = record.getUuid().getLeastSignificantBits();
+                    writeRecord(out, record);
+                    if (order == 0) {
+                        baseIndex++; // La versión nueva reemplaza a la del archivo anterior.
+                    }
+                }
+                written++;
+            }
+
+            ensureAddressable(out);
+            int indexOffset = out.size();
+            for (int i = 0; i < written; i++) {
+                out.writeLong(mostSignificant[i]);
+                out.writeLong(leastSignificant[i]);
+                out.writeInt(offsets[i]);
+            }
+            out.writeLong(coveredSegmentId);
+            out.writeInt(written);
+            out.writeInt(indexOffset);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        SafeFiles.moveIntoPlace(tempFile, target);
+    }
+
+    /**
+     * Lee un snapshot de las versiones 1 y 2 completo. Solo para convertirlo al formato mapeado.
+     * @return El contenido, o null si no existe o ninguna de sus generaciones está sana.
+     */
+    public static Contents readLegacy(File file, Logger logger) throws IOException {
+        byte[] payload = SafeFiles.read(file, logger);
+        if (payload == null) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("El archivo " + file.getName() + " no es un snapshot de puntos.");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > LEGACY_VERSION) {
+                throw new IOException("Versión de snapshot no soportada: " + version);
+            }
+
+            long coveredSegmentId = in.readLong();
+            int count = in.readInt();
+            List<PlayerRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                PlayerRecord record = new PlayerRecord(uuid, in.readUTF(), in.readInt());
+                int minigameCount = in.readUnsignedShort();
+                for (int j = 0; j < minigameCount; j++) {
+                    // Si el minijuego ya no existe, leo sus marcas igual para no desalinear el archivo.
+                    PlayerRecord.MinigameStats stats = record.stats(in.readUTF());
+                    if (stats == null) {
+                        stats = new PlayerRecord.MinigameStats();
+                    }
+                    stats.bestTime = in.readInt();
+                    stats.bestScore = in.readInt();
+                    stats.improvementCount = in.readInt();
+                }
+                if (version >= 2) {
+                    int historySize = in.readUnsignedByte();
+                    List<PointEvent> recent = new ArrayList<>(historySize);
+                    for (int j = 0; j < historySize; j++) {
+                        recent.add(new PointEvent(uuid, in.readLong(), PointEvent.Kind.values()[in.readUnsignedByte()],
+                                in.readUTF(), in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+                    }
+                    // Los guardé del más reciente al más antiguo; los reinserto en orden cronológico.
+                    for (int j = recent.size() - 1; j >= 0; j--) {
+                        record.getHistory().add(recent.get(j));
+                    }
+                }
+                records.add(record);
+            }
+            return new Contents(coveredSegmentId, records);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getCoveredSegmentId() {
+        return coveredSegmentId;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Búsqueda binaria sobre el índice: O(log n) y solo toca las páginas del índice y las del registro.
+     * @return Una copia recién decodificada del jugador, o null si no está en el snapshot.
+     */
+    public PlayerRecord get(UUID uuid) {
+        int position = indexOf(uuid);
+        return (position >= 0) ? decode(recordOffset(position)) : null;
+    }
+
+    public boolean contains(UUID uuid) {
+        return indexOf(uuid) >= 0;
+    }
+
+    /**
+     * Decodifica a todos los jugadores, uno a la vez y en orden de UUID. Recorre el archivo completo:
+     * nunca en el hilo principal.
+     */
+    public void forEach(Consumer<PlayerRecord> consumer) {
+        for (int i = 0; i < count; i++) {
+            consumer.accept(decode(recordOffset(i)));
+        }
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private int indexOf(UUID uuid) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = uuidAt(middle).compareTo(uuid);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private UUID uuidAt(int position) {
+        int entry = indexOffset + position * INDEX_ENTRY_BYTES;
+        return new UUID(buffer.getLong(entry), buffer.getLong(entry + 8));
+    }
+
+    private int recordOffset(int position) {
+        return buffer.getInt(indexOffset + position * INDEX_ENTRY_BYTES + 16);
+    }
+
+    private PlayerRecord decode(int offset) {
+        Cursor in = new Cursor(buffer, offset);
+        UUID uuid = new UUID(in.readLong(), in.readLong());
+        PlayerRecord record = new PlayerRecord(uuid, in.readString(), in.readInt());
+        int minigameCount = in.readUnsignedShort();
+        for (int i = 0; i < minigameCount; i++) {
+            PlayerRecord.MinigameStats stats = record.stats(in.readString());
+            if (stats == null) {
+                stats = new PlayerRecord.MinigameStats();
+            }
+            stats.bestTime = in.readInt();
+            stats.bestScore = in.readInt();
+            stats.improvementCount = in.readInt();
+        }
+        int historySize = in.readUnsignedByte();
+        PointEvent[] recent = new PointEvent[historySize];
+        for (int i = 0; i < historySize; i++) {
+            recent[i] = new PointEvent(uuid, in.readLong(), PointEvent.Kind.values()[in.readUnsignedByte()],
+                    in.readString(), in.readString(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+        for (int i = historySize - 1; i >= 0; i--) {
+            record.getHistory().add(recent[i]);
+        }
+        return record;
+    }
+
+    private static void writeRecord(DataOutputStream out, PlayerRecord record) throws IOException {
+        out.writeLong(record.getUuid().getMostSignificantBits());
+        out.writeLong(record.getUuid().getLeastSignificantBits());
+        writeString(out, record.getPlayerName());
+        out.writeInt(record.getTotalPoints());
+        // En disco el minijuego va por id de texto: así el orden del enum puede cambiar sin romper nada.
+        List<Minigame> played = new ArrayList<>();
+        for (Minigame minigame : Minigame.values()) {
+            if (!record.stats(minigame).isEmpty()) {
+                played.add(minigame);
+            }
+        }
+        out.writeShort(played.size());
+        for (Minigame minigame : played) {
+            PlayerRecord.MinigameStats stats = record.stats(minigame);
+            writeString(out, minigame.getId());
+            out.writeInt(stats.bestTime);
+            out.writeInt(stats.bestScore);
+            out.writeInt(stats.improvementCount);
+        }
+        List<PointEvent> recent = record.getHistory().recent();
+        out.writeByte(recent.size());
+        for (PointEvent event : recent) {
+            out.writeLong(event.epochMillis());
+            out.writeByte(event.kind().ordinal());
+            writeString(out, event.minigameId());
+            writeString(out, event.reason());
+            out.writeInt(event.scoreValue());
+            out.writeInt(event.pointsAwarded());
+            out.writeInt(event.newTotal());
+            out.writeInt(event.bestValue());
+            out.writeInt(event.improvementCount());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            bytes = Arrays.copyOf(bytes, 0xFFFF);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Las posiciones del índice son int: el archivo se mapea entero y un mapeo no pasa de 2 GiB.
+    private static void ensureAddressable(DataOutputStream out) throws IOException {
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("El snapshot de puntos no cabe en un archivo mapeable (2 GiB).");
+        }
+    }
+
+    /**
+     * Lee un registro con lecturas absolutas sobre el mapeo compartido, sin mover su posición.
+     */
+    private static final class Cursor {
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        Cursor(MappedByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        int readUnsignedShort() {
+            int value = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            return value;
+        }
+
+        int readUnsignedByte() {
+            int value = buffer.get(position) & 0xFF;
+            position += 1;
+            return value;
+        }
+
+        String readString() {
+            int length = readUnsignedShort();
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
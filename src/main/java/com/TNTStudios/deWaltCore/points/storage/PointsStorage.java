@@ -0,0 +1,72 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lo que {@code PointsManager} necesita de un almacenamiento de puntos.
+ * Ninguna implementación carga a todos los jugadores: en memoria solo están los que alguien pidió con
+ * {@link #load} (los online, un premio a un desconectado) y los que tienen cambios sin llegar a su archivo base.
+ * Leer a otro jugador es una lectura indexada del disco; las escrituras se hacen en su propio hilo de I/O.
+ */
+public interface PointsStorage {
+
+    /**
+     * Abre el almacenamiento sin cargar a los jugadores. Se llama una sola vez al arrancar.
+     */
+    void open() throws IOException;
+
+    /**
+     * Devuelve el registro de un jugador, o uno nuevo sin guardar si nunca ha ganado puntos,
+     * y lo deja en memoria hasta el {@link #release} correspondiente: cada load lleva su release.
+     * El registro es uno solo: dos hilos que lo piden a la vez reciben el mismo objeto,
+     * así ningún premio se aplica a una copia que luego se pierde.
+     * Si no estaba en memoria, lo lee del disco.
+     */
+    PlayerRecord load(UUID uuid, String playerName);
+
+    /**
+     * @return true si el registro del jugador ya está en memoria: {@link #load} no va a tocar el disco.
+     */
+    boolean isLoaded(UUID uuid);
+
+    /**
+     * Suelta un {@link #load}. Si nadie más lo tiene y ya está guardado, sale de la memoria;
+     * si nunca llegó a guardarse, lo olvido.
+     */
+    void release(UUID uuid);
+
+    /**
+     * Solo para leer: si el jugador no está en memoria, devuelve una copia leída del disco que no se guarda.
+     * @return El registro guardado, o null si el jugador nunca ha ganado puntos.
+     */
+    PlayerRecord get(UUID uuid);
+
+    /**
+     * Recorre a todos los jugadores guardados, leyéndolos del disco uno a la vez (los que están en memoria,
+     * en su versión actual). Es I/O sobre todo el almacenamiento: nunca en el hilo principal.
+     */
+    void forEachRecord(Consumer<PlayerRecord> consumer) throws IOException;
+
+    /**
+     * Actualiza el nombre guardado si el jugador se cambió el nick.
+     */
+    void updateName(PlayerRecord record, String playerName);
+
+    /**
+     * Persiste un premio. El registro ya debe tener aplicados los valores nuevos.
+     */
+    void recordAward(PlayerRecord record, PointEvent event);
+
+    /**
+     * Mantenimiento periódico (compactar, checkpoint, borrar historial vencido...).
+     * Se llama desde una tarea asíncrona y no debe bloquear.
+     */
+    void runMaintenance();
+
+    /**
+     * Vacía lo pendiente y cierra. Solo para onDisable.
+     */
+    void close();
+}
@@ -0,0 +1,174 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mi cola de escritura diferida (write-behind) para el journal de puntos.
+ * Los premios solo marcan al jugador como "sucio" y dejan su evento pendiente; un único hilo de I/O
+ * vacía la cola una vez por intervalo y manda todo al disco en una sola escritura.
+ * <p>
+ * Así consigo tres cosas: el hilo principal nunca toca el disco, varios premios seguidos del mismo
+ * jugador se juntan en un solo flush, y como hay un solo hilo escritor nunca se reordenan.
+ */
+public class PointsWriteQueue {
+
+    // Un segundo de margen: suficiente para juntar los premios de una ronda sin perder casi nada en un apagón.
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    /**
+     * Lo pendiente de un jugador. El flag {@code queued} es mi "dirty flag": mientras esté activo,
+     * el jugador ya está en la cola y los nuevos premios solo se suman a su lista.
+     * Los eventos se quedan en la lista hasta que el journal confirma que llegaron al disco.
+     */
+    private static final class PendingPlayer {
+        final UUID uuid;
+        String playerName;
+        final List<PointEvent> events = new ArrayList<>();
+        boolean queued = false;
+        // Lo que tomé en el flush en curso: el nombre y cuántos eventos del principio de la lista.
+        String flushingName;
+        int flushingEvents;
+
+        PendingPlayer(UUID uuid) {
+            this.uuid = uuid;
+        }
+    }
+
+    private final PointsJournal journal;
+    private final Logger logger;
+    private final Map<UUID, PendingPlayer> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingPlayer> dirty = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService executor;
+
+    public PointsWriteQueue(PointsJournal journal, Logger logger) {
+        this.journal = journal;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DeWaltCore-PointsIO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushSafely, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deja un evento pendiente. Si {@code playerName} no es null, también se guarda el nombre (antes que el evento).
+     */
+    public void enqueue(UUID uuid, String playerName, PointEvent event) {
+        PendingPlayer player = pending.computeIfAbsent(uuid, PendingPlayer::new);
+        synchronized (player) {
+            if (playerName != null) {
+                player.playerName = playerName;
+            }
+            if (event != null) {
+                player.events.add(event);
+            }
+            if (!player.queued) {
+                player.queued = true;
+                dirty.add(player);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una tarea en el hilo de I/O después de vaciar la cola, para que vea el journal al día.
+     */
+    public Future<?> submit(Runnable task) {
+        return executor.submit(() -> {
+            flushSafely();
+            task.run();
+        });
+    }
+
+    /**
+     * Vacía la cola, ejecuta la tarea final (compactar y cerrar) y apaga el hilo de I/O esperando a que termine.
+     * Solo para onDisable.
+     */
+    public void shutdown(Runnable finalTask) {
+        try {
+            submit(finalTask).get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.log(Level.SEVERE, "No pude vaciar la cola de escritura de puntos al apagar.", e);
+        } catch (RejectedExecutionException e) {
+            logger.warning("La cola de escritura de puntos ya estaba cerrada.");
+        }
+        executor.shutdown();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "No pude escribir los premios pendientes en el journal.", e);
+        } catch (RuntimeException e) {
+            // Si dejo escapar la excepción, el executor cancela el flush periódico para siempre.
+            logger.log(Level.SEVERE, "Error inesperado en la cola de escritura de puntos.", e);
+        }
+    }
+
+    /**
+     * Escribo lo pendiente y solo lo saco de memoria cuando el journal confirmó el flush.
+     * Si algo falla, descarto lo que quedó en el buffer del journal y todos los jugadores vuelven a la cola
+     * con sus eventos intactos; el siguiente intento los escribe en un segmento nuevo. Si una parte ya había
+     * llegado al disco, queda repetida, pero los eventos llevan valores absolutos y reproducirlos dos veces da lo mismo.
+     */
+    private void flush() throws IOException {
+        List<PendingPlayer> drained = new ArrayList<>();
+        List<PointEvent> events = new ArrayList<>();
+        PendingPlayer player;
+        try {
+            while ((player = dirty.poll()) != null) {
+                drained.add(player);
+                String playerName;
+                synchronized (player) {
+                    playerName = player.playerName;
+                    player.flushingName = playerName;
+                    player.flushingEvents = player.events.size();
+                    events.addAll(player.events);
+                }
+                if (playerName != null) {
+                    journal.appendName(player.uuid, playerName);
+                }
+                for (PointEvent event : events) {
+                    journal.append(event);
+                }
+                events.clear();
+            }
+            journal.flush();
+        } catch (IOException | RuntimeException e) {
+            journal.discardUnflushed();
+            // Siguen marcados como en cola, así que basta con devolverlos; los premios nuevos se fueron sumando a su lista.
+            dirty.addAll(drained);
+            throw e;
+        }
+
+        for (PendingPlayer flushed : drained) {
+            synchronized (flushed) {
+                flushed.events.subList(0, flushed.flushingEvents).clear();
+                if (flushed.playerName != null && flushed.playerName.equals(flushed.flushingName)) {
+                    flushed.playerName = null;
+                }
+                flushed.flushingName = null;
+                flushed.flushingEvents = 0;
+                if (!flushed.events.isEmpty() || flushed.playerName != null) {
+                    // Llegó algo mientras escribía: se queda en la cola para el próximo flush.
+                    dirty.add(flushed);
+                } else {
+                    flushed.queued = false;
+                    // Ya no tiene nada pendiente: no lo guardo para siempre.
+                    pending.remove(flushed.uuid, flushed);
+                }
+            }
+        }
+    }
+}
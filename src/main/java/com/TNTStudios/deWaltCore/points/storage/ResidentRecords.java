@@ -0,0 +1,196 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Los registros que un almacenamiento tiene en memoria. Los demás viven en su archivo base
+ * (el snapshot del journal o la base de datos) y se leen cuando alguien los pide.
+ * <p>
+ * Un registro se queda mientras alguien lo tenga pedido con {@link #hold} (el caché de online, un premio a un
+ * desconectado) o mientras tenga cambios que todavía no llegan al archivo base. Cuando el almacenamiento termina
+ * de guardar un lote ({@link #beginFlush}/{@link #endFlush}), saco los que ya nadie usa.
+ * Así la memoria crece con los jugadores activos, no con todos los que alguna vez ganaron puntos.
+ */
+final class ResidentRecords {
+
+    // Lee un registro del archivo base. Devuelve null si el jugador no está; puede lanzar si falla la lectura.
+    private final Function<UUID, PlayerRecord> loader;
+    private final Object lock = new Object();
+
+    // Los registros guardados que tengo en memoria. ConcurrentHashMap para que get() no tome el lock.
+    private final Map<UUID, PlayerRecord> records = new ConcurrentHashMap<>();
+    // Los registros nuevos que ya entregué pero que aún no tienen su primer premio.
+    private final Map<UUID, PlayerRecord> unsaved = new HashMap<>();
+    // Cuántas veces está pedido cada jugador. Solo los que están en el mapa no se pueden sacar.
+    private final Map<UUID, Integer> holds = new HashMap<>();
+    // Los que cambiaron desde el último lote, y los del lote que se está guardando (o que falló y se reintenta).
+    private final Set<UUID> changed = new HashSet<>();
+    private final Set<UUID> flushing = new HashSet<>();
+    // Cambia cada vez que termina un lote. Si cambió mientras leía un registro del disco, mi copia puede ser vieja.
+    private long flushEpoch = 0;
+
+    ResidentRecords(Function<UUID, PlayerRecord> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Pide el registro de un jugador y lo deja en memoria hasta el {@link #release} correspondiente.
+     * Si nunca ha ganado puntos, le doy uno nuevo sin guardar. Dos hilos que lo piden a la vez reciben el mismo objeto.
+     * La lectura del disco, si hace falta, se hace fuera del lock.
+     */
+    PlayerRecord hold(UUID uuid, String playerName) {
+        synchronized (lock) {
+            holds.merge(uuid, 1, Integer::sum);
+        }
+        try {
+            return resident(uuid, playerName);
+        } catch (RuntimeException e) {
+            release(uuid);
+            throw e;
+        }
+    }
+
+    /**
+     * Suelta un {@link #hold}. Si nadie más lo tiene pedido y no tiene cambios pendientes, sale de la memoria.
+     */
+    void release(UUID uuid) {
+        synchronized (lock) {
+            Integer count = holds.get(uuid);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                holds.put(uuid, count - 1);
+                return;
+            }
+            holds.remove(uuid);
+            unsaved.remove(uuid);
+            if (!changed.contains(uuid) && !flushing.contains(uuid)) {
+                records.remove(uuid);
+            }
+        }
+    }
+
+    /**
+     * El registro en memoria, cargándolo si hace falta, pero sin pedirlo. Lo uso al reproducir el journal,
+     * donde lo siguiente siempre es {@link #markChanged}, que lo deja en memoria hasta el próximo lote.
+     * Si cargo uno nuevo, {@code playerName} es su nombre.
+     */
+    PlayerRecord resident(UUID uuid, String playerName) {
+        while (true) {
+            long epoch;
+            synchronized (lock) {
+                PlayerRecord record = residentLocked(uuid);
+                if (record != null) {
+                    return record;
+                }
+                epoch = flushEpoch;
+            }
+            PlayerRecord stored = loader.apply(uuid);
+            synchronized (lock) {
+                if (flushEpoch != epoch) {
+                    continue; // Terminó un lote mientras leía: vuelvo a leerlo del archivo base nuevo.
+                }
+                PlayerRecord record = residentLocked(uuid);
+                if (record != null) {
+                    return record;
+                }
+                if (stored != null) {
+                    records.put(uuid, stored);
+                    return stored;
+                }
+                record = new PlayerRecord(uuid, playerName, 0);
+                unsaved.put(uuid, record);
+                return record;
+            }
+        }
+    }
+
+    /**
+     * @return true si el jugador está en memoria, guardado o nuevo: {@link #hold} no leería el disco.
+     */
+    boolean contains(UUID uuid) {
+        synchronized (lock) {
+            return residentLocked(uuid) != null;
+        }
+    }
+
+    /**
+     * @return El registro en memoria, o null si no está cargado (o nunca ha ganado puntos). No toma el lock.
+     */
+    PlayerRecord get(UUID uuid) {
+        return records.get(uuid);
+    }
+
+    /**
+     * @return true si el registro es el guardado (no uno nuevo que todavía espera su primer premio).
+     */
+    boolean isSaved(PlayerRecord record) {
+        return records.get(record.getUuid()) == record;
+    }
+
+    /**
+     * El registro cambió (un premio, un nick nuevo) y tiene que llegar al archivo base en el próximo lote.
+     * @return true si era un registro nuevo sin guardar: con esto pasa a ser el guardado.
+     */
+    boolean markChanged(PlayerRecord record) {
+        synchronized (lock) {
+            boolean wasUnsaved = unsaved.remove(record.getUuid(), record);
+            records.putIfAbsent(record.getUuid(), record);
+            changed.add(record.getUuid());
+            return wasUnsaved;
+        }
+    }
+
+    /**
+     * Empiezo a guardar un lote: todo lo que cambió hasta ahora, más lo de un lote anterior que haya fallado.
+     * Ninguno sale de la memoria hasta {@link #endFlush}.
+     * @return Los registros del lote (los objetos vivos; quien los guarda hace sus copias).
+     */
+    List<PlayerRecord> beginFlush() {
+        synchronized (lock) {
+            flushing.addAll(changed);
+            changed.clear();
+            List<PlayerRecord> batch = new ArrayList<>(flushing.size());
+            for (UUID uuid : flushing) {
+                batch.add(records.get(uuid));
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * El lote ya está en el archivo base. Saco de la memoria a los que nadie tiene pedidos ni volvieron a cambiar.
+     * Si el guardado falla, no se llama: el lote se queda en memoria y entra completo en el siguiente.
+     */
+    void endFlush() {
+        synchronized (lock) {
+            for (UUID uuid : flushing) {
+                if (!holds.containsKey(uuid) && !changed.contains(uuid)) {
+                    records.remove(uuid);
+                }
+            }
+            flushing.clear();
+            flushEpoch++;
+        }
+    }
+
+    /**
+     * Los registros guardados que tengo en memoria. Es una vista que puede cambiar mientras se recorre.
+     */
+    Collection<PlayerRecord> values() {
+        return records.values();
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    // Quien lo llama tiene el lock.
+    private PlayerRecord residentLocked(UUID uuid) {
+        PlayerRecord record = records.get(uuid);
+        return (record != null) ? record : unsaved.get(uuid);
+    }
+}
@@ -0,0 +1,484 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import com.TNTStudios.deWaltCore.persistence.SqliteDatabase;
+import com.TNTStudios.deWaltCore.points.Minigame;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Mi almacenamiento de puntos sobre SQLite. Igual que el journal, solo tiene en memoria a los jugadores pedidos
+ * y a los que tienen filas sin confirmar ({@link ResidentRecords}); los demás se leen de la base por su clave primaria.
+ * Cada premio solo encola sus filas y el hilo escritor de {@link SqliteDatabase} las manda en lote.
+ * <p>
+ * Todo queda en una sola base de datos, así que los respaldos y los reportes del evento son una consulta SQL.
+ */
+public class SqlitePointsStore implements PointsStorage {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS players ("
+                    + "uuid TEXT PRIMARY KEY, name TEXT NOT NULL, total_points INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS minigame_stats ("
+                    + "uuid TEXT NOT NULL, minigame TEXT NOT NULL, best_time INTEGER NOT NULL, best_score INTEGER NOT NULL,"
+                    + " improvement_count INTEGER NOT NULL, PRIMARY KEY (uuid, minigame))",
+            "CREATE TABLE IF NOT EXISTS point_history ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, uuid TEXT NOT NULL, epoch_millis INTEGER NOT NULL,"
+                    + " kind INTEGER NOT NULL, minigame TEXT NOT NULL, reason TEXT NOT NULL, score_value INTEGER NOT NULL,"
+                    + " points_awarded INTEGER NOT NULL, new_total INTEGER NOT NULL, best_value INTEGER NOT NULL,"
+                    + " improvement_count INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS point_history_by_player ON point_history (uuid, id)"
+    };
+
+    private static final String UPSERT_PLAYER = "INSERT INTO players (uuid, name, total_points) VALUES (?, ?, ?)"
+            + " ON CONFLICT (uuid) DO UPDATE SET name = excluded.name, total_points = excluded.total_points";
+    // Un -1 en el evento significa "no mejoró": conservo la marca que ya estaba.
+    private static final String UPSERT_BEST_TIME = "INSERT INTO minigame_stats (uuid, minigame, best_time, best_score, improvement_count)"
+            + " VALUES (?, ?, ?, -1, ?) ON CONFLICT (uuid, minigame) DO UPDATE SET"
+            + " best_time = CASE WHEN excluded.best_time = -1 THEN best_time ELSE excluded.best_time END,"
+            + " improvement_count = excluded.improvement_count";
+    private static final String UPSERT_BEST_SCORE = "INSERT INTO minigame_stats (uuid, minigame, best_time, best_score, improvement_count)"
+            + " VALUES (?, ?, -1, ?, ?) ON CONFLICT (uuid, minigame) DO UPDATE SET"
+            + " best_score = CASE WHEN excluded.best_score = -1 THEN best_score ELSE excluded.best_score END,"
+            + " improvement_count = excluded.improvement_count";
+    private static final String INSERT_HISTORY = "INSERT INTO point_history (uuid, epoch_millis, kind, minigame, reason,"
+            + " score_value, points_awarded, new_total, best_value, improvement_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String HISTORY_COLUMNS = "uuid, epoch_millis, kind, minigame, reason, score_value, points_awarded,"
+            + " new_total, best_value, improvement_count";
+    // Borro el historial vencido, pero nunca los últimos eventos de cada jugador: son los que llenan su anillo al cargar.
+    private static final String PRUNE_HISTORY = "DELETE FROM point_history WHERE epoch_millis < ? AND id NOT IN"
+            + " (SELECT id FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY uuid ORDER BY id DESC) AS position"
+            + " FROM point_history) WHERE position <= ?)";
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    // El borrado recorre toda la tabla: con una vez por hora sobra.
+    private static final long PRUNE_INTERVAL_MILLIS = 60L * 60 * 1000;
+    // La migración manda los inserts en lotes de este tamaño y avisa del avance después de cada uno.
+    private static final int MIGRATION_BATCH_SIZE = 5000;
+    // Un recorrido completo lee a los jugadores por páginas de este tamaño, en orden de UUID.
+    private static final int SCAN_PAGE_SIZE = 1000;
+
+    private final SqliteDatabase database;
+    private final File dataFolder;
+    private final Logger logger;
+    // Los jugadores en memoria; los demás se leen de la base.
+    private final ResidentRecords residents = new ResidentRecords(this::readPlayer);
+    // 0 es conservar el historial para siempre.
+    private final long historyRetentionMillis;
+    private volatile long lastPruneMillis = 0;
+
+    /**
+     * @param historyRetentionDays Cuántos días conservo las filas de point_history (0 = siempre).
+     */
+    public SqlitePointsStore(SqliteDatabase database, File dataFolder, Logger logger, int historyRetentionDays) {
+        this.database = database;
+        this.historyRetentionMillis = Math.max(0, historyRetentionDays) * MILLIS_PER_DAY;
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+    }
+
+    @Override
+    public void open() throws IOException {
+        int[] players = new int[1];
+        try {
+            database.executeSchema(SCHEMA);
+            database.query("SELECT COUNT(*) FROM players", statement -> {
+            }, row -> players[0] = row.getInt(1));
+            if (players[0] == 0) {
+                players[0] = migrateFromJournal();
+            }
+        } catch (SQLException e) {
+            throw new IOException("No pude abrir el almacenamiento de puntos en SQLite.", e);
+        }
+        logger.info("Almacenamiento de puntos (SQLite) abierto con " + players[0] + " jugadores.");
+    }
+
+    /**
+     * Devuelve el registro de un jugador y lo deja en memoria hasta su {@link #release}.
+     * Si no estaba, son tres consultas por clave primaria (jugador, marcas y últimos eventos).
+     */
+    @Override
+    public PlayerRecord load(UUID uuid, String playerName) {
+        return residents.hold(uuid, playerName);
+    }
+
+    @Override
+    public boolean isLoaded(UUID uuid) {
+        return residents.contains(uuid);
+    }
+
+    @Override
+    public void release(UUID uuid) {
+        residents.release(uuid);
+    }
+
+    @Override
+    public PlayerRecord get(UUID uuid) {
+        PlayerRecord record = residents.get(uuid);
+        return (record != null) ? record : readPlayer(uuid);
+    }
+
+    /**
+     * Primero espero a que el hilo escritor confirme lo pendiente, así todos los jugadores en memoria ya tienen
+     * su fila. Luego leo la tabla por páginas en orden de UUID; de los que están en memoria entrego su versión actual.
+     */
+    @Override
+    public void forEachRecord(Consumer<PlayerRecord> consumer) throws IOException {
+        try {
+            database.runOnWriter(connection -> {
+            });
+            String after = "";
+            while (true) {
+                List<PlayerRecord> page = readPage(after);
+                for (PlayerRecord stored : page) {
+                    PlayerRecord resident = residents.get(stored.getUuid());
+                    consumer.accept((resident != null) ? resident : stored);
+                }
+                if (page.size() < SCAN_PAGE_SIZE) {
+                    return;
+                }
+                after = page.get(page.size() - 1).getUuid().toString();
+            }
+        } catch (SQLException e) {
+            throw new IOException("No pude recorrer los jugadores en SQLite.", e);
+        }
+    }
+
+    @Override
+    public void updateName(PlayerRecord record, String playerName) {
+        if (record.getPlayerName().equals(playerName)) {
+            return;
+        }
+        record.setPlayerName(playerName);
+        if (residents.isSaved(record)) {
+            database.enqueue(upsertPlayer(record.getUuid(), playerName, record.getTotalPoints()));
+            residents.markChanged(record);
+        }
+    }
+
+    /**
+     * Encolo las filas y solo después lo marco como cambiado: así, cuando un lote lo saque de la memoria,
+     * sus filas ya van en el flush que lo confirmó.
+     */
+    @Override
+    public void recordAward(PlayerRecord record, PointEvent event) {
+        record.getHistory().add(event);
+        database.enqueue(upsertPlayer(record.getUuid(), record.getPlayerName(), event.newTotal()));
+        if (event.kind() != PointEvent.Kind.REWARD) {
+            database.enqueue(upsertStats(event));
+        }
+        database.enqueue(insertHistory(event));
+        residents.markChanged(record);
+    }
+
+    /**
+     * Saco de la memoria a los jugadores cuyas filas ya se confirmaron, un checkpoint pasivo del WAL
+     * para que no crezca sin límite (no bloquea a los lectores) y, una vez por hora, el borrado del historial vencido.
+     */
+    @Override
+    public void runMaintenance() {
+        long now = System.currentTimeMillis();
+        boolean prune = historyRetentionMillis > 0 && now - lastPruneMillis >= PRUNE_INTERVAL_MILLIS;
+        if (prune) {
+            lastPruneMillis = now;
+        }
+        // Todo lo que cambió hasta aquí ya está en la cola, delante de esta tarea.
+        residents.beginFlush();
+        database.runOnWriterAsync(connection -> {
+            // La tarea solo corre si el flush que la precede salió bien: el lote ya está en la base.
+            residents.endFlush();
+            if (prune) {
+                try (PreparedStatement statement = connection.prepareStatement(PRUNE_HISTORY)) {
+                    statement.setLong(1, now - historyRetentionMillis);
+                    statement.setInt(2, PointHistory.CAPACITY);
+                    int deleted = statement.executeUpdate();
+                    if (deleted > 0) {
+                        logger.info("Borré " + deleted + " eventos del historial de puntos con más de "
+                                + (historyRetentionMillis / MILLIS_PER_DAY) + " días.");
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA wal_checkpoint(PASSIVE)");
+            }
+        });
+    }
+
+    /**
+     * La base de datos la cierra quien la creó, porque también la usan los registros.
+     */
+    @Override
+    public void close() {
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    /**
+     * Lee a un jugador de la base.
+     * @return El registro, o null si nunca ha ganado puntos.
+     * @throws IllegalStateException Si la consulta falla: prefiero que el premio falle a darle un registro en cero.
+     */
+    private PlayerRecord readPlayer(UUID uuid) {
+        try {
+            List<PlayerRecord> found = new ArrayList<>(1);
+            database.query("SELECT uuid, name, total_points FROM players WHERE uuid = ?",
+                    statement -> statement.setString(1, uuid.toString()), row -> found.add(readRecord(row)));
+            if (found.isEmpty()) {
+                return null;
+            }
+            PlayerRecord record = found.get(0);
+            database.query("SELECT uuid, minigame, best_time, best_score, improvement_count FROM minigame_stats WHERE uuid = ?",
+                    statement -> statement.setString(1, uuid.toString()), row -> readStats(record, row));
+            // Sus últimos eventos, del más reciente al más antiguo; los meto al anillo en orden cronológico.
+            List<PointEvent> recent = new ArrayList<>(PointHistory.CAPACITY);
+            database.query("SELECT " + HISTORY_COLUMNS + " FROM point_history WHERE uuid = ? ORDER BY id DESC LIMIT ?",
+                    statement -> {
+                        statement.setString(1, uuid.toString());
+                        statement.setInt(2, PointHistory.CAPACITY);
+                    }, row -> recent.add(readEvent(row)));
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                record.getHistory().add(recent.get(i));
+            }
+            return record;
+        } catch (SQLException e) {
+            throw new IllegalStateException("No pude leer los puntos de " + uuid + " en SQLite.", e);
+        }
+    }
+
+    /**
+     * Una página del recorrido completo: hasta {@link #SCAN_PAGE_SIZE} jugadores con UUID mayor que {@code after},
+     * con sus marcas y sus últimos eventos. Las tres consultas van por rango de la clave primaria o del índice.
+     */
+    private List<PlayerRecord> readPage(String after) throws SQLException {
+        Map<UUID, PlayerRecord> page = new LinkedHashMap<>();
+        database.query("SELECT uuid, name, total_points FROM players WHERE uuid > ? ORDER BY uuid LIMIT ?", statement -> {
+            statement.setString(1, after);
+            statement.setInt(2, SCAN_PAGE_SIZE);
+        }, row -> {
+            PlayerRecord record = readRecord(row);
+            page.put(record.getUuid(), record);
+        });
+        if (page.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String first = page.keySet().iterator().next().toString();
+        String last = "";
+        for (UUID uuid : page.keySet()) {
+            last = uuid.toString();
+        }
+        String low = first;
+        String high = last;
+        database.query("SELECT uuid, minigame, best_time, best_score, improvement_count FROM minigame_stats"
+                + " WHERE uuid >= ? AND uuid <= ?", statement -> {
+            statement.setString(1, low);
+            statement.setString(2, high);
+        }, row -> {
+            PlayerRecord record = page.get(UUID.fromString(row.getString(1)));
+            if (record != null) {
+                readStats(record, row);
+            }
+        });
+        // Solo los últimos eventos de cada jugador, en orden cronológico para llenar el anillo.
+        database.query("SELECT " + HISTORY_COLUMNS + " FROM (SELECT *, ROW_NUMBER() OVER"
+                        + " (PARTITION BY uuid ORDER BY id DESC) AS position FROM point_history WHERE uuid >= ? AND uuid <= ?)"
+                        + " WHERE position <= ? ORDER BY id",
+                statement -> {
+                    statement.setString(1, low);
+                    statement.setString(2, high);
+                    statement.setInt(3, PointHistory.CAPACITY);
+                },
+                row -> {
+                    PointEvent event = readEvent(row);
+                    PlayerRecord record = page.get(event.uuid());
+                    if (record != null) {
+                        record.getHistory().add(event);
+                    }
+                });
+        return new ArrayList<>(page.values());
+    }
+
+    /**
+     * Migración de una sola vez: si la base está vacía y hay datos del journal (o los YAML de playerdata,
+     * que el journal importa solo), copio todo en una transacción y dejo la carpeta antigua renombrada.
+     * Los jugadores y los eventos pasan de uno en uno, sin juntarlos todos en memoria.
+     * @return Cuántos jugadores migré.
+     */
+    private int migrateFromJournal() throws IOException, SQLException {
+        File pointsFolder = new File(dataFolder, "points");
+        File legacyFolder = new File(dataFolder, "playerdata");
+        if (!pointsFolder.exists() && !legacyFolder.exists()) {
+            return 0;
+        }
+
+        // Corre una sola vez, dentro de onEnable: el servidor no puede aceptar premios antes de tener los puntos
+        // guardados. Con muchos jugadores tarda, así que voy contando el avance en el log para que no parezca colgado.
+        long startMillis = System.currentTimeMillis();
+        logger.info("Migrando los datos de puntos al almacenamiento SQLite. Leyendo el journal...");
+        // Sin retención: todo el historial archivado tiene que llegar a la base.
+        JournalPointsStore journalStore = new JournalPointsStore(dataFolder, logger, 0);
+        journalStore.open();
+        // Al cerrar, el journal compacta y archiva todo: así el historial completo queda en los archivos.
+        journalStore.close();
+
+        // Jugadores y eventos migrados.
+        int[] done = new int[2];
+        database.runOnWriter(connection -> {
+            try (PreparedStatement players = connection.prepareStatement(UPSERT_PLAYER);
+                 PreparedStatement stats = connection.prepareStatement("INSERT OR REPLACE INTO minigame_stats"
+                         + " (uuid, minigame, best_time, best_score, improvement_count) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement history = connection.prepareStatement(INSERT_HISTORY)) {
+                journalStore.forEachRecord(record -> {
+                    try {
+                        players.setString(1, record.getUuid().toString());
+                        players.setString(2, record.getPlayerName());
+                        players.setInt(3, record.getTotalPoints());
+                        players.addBatch();
+                        for (Minigame minigame : Minigame.values()) {
+                            PlayerRecord.MinigameStats values = record.stats(minigame);
+                            if (values.isEmpty()) {
+                                continue;
+                            }
+                            stats.setString(1, record.getUuid().toString());
+                            stats.setString(2, minigame.getId());
+                            stats.setInt(3, values.bestTime);
+                            stats.setInt(4, values.bestScore);
+                            stats.setInt(5, values.improvementCount);
+                            stats.addBatch();
+                        }
+                        if (++done[0] % MIGRATION_BATCH_SIZE == 0) {
+                            players.executeBatch();
+                            stats.executeBatch();
+                            logger.info("Migración: " + done[0] + " jugadores.");
+                        }
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                players.executeBatch();
+                stats.executeBatch();
+
+                journalStore.scanArchivedEvents(event -> {
+                    try {
+                        bindHistory(history, event);
+                        history.addBatch();
+                        if (++done[1] % MIGRATION_BATCH_SIZE == 0) {
+                            history.executeBatch();
+                            logger.info("Migración: " + done[1] + " eventos de historial.");
+                        }
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                history.executeBatch();
+            } catch (IOException e) {
+                throw new SQLException("No pude leer el historial de puntos para migrarlo.", e);
+            } catch (IllegalStateException e) {
+                // Los consumidores no pueden lanzar SQLException: la envuelvo ahí y la desenvuelvo aquí.
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw e;
+            }
+        });
+
+        if (pointsFolder.exists() && !pointsFolder.renameTo(new File(dataFolder, "points-migrated"))) {
+            logger.warning("No pude renombrar la carpeta points; no se volverá a migrar porque la base ya tiene datos.");
+        }
+        logger.info("Migración completada: " + done[0] + " jugadores y " + done[1] + " eventos de historial en "
+                + (System.currentTimeMillis() - startMillis) + " ms.");
+        return done[0];
+    }
+
+    private static SqliteDatabase.Write upsertPlayer(UUID uuid, String playerName, int totalPoints) {
+        return new SqliteDatabase.Write() {
+            @Override
+            public String sql() {
+                return UPSERT_PLAYER;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement) throws SQLException {
+                statement.setString(1, uuid.toString());
+                statement.setString(2, playerName);
+                statement.setInt(3, totalPoints);
+            }
+
+            // Varios premios seguidos del mismo jugador: solo hace falta escribir el último total.
+            @Override
+            public String coalesceKey() {
+                return "player:" + uuid;
+            }
+        };
+    }
+
+    private static SqliteDatabase.Write upsertStats(PointEvent event) {
+        boolean completion = event.kind() == PointEvent.Kind.COMPLETION;
+        return new SqliteDatabase.Write() {
+            @Override
+            public String sql() {
+                return completion ? UPSERT_BEST_TIME : UPSERT_BEST_SCORE;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement) throws SQLException {
+                statement.setString(1, event.uuid().toString());
+                statement.setString(2, event.minigameId());
+                statement.setInt(3, event.bestValue());
+                statement.setInt(4, event.improvementCount());
+            }
+        };
+    }
+
+    private static SqliteDatabase.Write insertHistory(PointEvent event) {
+        return new SqliteDatabase.Write() {
+            @Override
+            public String sql() {
+                return INSERT_HISTORY;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement) throws SQLException {
+                bindHistory(statement, event);
+            }
+        };
+    }
+
+    private static void bindHistory(PreparedStatement statement, PointEvent event) throws SQLException {
+        statement.setString(1, event.uuid().toString());
+        statement.setLong(2, event.epochMillis());
+        statement.setInt(3, event.kind().ordinal());
+        statement.setString(4, event.minigameId());
+        statement.setString(5, event.reason());
+        statement.setInt(6, event.scoreValue());
+        statement.setInt(7, event.pointsAwarded());
+        statement.setInt(8, event.newTotal());
+        statement.setInt(9, event.bestValue());
+        statement.setInt(10, event.improvementCount());
+    }
+
+    // Columnas: uuid, name, total_points.
+    private static PlayerRecord readRecord(ResultSet row) throws SQLException {
+        return new PlayerRecord(UUID.fromString(row.getString(1)), row.getString(2), row.getInt(3));
+    }
+
+    // Columnas: uuid, minigame, best_time, best_score, improvement_count.
+    private static void readStats(PlayerRecord record, ResultSet row) throws SQLException {
+        PlayerRecord.MinigameStats stats = record.stats(row.getString(2));
+        if (stats != null) {
+            stats.bestTime = row.getInt(3);
+            stats.bestScore = row.getInt(4);
+            stats.improvementCount = row.getInt(5);
+        }
+    }
+
+    private static PointEvent readEvent(ResultSet row) throws SQLException {
+        return new PointEvent(UUID.fromString(row.getString(1)), row.getLong(2), PointEvent.Kind.values()[row.getInt(3)],
+                row.getString(4), row.getString(5), row.getInt(6), row.getInt(7), row.getInt(8), row.getInt(9), row.getInt(10));
+    }
+}
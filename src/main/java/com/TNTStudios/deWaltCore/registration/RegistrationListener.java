@@ -29,18 +29,54 @@ public class RegistrationListener implements Listener {
 
     // Un método de ayuda para mantener el código limpio y no repetirme.
     // OPTIMIZACIÓN: Este chequeo es mucho más rápido que buscar en un Set.
+    // También congelo mientras su estado de registro se está cargando.
     private boolean isPlayerFrozen(Player player) {
-        return player.hasMetadata("unregistered");
+        return player.hasMetadata("unregistered") || player.hasMetadata(RegistrationManager.LOADING_METADATA);
+    }
+
+    /**
+     * Precargo el estado de registro en el hilo de login, así el join no toca el disco.
+     * MONITOR: solo me interesa si el login de verdad va a pasar.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            registrationManager.prefetch(event.getUniqueId());
+        }
+    }
+
+    /**
+     * Si el servidor (whitelist, ban, lleno) u otro plugin rechaza el login después del pre-login,
+     * suelto lo que precargué.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            registrationManager.discardPrefetched(event.getPlayer().getUniqueId());
+        }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        registrationManager.onPlayerJoin(player);
 
         registrationManager.clearPlayerInventory(player);
 
-        // La lógica de verificación ahora está encapsulada en el manager, que usa el caché.
-        if (registrationManager.isRegistered(player.getUniqueId())) {
+        // La lógica de verificación ahora está encapsulada en el manager, que solo lee el caché.
+        switch (registrationManager.getRegistrationState(player.getUniqueId())) {
+            case REGISTERED -> welcomePlayer(player, true);
+            case UNREGISTERED -> welcomePlayer(player, false);
+            case LOADING -> {
+                // La precarga no terminó: lo dejo congelado y decido cuando llegue el dato.
+                player.sendMessage(ChatColor.GRAY + "Cargando tus datos...");
+                registrationManager.resolveAsync(player, registered -> welcomePlayer(player, registered));
+            }
+        }
+    }
+
+    private void welcomePlayer(Player player, boolean registered) {
+        if (registered) {
             player.sendMessage(ChatColor.GREEN + "¡Bienvenido de vuelta!");
             registrationManager.teleportToRegisteredSpawn(player);
         } else {
@@ -65,6 +101,11 @@ public class RegistrationListener implements Listener {
         }
 
         event.setCancelled(true);
+        if (player.hasMetadata(RegistrationManager.LOADING_METADATA)) {
+            // Todavía no sé si está registrado: no trato su mensaje como un correo.
+            player.sendMessage(ChatColor.GRAY + "Espera un momento, estamos cargando tus datos.");
+            return;
+        }
         String email = event.getMessage();
 
         if (!EmailValidator.isValidFormat(email)) {
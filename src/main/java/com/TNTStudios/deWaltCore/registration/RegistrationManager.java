@@ -7,18 +7,16 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -27,23 +25,37 @@ import java.util.logging.Level;
   */
 public class RegistrationManager {
 
+    /**
+     * Lo que sé del registro de un jugador sin tocar el disco.
+     * LOADING significa que la precarga de AsyncPlayerPreLoginEvent todavía no terminó (o no se hizo).
+     */
+    public enum RegistrationState {
+        REGISTERED,
+        UNREGISTERED,
+        LOADING
+    }
+
+    // Metadato mientras espero la consulta asíncrona: el jugador está congelado, pero aún no le pido el correo.
+    public static final String LOADING_METADATA = "registration-loading";
+
     public final DeWaltCore plugin;
-    private final File registrationFolder;
+    // YAML por jugador o SQLite, según config.yml.
+    private final RegistrationStorage storage;
 
     // OPTIMIZACIÓN: Caché para evitar leer el disco en cada join.
     // Guardo el estado de registro de los jugadores para una consulta casi instantánea.
     private final ConcurrentHashMap<UUID, Boolean> registeredCache = new ConcurrentHashMap<>();
+    // Los que precargué en el pre-login pero todavía no entran; si el login se rechaza después, no hay quit que los limpie.
+    private static final long PREFETCH_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final Map<UUID, Long> prefetchedAt = new ConcurrentHashMap<>();
 
     // MEJORA: Ahora las ubicaciones se cargarán desde la config para mayor flexibilidad.
     private Location unregisteredSpawn;
     private Location registeredSpawn;
 
-    public RegistrationManager(DeWaltCore plugin) {
+    public RegistrationManager(DeWaltCore plugin, RegistrationStorage storage) {
         this.plugin = plugin;
-        this.registrationFolder = new File(plugin.getDataFolder(), "registrations");
-        if (!registrationFolder.exists()) {
-            registrationFolder.mkdirs();
-        }
+        this.storage = storage;
         // Cargo las configuraciones al iniciar el manager.
         loadLocations();
     }
@@ -110,24 +122,110 @@ public class RegistrationManager {
     }
 
     /**
-     * Verifico si un jugador está registrado usando el caché.
-     * Si no está en el caché, consulto el disco y actualizo el caché.
+     * Precarga el estado de registro en el caché. Se llama desde AsyncPlayerPreLoginEvent,
+     * así el disco se consulta en el hilo de login y el join solo lee memoria.
      * @param playerUUID La UUID del jugador.
-     * @return true si el jugador está registrado.
      */
-    public boolean isRegistered(UUID playerUUID) {
-        // Primero, consulto el caché, que es la operación más rápida.
+    public void prefetch(UUID playerUUID) {
+        long now = System.currentTimeMillis();
+        expirePrefetched(now);
+        if (cacheFromDisk(playerUUID)) {
+            prefetchedAt.put(playerUUID, now);
+        }
+    }
+
+    /**
+     * El login que precargué no llegó a entrar (lo rechazaron después del pre-login): nunca habrá quit
+     * que limpie su entrada, así que la saco aquí.
+     */
+    public void discardPrefetched(UUID playerUUID) {
+        if (prefetchedAt.remove(playerUUID) != null) {
+            registeredCache.remove(playerUUID);
+        }
+    }
+
+    // Ya entró: su entrada ahora la gestiona onPlayerQuit.
+    public void onPlayerJoin(Player player) {
+        prefetchedAt.remove(player.getUniqueId());
+    }
+
+    // Lo que lleva más de un minuto precargado sin entrar ya no va a entrar (se cayó la conexión a medio login).
+    private void expirePrefetched(long now) {
+        for (Map.Entry<UUID, Long> entry : prefetchedAt.entrySet()) {
+            if (now - entry.getValue() > PREFETCH_EXPIRY_MILLIS && prefetchedAt.remove(entry.getKey(), entry.getValue())) {
+                registeredCache.remove(entry.getKey());
+            }
+        }
+    }
+
+    // @return true si la entrada la puse yo ahora (no estaba ya en caché).
+    private boolean cacheFromDisk(UUID playerUUID) {
         if (registeredCache.containsKey(playerUUID)) {
-            return registeredCache.get(playerUUID);
+            return false;
+        }
+        // putIfAbsent: si justo se registró mientras consultaba, no piso el "true".
+        return registeredCache.putIfAbsent(playerUUID, readRegistrationFromDisk(playerUUID)) == null;
+    }
+
+    /**
+     * Consulta el estado de registro solo en memoria. Es seguro llamarlo en el hilo principal.
+     * @param playerUUID La UUID del jugador.
+     * @return El estado, o LOADING si todavía no lo tengo en caché.
+     */
+    public RegistrationState getRegistrationState(UUID playerUUID) {
+        Boolean registered = registeredCache.get(playerUUID);
+        if (registered == null) {
+            return RegistrationState.LOADING;
         }
+        return registered ? RegistrationState.REGISTERED : RegistrationState.UNREGISTERED;
+    }
 
-        // Si no está en caché, reviso el archivo (operación más lenta).
-        File playerFile = new File(registrationFolder, playerUUID.toString() + ".yml");
-        boolean exists = playerFile.exists();
+    /**
+     * Verifico si un jugador está registrado usando el caché. Nunca toca el disco:
+     * si la precarga aún no terminó, respondo false (mejor no dejarlo pasar sin saber).
+     * @param playerUUID La UUID del jugador.
+     * @return true si el jugador está registrado.
+     */
+    public boolean isRegistered(UUID playerUUID) {
+        return getRegistrationState(playerUUID) == RegistrationState.REGISTERED;
+    }
 
-        // Guardo el resultado en el caché para futuras consultas.
-        registeredCache.put(playerUUID, exists);
-        return exists;
+    /**
+     * Para el caso raro en que el jugador entra sin precarga (otro plugin canceló el pre-login y luego
+     * lo dejó pasar, o el disco iba muy lento). Lo congelo con LOADING_METADATA, consulto el disco en
+     * un hilo asíncrono y, ya de vuelta en el hilo principal, llamo a {@code onResolved} si sigue conectado.
+     */
+    public void resolveAsync(Player player, Consumer<Boolean> onResolved) {
+        UUID playerUUID = player.getUniqueId();
+        player.setMetadata(LOADING_METADATA, new FixedMetadataValue(plugin, true));
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                cacheFromDisk(playerUUID);
+                boolean registered = isRegistered(playerUUID);
+
+                new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        player.removeMetadata(LOADING_METADATA, plugin);
+                        if (player.isOnline()) {
+                            onResolved.accept(registered);
+                        }
+                    }
+                }.runTask(plugin);
+            }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    private boolean readRegistrationFromDisk(UUID playerUUID) {
+        try {
+            return storage.isRegistered(playerUUID);
+        } catch (IOException e) {
+            // Si no puedo leerlo, le pido el correo otra vez: registrarse de nuevo solo sobrescribe sus datos.
+            plugin.getLogger().log(Level.SEVERE, "No pude consultar el registro de " + playerUUID, e);
+            return false;
+        }
     }
 
     /**
@@ -148,21 +246,8 @@ public class RegistrationManager {
             @Override
             public void run() {
                 String playerName = player.getName();
-                File playerFile = new File(registrationFolder, playerUUID.toString() + ".yml");
-                FileConfiguration playerData = YamlConfiguration.loadConfiguration(playerFile);
-
                 try {
-                    playerData.set("uuid", playerUUID.toString());
-                    playerData.set("username", playerName);
-                    playerData.set("email", email);
-                    long timestamp = System.currentTimeMillis();
-                    playerData.set("registration_timestamp", timestamp);
-                    String readableDate = Instant.ofEpochMilli(timestamp)
-                            .atZone(ZoneId.systemDefault())
-                            .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z"));
-                    playerData.set("registration_date", readableDate);
-
-                    playerData.save(playerFile);
+                    storage.saveRegistration(playerUUID, playerName, email, System.currentTimeMillis());
                 } catch (IOException e) {
                     plugin.getLogger().log(Level.SEVERE, "¡ERROR CRÍTICO! No pude guardar el archivo de registro para " + playerName + " (" + playerUUID + ")", e);
                 }
@@ -179,5 +264,6 @@ public class RegistrationManager {
             player.removeMetadata("unregistered", plugin);
             registeredCache.remove(playerUUID);
         }
+        player.removeMetadata(LOADING_METADATA, plugin);
     }
 }
\ No newline at end of file
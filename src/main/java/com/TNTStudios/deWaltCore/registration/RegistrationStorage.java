@@ -0,0 +1,16 @@
+// RUTA: src/main/java/com/TNTStudios/deWaltCore/registration/RegistrationStorage.java
+package com.TNTStudios.deWaltCore.registration;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Dónde guardo los registros de los jugadores. {@link RegistrationManager} pone el caché delante,
+ * así que estos métodos pueden tocar el disco: solo se llaman desde hilos asíncronos.
+ */
+public interface RegistrationStorage {
+
+    boolean isRegistered(UUID playerUUID) throws IOException;
+
+    void saveRegistration(UUID playerUUID, String username, String email, long timestamp) throws IOException;
+}
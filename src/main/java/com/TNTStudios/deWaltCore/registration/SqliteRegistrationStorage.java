@@ -0,0 +1,102 @@
+// RUTA: src/main/java/com/TNTStudios/deWaltCore/registration/SqliteRegistrationStorage.java
+package com.TNTStudios.deWaltCore.registration;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+import com.TNTStudios.deWaltCore.persistence.SqliteDatabase;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Los registros en la tabla {@code registrations} de la base SQLite.
+ * Guardar solo encola la fila; el hilo escritor de {@link SqliteDatabase} la manda en el próximo lote.
+ */
+public class SqliteRegistrationStorage implements RegistrationStorage {
+
+    private static final String SCHEMA = "CREATE TABLE IF NOT EXISTS registrations ("
+            + "uuid TEXT PRIMARY KEY, username TEXT NOT NULL, email TEXT NOT NULL, registration_timestamp INTEGER NOT NULL)";
+    private static final String UPSERT_REGISTRATION = "INSERT INTO registrations (uuid, username, email, registration_timestamp)"
+            + " VALUES (?, ?, ?, ?) ON CONFLICT (uuid) DO UPDATE SET username = excluded.username,"
+            + " email = excluded.email, registration_timestamp = excluded.registration_timestamp";
+
+    private final SqliteDatabase database;
+    private final Logger logger;
+
+    public SqliteRegistrationStorage(SqliteDatabase database, File dataFolder, Logger logger) throws SQLException {
+        this.database = database;
+        this.logger = logger;
+        database.executeSchema(SCHEMA);
+        migrateFromYaml(new File(dataFolder, "registrations"));
+    }
+
+    @Override
+    public boolean isRegistered(UUID playerUUID) throws IOException {
+        boolean[] found = {false};
+        try {
+            database.query("SELECT 1 FROM registrations WHERE uuid = ?",
+                    statement -> statement.setString(1, playerUUID.toString()),
+                    row -> found[0] = true);
+        } catch (SQLException e) {
+            throw new IOException("No pude consultar el registro de " + playerUUID, e);
+        }
+        return found[0];
+    }
+
+    @Override
+    public void saveRegistration(UUID playerUUID, String username, String email, long timestamp) {
+        database.enqueue(new SqliteDatabase.Write() {
+            @Override
+            public String sql() {
+                return UPSERT_REGISTRATION;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement) throws SQLException {
+                statement.setString(1, playerUUID.toString());
+                statement.setString(2, username);
+                statement.setString(3, email);
+                statement.setLong(4, timestamp);
+            }
+        });
+    }
+
+    /**
+     * Migración de una sola vez desde registrations/<uuid>.yml. Dejo la carpeta renombrada como respaldo.
+     */
+    private void migrateFromYaml(File registrationFolder) throws SQLException {
+        File[] files = registrationFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        logger.info("Migrando " + files.length + " registros a SQLite...");
+        database.runOnWriter(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_REGISTRATION)) {
+                for (File file : files) {
+                    try {
+                        UUID uuid = UUID.fromString(file.getName().substring(0, file.getName().length() - 4));
+                        YamlConfiguration config = SafeFiles.loadYaml(file, logger);
+                        statement.setString(1, uuid.toString());
+                        statement.setString(2, config.getString("username", uuid.toString()));
+                        statement.setString(3, config.getString("email", ""));
+                        statement.setLong(4, config.getLong("registration_timestamp", 0L));
+                        statement.addBatch();
+                    } catch (IllegalArgumentException | IOException e) {
+                        logger.warning("Ignoro el registro " + file.getName() + ": " + e.getMessage());
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+
+        if (!registrationFolder.renameTo(new File(registrationFolder.getParentFile(), "registrations-migrated"))) {
+            logger.warning("No pude renombrar la carpeta registrations; se volverá a importar (sin duplicados) en el próximo arranque.");
+        }
+        logger.info("Migración de registros completada.");
+    }
+}
@@ -0,0 +1,57 @@
+// RUTA: src/main/java/com/TNTStudios/deWaltCore/registration/YamlRegistrationStorage.java
+package com.TNTStudios.deWaltCore.registration;
+
+import com.TNTStudios.deWaltCore.persistence.SafeFiles;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * El almacenamiento de siempre: un registrations/<uuid>.yml por jugador, escrito con {@link SafeFiles}.
+ */
+public class YamlRegistrationStorage implements RegistrationStorage {
+
+    private final File registrationFolder;
+    private final Logger logger;
+
+    public YamlRegistrationStorage(File dataFolder, Logger logger) {
+        this.registrationFolder = new File(dataFolder, "registrations");
+        this.logger = logger;
+        if (!registrationFolder.exists()) {
+            registrationFolder.mkdirs();
+        }
+    }
+
+    @Override
+    public boolean isRegistered(UUID playerUUID) {
+        // Cuento también el respaldo: el archivo puede estar a mitad de un renombrado atómico.
+        return SafeFiles.exists(playerFile(playerUUID));
+    }
+
+    @Override
+    public void saveRegistration(UUID playerUUID, String username, String email, long timestamp) throws IOException {
+        File playerFile = playerFile(playerUUID);
+        // Si el archivo viejo está dañado, SafeFiles recupera la generación anterior en lugar de darme uno vacío.
+        YamlConfiguration playerData = SafeFiles.loadYaml(playerFile, logger);
+        playerData.set("uuid", playerUUID.toString());
+        playerData.set("username", username);
+        playerData.set("email", email);
+        playerData.set("registration_timestamp", timestamp);
+        String readableDate = Instant.ofEpochMilli(timestamp)
+                .atZone(ZoneId.systemDefault())
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z"));
+        playerData.set("registration_date", readableDate);
+
+        SafeFiles.saveYaml(playerData, playerFile);
+    }
+
+    private File playerFile(UUID playerUUID) {
+        return new File(registrationFolder, playerUUID.toString() + ".yml");
+    }
+}
@@ -0,0 +1,100 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.ScoreboardManager;
+import org.bukkit.scoreboard.Team;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * El backend de siempre: un {@link Scoreboard} de Bukkit por jugador.
+ * Cada renglón es un "slot" fijo: una entrada invisible con su puntaje, dentro de un team cuyo prefijo es el texto.
+ * Guardo lo último que le pinté a cada jugador y solo cambio el prefijo de los renglones distintos,
+ * así que cambiar el puesto es un solo paquete en lugar de borrar y volver a poner los ~14 renglones.
+ */
+final class BukkitSidebarBackend implements SidebarBackend {
+
+    private static final String OBJECTIVE_NAME = "dewalt_sb";
+    private static final String TEAM_PREFIX = "dewalt_l";
+
+    private final ScoreboardManager scoreboardManager;
+    private final Map<UUID, Sidebar> scoreboardCache = new ConcurrentHashMap<>();
+
+    BukkitSidebarBackend(ScoreboardManager scoreboardManager) {
+        this.scoreboardManager = scoreboardManager;
+    }
+
+    @Override
+    public void render(Player player, List<String> lines) {
+        Sidebar sidebar = scoreboardCache.computeIfAbsent(player.getUniqueId(), uuid -> new Sidebar(scoreboardManager.getNewScoreboard()));
+        sidebar.render(lines);
+
+        if (player.getScoreboard() != sidebar.scoreboard) {
+            player.setScoreboard(sidebar.scoreboard);
+        }
+    }
+
+    @Override
+    public void clear(Player player) {
+        scoreboardCache.remove(player.getUniqueId());
+        if (player.isOnline()) {
+            player.setScoreboard(scoreboardManager.getMainScoreboard());
+        }
+    }
+
+    /**
+     * El scoreboard de un jugador y los renglones que tiene pintados ahora mismo.
+     */
+    private static final class Sidebar {
+
+        private final Scoreboard scoreboard;
+        private final Objective objective;
+        private final Team[] teams = new Team[DeWaltScoreboardManager.MAX_LINES];
+        // Lo que el cliente ve en cada slot; null si el slot no se está mostrando.
+        private final String[] rendered = new String[DeWaltScoreboardManager.MAX_LINES];
+        private int shownLines = 0;
+
+        private Sidebar(Scoreboard scoreboard) {
+            this.scoreboard = scoreboard;
+            objective = scoreboard.registerNewObjective(OBJECTIVE_NAME, "dummy", ScoreboardStyle.TITLE);
+            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+            for (int i = 0; i < teams.length; i++) {
+                teams[i] = scoreboard.registerNewTeam(TEAM_PREFIX + i);
+                teams[i].addEntry(DeWaltScoreboardManager.slotEntry(i));
+            }
+        }
+
+        /**
+         * Aplico solo las diferencias con lo último que pinté: un prefijo por renglón cambiado,
+         * y solo pongo o quito puntajes si cambió la cantidad de renglones.
+         */
+        private void render(List<String> lines) {
+            int count = Math.min(lines.size(), DeWaltScoreboardManager.MAX_LINES);
+            for (int i = 0; i < count; i++) {
+                String line = lines.get(i);
+                if (!line.equals(rendered[i])) {
+                    teams[i].setPrefix(line);
+                    rendered[i] = line;
+                }
+            }
+
+            // Los puntajes dan el orden (el primer renglón tiene el más alto), así que dependen de la cantidad.
+            if (count != shownLines) {
+                for (int i = 0; i < count; i++) {
+                    objective.getScore(DeWaltScoreboardManager.slotEntry(i)).setScore(count - i);
+                }
+                for (int i = count; i < shownLines; i++) {
+                    scoreboard.resetScores(DeWaltScoreboardManager.slotEntry(i));
+                    rendered[i] = null;
+                }
+                shownLines = count;
+            }
+        }
+    }
+}
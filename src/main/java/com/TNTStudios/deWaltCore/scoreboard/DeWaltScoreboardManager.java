@@ -1,71 +1,82 @@
 // FILE: src/main/java/com/TNTStudios/deWaltCore/scoreboard/DeWaltScoreboardManager.java
 package com.TNTStudios.deWaltCore.scoreboard;
 
-import com.TNTStudios.deWaltCore.points.PointsManager; // Importo mi clase PlayerScore
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.scoreboard.DisplaySlot;
-import org.bukkit.scoreboard.Objective;
-import org.bukkit.scoreboard.Scoreboard;
-import org.bukkit.scoreboard.Team;
+import org.bukkit.plugin.Plugin;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Mi gestor de Scoreboards.
- * OPTIMIZADO: Ahora cacheo el scoreboard de cada jugador para evitar recrearlo
- * constantemente, lo que elimina el parpadeo (flicker) y mejora el rendimiento.
+ * Mi gestor de Scoreboards: la entrada única para pintar o quitar el sidebar de un jugador.
+ * Aquí no guardo nada por jugador; eso lo hace el backend, que solo manda los renglones que cambian
+ * (así no hay parpadeo).
+ * <p>
+ * Cómo llega al cliente depende de scoreboard.backend en config.yml: con {@code bukkit} cada jugador tiene su
+ * Scoreboard de Bukkit ({@link BukkitSidebarBackend}); con {@code packets} mando los paquetes directo y el servidor
+ * solo guarda los renglones de cada uno ({@link PacketSidebarBackend}).
  */
 public class DeWaltScoreboardManager {
 
-    private static final Map<UUID, Scoreboard> scoreboardCache = new ConcurrentHashMap<>();
-    private static final String OBJECTIVE_NAME = "dewalt_sb";
+    // El sidebar de Minecraft no muestra más de 15 renglones.
+    static final int MAX_LINES = 15;
+    // Entradas únicas e invisibles, una por slot: un código de color distinto seguido de un reset.
+    private static final String[] SLOT_ENTRIES = new String[MAX_LINES];
 
-    public static void updateScoreboard(Player player, List<String> lines) {
-        Scoreboard scoreboard = scoreboardCache.computeIfAbsent(player.getUniqueId(), uuid -> {
-            Scoreboard newBoard = Bukkit.getScoreboardManager().getNewScoreboard();
-            Objective objective = newBoard.registerNewObjective(OBJECTIVE_NAME, "dummy", ScoreboardStyle.TITLE);
-            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
-            return newBoard;
-        });
-
-        Objective objective = scoreboard.getObjective(OBJECTIVE_NAME);
-
-        if (objective == null) {
-            objective = scoreboard.registerNewObjective(OBJECTIVE_NAME, "dummy", ScoreboardStyle.TITLE);
-            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+    static {
+        String codes = "0123456789abcde";
+        for (int i = 0; i < MAX_LINES; i++) {
+            SLOT_ENTRIES[i] = "§" + codes.charAt(i) + "§r";
         }
+    }
 
-        // --- LÓGICA DE ACTUALIZACIÓN EFICIENTE ---
-        for (String entry : scoreboard.getEntries()) {
-            scoreboard.resetScores(entry);
-        }
+    // Lo creo al primer uso (o en configure), no al cargar la clase.
+    private static SidebarBackend backend;
 
-        int score = lines.size();
-        for (String line : lines) {
-            objective.getScore(line).setScore(score--);
+    /**
+     * Elijo el backend según la config. Se llama una vez en onEnable, antes de que alguien vea un scoreboard.
+     */
+    public static void configure(Plugin plugin) {
+        String type = plugin.getConfig().getString("scoreboard.backend", "bukkit");
+        backend = new BukkitSidebarBackend(Bukkit.getScoreboardManager());
+        if ("packets".equalsIgnoreCase(type)) {
+            PacketSidebarBackend packets = PacketSidebarBackend.create(plugin.getLogger());
+            if (packets != null) {
+                backend = packets;
+                plugin.getLogger().info("Scoreboard: uso el backend por paquetes.");
+            }
+        } else if (!"bukkit".equalsIgnoreCase(type)) {
+            plugin.getLogger().warning("scoreboard.backend desconocido: " + type + ". Uso 'bukkit'.");
         }
+    }
 
-        if (player.getScoreboard() != scoreboard) {
-            player.setScoreboard(scoreboard);
+    public static void updateScoreboard(Player player, List<String> lines) {
+        backend().render(player, lines);
+        if (backend instanceof PacketSidebarBackend packets && packets.hasFailed()) {
+            // Si los paquetes fallan en esta versión, no lo vuelvo a intentar: todos pasan al de Bukkit.
+            // Antes le quito el sidebar de paquetes a todos; los demás reciben el de Bukkit en su próximo
+            // redibujado (la rotación de páginas los marca a todos).
+            packets.clearAll();
+            backend = new BukkitSidebarBackend(Bukkit.getScoreboardManager());
+            backend.render(player, lines);
         }
     }
 
-    // --- MI CAMBIO ---
-    // Actualizo la firma del método para aceptar la lista del top.
-    public static void showDefaultPage(Player player, int topPosition, int totalPoints, boolean unlockedAll, List<PointsManager.PlayerScore> topPlayers) {
-        List<String> lines = ScoreboardStyle.buildDefaultPageLines(topPosition, totalPoints, unlockedAll, topPlayers);
-        updateScoreboard(player, lines);
+    public static void clear(Player player) {
+        backend().clear(player);
     }
 
-    public static void clear(Player player) {
-        scoreboardCache.remove(player.getUniqueId());
-        if (player.isOnline()) {
-            player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
+    private static SidebarBackend backend() {
+        if (backend == null) {
+            backend = new BukkitSidebarBackend(Bukkit.getScoreboardManager());
         }
+        return backend;
+    }
+
+    /**
+     * La entrada invisible del slot {@code index} (0 es el renglón de arriba).
+     */
+    static String slotEntry(int index) {
+        return SLOT_ENTRIES[index];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,248 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mi backend por paquetes: el servidor no guarda ningún Scoreboard por jugador, solo los renglones
+ * que le mandé a cada uno. Le mando directo los paquetes del objective, del display y de cada puntaje.
+ * <p>
+ * Desde 1.20.3 un puntaje puede llevar su propio texto, así que cada renglón es un solo paquete de puntaje
+ * sobre una entrada fija: ni teams ni prefijos. Cambiar un renglón es un paquete y no toca nada del servidor.
+ * <p>
+ * No hay API de Paper para esto y no dependo de ninguna librería de paquetes, así que uso reflexión sobre
+ * las clases del servidor (con nombres de Mojang, como corre Paper 1.21). Todo se resuelve al arrancar:
+ * si algo no existe en esta versión, {@link #create(Logger)} devuelve null y me quedo con el backend de Bukkit.
+ * La reflexión vive en {@link ReflectivePacketSink}; el diff de renglones solo ve un {@link PacketSink},
+ * así los benchmarks lo miden con una conexión de mentira que cuenta los envíos.
+ */
+final class PacketSidebarBackend implements SidebarBackend {
+
+    private static final String OBJECTIVE_NAME = "dewalt_pk";
+
+    /**
+     * Lo que el backend le manda a un jugador. La conexión se resuelve una vez por redibujado.
+     */
+    interface PacketSink {
+
+        Object connection(Player player) throws ReflectiveOperationException;
+
+        /**
+         * Crea el objective en el cliente y lo pone en el sidebar.
+         */
+        void showObjective(Object connection) throws ReflectiveOperationException;
+
+        void removeObjective(Object connection) throws ReflectiveOperationException;
+
+        void setScore(Object connection, String entry, int score, String text) throws ReflectiveOperationException;
+
+        void resetScore(Object connection, String entry) throws ReflectiveOperationException;
+    }
+
+    private final Logger logger;
+    private final PacketSink sink;
+
+    // Lo único que guardo por jugador: lo que ve en cada slot (null si ese slot no se muestra).
+    private final Map<UUID, String[]> rendered = new ConcurrentHashMap<>();
+    private boolean failed = false;
+
+    PacketSidebarBackend(Logger logger, PacketSink sink) {
+        this.logger = logger;
+        this.sink = sink;
+    }
+
+    /**
+     * @return El backend, o null si esta versión del servidor no tiene lo que necesito.
+     */
+    static PacketSidebarBackend create(Logger logger) {
+        try {
+            return new PacketSidebarBackend(logger, new ReflectivePacketSink());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.WARNING, "El backend de scoreboard por paquetes no es compatible con este servidor; uso el de Bukkit.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Si algún envío falla a mitad de partida, dejo de usar este backend (ver {@link DeWaltScoreboardManager}).
+     */
+    boolean hasFailed() {
+        return failed;
+    }
+
+    @Override
+    public void render(Player player, List<String> lines) {
+        try {
+            Object connection = sink.connection(player);
+            String[] shown = rendered.get(player.getUniqueId());
+            if (shown == null) {
+                shown = new String[DeWaltScoreboardManager.MAX_LINES];
+                rendered.put(player.getUniqueId(), shown);
+                sink.showObjective(connection);
+            }
+
+            int count = Math.min(lines.size(), DeWaltScoreboardManager.MAX_LINES);
+            int shownCount = countShown(shown);
+            for (int i = 0; i < count; i++) {
+                String line = lines.get(i);
+                // Si cambió la cantidad, cambia el puntaje (el orden) de todos: reenvío todos.
+                if (count != shownCount || !line.equals(shown[i])) {
+                    sink.setScore(connection, DeWaltScoreboardManager.slotEntry(i), count - i, line);
+                    shown[i] = line;
+                }
+            }
+            for (int i = count; i < shownCount; i++) {
+                sink.resetScore(connection, DeWaltScoreboardManager.slotEntry(i));
+                shown[i] = null;
+            }
+        } catch (ReflectiveOperationException e) {
+            failed = true;
+            logger.log(Level.SEVERE, "No pude mandar el scoreboard por paquetes a " + player.getName() + "; vuelvo al de Bukkit.", e);
+        }
+    }
+
+    @Override
+    public void clear(Player player) {
+        if (rendered.remove(player.getUniqueId()) == null || !player.isOnline()) {
+            return;
+        }
+        try {
+            sink.removeObjective(sink.connection(player));
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "No pude quitar el scoreboard de " + player.getName(), e);
+        }
+    }
+
+    /**
+     * Antes de cambiar de backend: le quito mi objective a todos los que lo tienen, para que no se quede
+     * un sidebar de paquetes congelado debajo del de Bukkit. Si el envío falla (por eso cambio de backend),
+     * sigo con los demás; el cliente lo pierde igual al reconectar.
+     */
+    void clearAll() {
+        int notRemoved = 0;
+        for (UUID uuid : rendered.keySet()) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !player.isOnline()) {
+                continue;
+            }
+            try {
+                sink.removeObjective(sink.connection(player));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                notRemoved++;
+            }
+        }
+        rendered.clear();
+        if (notRemoved > 0) {
+            logger.warning("No pude quitar el scoreboard por paquetes a " + notRemoved + " jugadores; lo pierden al reconectar.");
+        }
+    }
+
+    /**
+     * Cuántos renglones tiene el jugador ahora mismo (los slots se llenan de arriba hacia abajo).
+     */
+    private static int countShown(String[] shown) {
+        int count = 0;
+        while (count < shown.length && shown[count] != null) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Los paquetes de verdad, armados por reflexión sobre las clases del servidor.
+     */
+    private static final class ReflectivePacketSink implements PacketSink {
+
+        private static final int METHOD_ADD = 0;
+        private static final int METHOD_REMOVE = 1;
+
+        private final Method getHandle;
+        private final Field connectionField;
+        private final Method send;
+        private final Method fromLegacy;
+        private final Constructor<?> setScorePacket;
+        private final Constructor<?> resetScorePacket;
+        // Los paquetes del objective son iguales para todos: los armo una vez.
+        private final Object addObjectivePacket;
+        private final Object displayObjectivePacket;
+        private final Object removeObjectivePacket;
+
+        ReflectivePacketSink() throws ReflectiveOperationException {
+            ClassLoader loader = Bukkit.getServer().getClass().getClassLoader();
+            Class<?> componentClass = Class.forName("net.minecraft.network.chat.Component", true, loader);
+            Class<?> packetClass = Class.forName("net.minecraft.network.protocol.Packet", true, loader);
+            Class<?> scoreboardClass = Class.forName("net.minecraft.world.scores.Scoreboard", true, loader);
+            Class<?> objectiveClass = Class.forName("net.minecraft.world.scores.Objective", true, loader);
+            Class<?> criteriaClass = Class.forName("net.minecraft.world.scores.criteria.ObjectiveCriteria", true, loader);
+            Class<?> renderTypeClass = Class.forName("net.minecraft.world.scores.criteria.ObjectiveCriteria$RenderType", true, loader);
+            Class<?> numberFormatClass = Class.forName("net.minecraft.network.chat.numbers.NumberFormat", true, loader);
+            Class<?> displaySlotClass = Class.forName("net.minecraft.world.scores.DisplaySlot", true, loader);
+            Class<?> serverPlayerClass = Class.forName("net.minecraft.server.level.ServerPlayer", true, loader);
+
+            this.getHandle = Class.forName("org.bukkit.craftbukkit.entity.CraftPlayer", true, loader).getMethod("getHandle");
+            this.connectionField = serverPlayerClass.getField("connection");
+            this.send = connectionField.getType().getMethod("send", packetClass);
+            this.fromLegacy = Class.forName("org.bukkit.craftbukkit.util.CraftChatMessage", true, loader)
+                    .getMethod("fromStringOrNull", String.class);
+            this.setScorePacket = Class.forName("net.minecraft.network.protocol.game.ClientboundSetScorePacket", true, loader)
+                    .getConstructor(String.class, String.class, int.class, Optional.class, Optional.class);
+            this.resetScorePacket = Class.forName("net.minecraft.network.protocol.game.ClientboundResetScorePacket", true, loader)
+                    .getConstructor(String.class, String.class);
+
+            Object objective = objectiveClass
+                    .getConstructor(scoreboardClass, String.class, criteriaClass, componentClass, renderTypeClass, boolean.class, numberFormatClass)
+                    .newInstance(scoreboardClass.getConstructor().newInstance(), OBJECTIVE_NAME, criteriaClass.getField("DUMMY").get(null),
+                            fromLegacy.invoke(null, ScoreboardStyle.TITLE), enumConstant(renderTypeClass, "INTEGER"), false, null);
+            Constructor<?> setObjectivePacket = Class.forName("net.minecraft.network.protocol.game.ClientboundSetObjectivePacket", true, loader)
+                    .getConstructor(objectiveClass, int.class);
+            this.addObjectivePacket = setObjectivePacket.newInstance(objective, METHOD_ADD);
+            this.removeObjectivePacket = setObjectivePacket.newInstance(objective, METHOD_REMOVE);
+            this.displayObjectivePacket = Class.forName("net.minecraft.network.protocol.game.ClientboundSetDisplayObjectivePacket", true, loader)
+                    .getConstructor(displaySlotClass, objectiveClass)
+                    .newInstance(enumConstant(displaySlotClass, "SIDEBAR"), objective);
+        }
+
+        @Override
+        public Object connection(Player player) throws ReflectiveOperationException {
+            return connectionField.get(getHandle.invoke(player));
+        }
+
+        @Override
+        public void showObjective(Object connection) throws ReflectiveOperationException {
+            send.invoke(connection, addObjectivePacket);
+            send.invoke(connection, displayObjectivePacket);
+        }
+
+        @Override
+        public void removeObjective(Object connection) throws ReflectiveOperationException {
+            send.invoke(connection, removeObjectivePacket);
+        }
+
+        @Override
+        public void setScore(Object connection, String entry, int score, String text) throws ReflectiveOperationException {
+            send.invoke(connection, setScorePacket.newInstance(entry, OBJECTIVE_NAME, score,
+                    Optional.ofNullable(fromLegacy.invoke(null, text)), Optional.empty()));
+        }
+
+        @Override
+        public void resetScore(Object connection, String entry) throws ReflectiveOperationException {
+            send.invoke(connection, resetScorePacket.newInstance(entry, OBJECTIVE_NAME));
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumConstant(Class<?> enumClass, String name) {
+            return Enum.valueOf((Class) enumClass, name);
+        }
+    }
+}
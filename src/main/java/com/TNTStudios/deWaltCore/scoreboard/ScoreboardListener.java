@@ -3,41 +3,91 @@ package com.TNTStudios.deWaltCore.scoreboard;
 
 import com.TNTStudios.deWaltCore.DeWaltCore;
 import com.TNTStudios.deWaltCore.points.PointsManager;
+import com.TNTStudios.deWaltCore.points.event.LeaderboardTopChangeEvent;
+import com.TNTStudios.deWaltCore.points.event.PlayerPointsChangeEvent;
+import com.TNTStudios.deWaltCore.points.event.PlayerRankChangeEvent;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.List;
-
 public class ScoreboardListener implements Listener {
 
+    // --- MI REFRESCO POR EVENTOS ---
+    // Los eventos del leaderboard y los joins solo marcan al jugador; el scheduler junta los repetidos
+    // y reparte los redibujados entre ticks. Qué página se dibuja lo decide ScoreboardPages.
+    private final ScoreboardPages pages;
+    private final ScoreboardRefreshScheduler refreshScheduler;
+
+    public ScoreboardListener(DeWaltCore plugin) {
+        this.pages = new ScoreboardPages(plugin.getConfig().getInt("scoreboard.page-seconds", 8));
+        this.refreshScheduler = new ScoreboardRefreshScheduler(plugin,
+                plugin.getConfig().getInt("scoreboard.refreshes-per-tick", 20), pages::render);
+        pages.start(plugin, refreshScheduler);
+    }
+
+    /**
+     * Dejo los datos de puntos en el caché antes de que el jugador llegue al hilo principal.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        PointsManager pointsManager = DeWaltCore.getPointsManager();
+        if (pointsManager != null && event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            pointsManager.prefetchPlayerData(event.getUniqueId(), event.getName());
+        }
+    }
+
+    /**
+     * Si el login se rechaza después del pre-login, el quit nunca llega: suelto aquí lo que precargué.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        PointsManager pointsManager = DeWaltCore.getPointsManager();
+        if (pointsManager != null && event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            pointsManager.discardPrefetchedData(event.getPlayer().getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         PointsManager pointsManager = DeWaltCore.getPointsManager();
 
-        // Le digo a mi PointsManager que cargue los datos de este jugador en el caché.
+        // Normalmente ya están precargados desde el pre-login; esto solo cubre el caso en que no.
         pointsManager.loadPlayerData(player);
 
-        // Ahora obtengo los datos cacheados. Esto es instantáneo.
-        int totalPoints = pointsManager.getTotalPoints(player);
-        int topPosition = pointsManager.getPlayerRank(player);
-        boolean hasUnlockedAll = checkIfUnlockedAll(player);
+        // Muestro su página en cuanto haya cupo.
+        refreshScheduler.markDirty(player.getUniqueId());
+    }
+
+    /**
+     * El top se ve en el scoreboard de todos, así que este es el único caso en que redibujo a todos.
+     */
+    @EventHandler
+    public void onTopChange(LeaderboardTopChangeEvent event) {
+        refreshScheduler.markAllDirty();
+    }
 
-        // --- MI CAMBIO ---
-        // Obtengo los 3 mejores jugadores para mostrarlos.
-        List<PointsManager.PlayerScore> topPlayers = pointsManager.getTopPlayers(3);
+    @EventHandler
+    public void onRankChange(PlayerRankChangeEvent event) {
+        refreshScheduler.markDirty(event.getUniqueId());
+    }
 
-        // Muestro el scoreboard usando el nuevo método optimizado.
-        DeWaltScoreboardManager.showDefaultPage(player, topPosition, totalPoints, hasUnlockedAll, topPlayers);
+    @EventHandler
+    public void onPointsChange(PlayerPointsChangeEvent event) {
+        refreshScheduler.markDirty(event.getUniqueId());
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
         // Limpio el scoreboard del jugador que se va.
+        refreshScheduler.forget(player.getUniqueId());
+        pages.forget(player.getUniqueId());
         DeWaltScoreboardManager.clear(player);
 
         // Le digo a mi PointsManager que puede liberar los datos de este jugador del caché.
@@ -46,9 +96,4 @@ public class ScoreboardListener implements Listener {
             pointsManager.unloadPlayerData(player);
         }
     }
-
-    private boolean checkIfUnlockedAll(Player player) {
-        // Tu lógica para comprobar si desbloqueó todo va aquí.
-        return false;
-    }
 }
\ No newline at end of file
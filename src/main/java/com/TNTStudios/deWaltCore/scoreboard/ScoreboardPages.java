@@ -0,0 +1,204 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import com.TNTStudios.deWaltCore.DeWaltCore;
+import com.TNTStudios.deWaltCore.points.LeaderboardSnapshot;
+import com.TNTStudios.deWaltCore.points.LeaderboardWindow;
+import com.TNTStudios.deWaltCore.points.Minigame;
+import com.TNTStudios.deWaltCore.points.MinigameBoard;
+import com.TNTStudios.deWaltCore.points.PointsManager;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Mis páginas del sidebar y su rotación: el top general, las mejores marcas del jugador por minijuego
+ * y, mientras está en una ronda, sus estadísticas en vivo.
+ * <p>
+ * Cada página es una {@link SidebarTemplate} compilada en {@link ScoreboardStyle}. Para cada jugador guardo
+ * la página y los valores de los huecos que le mostré; si al redibujar salen iguales, no hago nada,
+ * y si no, el backend solo manda los renglones que cambiaron.
+ * <p>
+ * Una sola tarea, una vez por segundo, cambia la página de todos cada {@code pageSeconds} segundos
+ * y refresca las estadísticas en vivo de quien las está viendo. Los redibujados pasan por el
+ * {@link ScoreboardRefreshScheduler}, así que una rotación con 200 jugadores también se reparte entre ticks.
+ * Todo vive en el hilo principal.
+ */
+public class ScoreboardPages {
+
+    /**
+     * Lo que un minijuego muestra en la página en vivo: un título y dos datos.
+     */
+    public record LiveStats(String title, String firstLabel, String firstValue, String secondLabel, String secondValue) {
+    }
+
+    /**
+     * Cada minijuego registra uno. Devuelve null si el jugador no está en una ronda de ese minijuego.
+     */
+    @FunctionalInterface
+    public interface LiveStatsProvider {
+        LiveStats getLiveStats(UUID uuid);
+    }
+
+    private enum Page {
+        TOP, BESTS, LIVE
+    }
+
+    private static final List<LiveStatsProvider> liveStatsProviders = new CopyOnWriteArrayList<>();
+
+    private final int pageSeconds;
+    private final Map<UUID, View> views = new HashMap<>();
+    private ScoreboardRefreshScheduler refreshScheduler;
+    private int rotation = 0;
+    private int secondsOnPage = 0;
+
+    // Lo último que le mostré a un jugador.
+    private static final class View {
+        private Page page;
+        private String[] values;
+    }
+
+    public ScoreboardPages(int pageSeconds) {
+        this.pageSeconds = Math.max(1, pageSeconds);
+    }
+
+    /**
+     * Los minijuegos se registran al crearse; las estadísticas se piden solo al dibujar la página.
+     */
+    public static void registerLiveStats(LiveStatsProvider provider) {
+        liveStatsProviders.add(provider);
+    }
+
+    /**
+     * Al apagar el plugin: los minijuegos se vuelven a registrar en el siguiente arranque,
+     * así que después de un /reload no quedan proveedores repetidos ni los de la instancia vieja.
+     */
+    public static void clearLiveStats() {
+        liveStatsProviders.clear();
+    }
+
+    /**
+     * Arranca el ticker global de rotación.
+     */
+    void start(Plugin plugin, ScoreboardRefreshScheduler refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 20L, 20L);
+    }
+
+    /**
+     * Dibuja la página que le toca al jugador. Si los valores son los mismos que ya ve, no manda nada.
+     */
+    void render(Player player) {
+        PointsManager pointsManager = DeWaltCore.getPointsManager();
+        if (pointsManager == null) {
+            return;
+        }
+        LiveStats live = findLiveStats(player.getUniqueId());
+        Page page = pageFor(live != null);
+
+        String[] values = switch (page) {
+            case TOP -> fillTop(pointsManager, player);
+            case BESTS -> fillBests(pointsManager, player);
+            case LIVE -> fillLive(pointsManager, player, live);
+        };
+
+        View view = views.computeIfAbsent(player.getUniqueId(), uuid -> new View());
+        if (view.page == page && Arrays.equals(view.values, values)) {
+            return;
+        }
+        view.page = page;
+        view.values = values;
+        DeWaltScoreboardManager.updateScoreboard(player, templateFor(page).render(values));
+    }
+
+    /**
+     * El jugador salió: olvido lo que le mostré.
+     */
+    void forget(UUID uuid) {
+        views.remove(uuid);
+    }
+
+    // --- MÉTODOS INTERNOS ---
+
+    private void tick() {
+        if (++secondsOnPage >= pageSeconds) {
+            secondsOnPage = 0;
+            rotation++;
+            refreshScheduler.markAllDirty();
+            return;
+        }
+        // Las estadísticas en vivo cambian cada segundo; el resto de páginas se refresca con los eventos.
+        for (Map.Entry<UUID, View> entry : views.entrySet()) {
+            if (entry.getValue().page == Page.LIVE) {
+                refreshScheduler.markDirty(entry.getKey());
+            }
+        }
+    }
+
+    // La misma rotación para todos; quien no está en una ronda se salta la página en vivo.
+    private Page pageFor(boolean inRound) {
+        int pages = inRound ? 3 : 2;
+        return Page.values()[rotation % pages];
+    }
+
+    private static SidebarTemplate templateFor(Page page) {
+        return switch (page) {
+            case TOP -> ScoreboardStyle.TOP_PAGE;
+            case BESTS -> ScoreboardStyle.BESTS_PAGE;
+            case LIVE -> ScoreboardStyle.LIVE_PAGE;
+        };
+    }
+
+    private static LiveStats findLiveStats(UUID uuid) {
+        for (LiveStatsProvider provider : liveStatsProviders) {
+            LiveStats stats = provider.getLiveStats(uuid);
+            if (stats != null) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    private static String[] fillTop(PointsManager pointsManager, Player player) {
+        // Leo una sola versión del leaderboard para que el puesto y el top cuadren entre sí.
+        LeaderboardSnapshot leaderboard = pointsManager.getLeaderboardSnapshot();
+        int topPosition = leaderboard.getRank(player.getUniqueId());
+        return ScoreboardStyle.fillTopPage(ScoreboardStyle.getTopSegment(leaderboard), topPosition,
+                pointsManager.getTotalPoints(player), checkIfUnlockedAll(player));
+    }
+
+    private static String[] fillBests(PointsManager pointsManager, Player player) {
+        Minigame[] minigames = Minigame.values();
+        String[] values = new String[ScoreboardStyle.BESTS_PAGE.getSlotCount()];
+        for (int i = 0; i < minigames.length; i++) {
+            MinigameBoard board = pointsManager.getMinigameBoard(minigames[i], LeaderboardWindow.EVENT);
+            MinigameBoard.Entry best = board.get(player.getUniqueId());
+            values[i] = (best != null)
+                    ? ScoreboardStyle.formatBest(minigames[i], best.value(), board.getRank(player.getUniqueId()))
+                    : ScoreboardStyle.formatBest(minigames[i], 0, 0);
+        }
+        values[minigames.length] = String.valueOf(pointsManager.getTotalPoints(player));
+        return values;
+    }
+
+    private static String[] fillLive(PointsManager pointsManager, Player player, LiveStats live) {
+        return new String[]{live.title(), live.firstLabel(), live.firstValue(), live.secondLabel(), live.secondValue(),
+                String.valueOf(pointsManager.getTotalPoints(player))};
+    }
+
+    private static boolean checkIfUnlockedAll(Player player) {
+        // Tu lógica para comprobar si desbloqueó todo va aquí.
+        return false;
+    }
+}
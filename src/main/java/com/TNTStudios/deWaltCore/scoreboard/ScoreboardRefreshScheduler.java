@@ -0,0 +1,93 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Mi único punto de entrada para redibujar scoreboards.
+ * Nadie redibuja directamente: se marca al jugador como pendiente y esta tarea redibuja como mucho
+ * {@code budgetPerTick} jugadores por tick, en el orden en que se pidieron. Pedir dos veces el mismo
+ * jugador antes de que le toque cuenta como una sola vez, así que un final de ronda con 200 jugadores
+ * se reparte en varios ticks en lugar de caer entero en uno.
+ * <p>
+ * Todo vive en el hilo principal. La tarea solo corre mientras hay pendientes.
+ */
+public class ScoreboardRefreshScheduler {
+
+    private final Plugin plugin;
+    private final int budgetPerTick;
+    private final Consumer<Player> renderer;
+    // Mantiene el orden de llegada y descarta repetidos.
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private BukkitTask task;
+
+    public ScoreboardRefreshScheduler(Plugin plugin, int budgetPerTick, Consumer<Player> renderer) {
+        this.plugin = plugin;
+        this.budgetPerTick = Math.max(1, budgetPerTick);
+        this.renderer = renderer;
+    }
+
+    /**
+     * Pide redibujar el scoreboard de un jugador en los próximos ticks.
+     */
+    public void markDirty(UUID uuid) {
+        dirty.add(uuid);
+        ensureRunning();
+    }
+
+    /**
+     * Pide redibujar a todos los jugadores online (por ejemplo, cuando cambia el top que ven todos).
+     */
+    public void markAllDirty() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            dirty.add(player.getUniqueId());
+        }
+        ensureRunning();
+    }
+
+    /**
+     * El jugador salió: ya no hay nada que redibujarle.
+     */
+    public void forget(UUID uuid) {
+        dirty.remove(uuid);
+    }
+
+    private void ensureRunning() {
+        if (task != null || dirty.isEmpty()) {
+            return;
+        }
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    private void drain() {
+        int rendered = 0;
+        Iterator<UUID> iterator = dirty.iterator();
+        while (iterator.hasNext() && rendered < budgetPerTick) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                renderer.accept(player);
+                rendered++;
+            }
+        }
+        if (dirty.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.TNTStudios.deWaltCore.scoreboard;
 
+import com.TNTStudios.deWaltCore.points.LeaderboardSnapshot;
+import com.TNTStudios.deWaltCore.points.Minigame;
+import com.TNTStudios.deWaltCore.points.PointsManager;
 import com.TNTStudios.deWaltCore.points.PointsManager.PlayerScore;
 
 import java.util.ArrayList;
@@ -9,15 +12,133 @@ public class ScoreboardStyle {
 
     public static final String TITLE = "ᚏ";
 
-    // --- MI CAMBIO ---
-    // Añado la lista del top como parámetro.
-    public static List<String> buildDefaultPageLines(int topPosition, int points, boolean unlockedAll, List<PlayerScore> topPlayers) {
-        List<String> lines = new ArrayList<>();
-        String[] topColors = {"§e", "§7", "§c"}; // Colores para #1, #2, #3
+    private static final String[] TOP_COLORS = {"§e", "§7", "§c"}; // Colores para #1, #2, #3
+
+    // --- MIS RENGLONES FIJOS ---
+    // Son iguales para todos, así que los armo una sola vez.
+    private static final String TOP_LINE = "§8━━━━━━━━━━━━━━━━━━━━§f "; // Añadí un espacio con color blanco al final para evitar problemas en algunas versiones de cliente
+    private static final String BOTTOM_LINE = "§8━━━━━━━━━━━━━━━━━━━━";
+    private static final String[] UNLOCKED_LINES = {"§aTienes todos los juegos", "§adesbloqueados", null};
+    private static final String[] LOCKED_LINES = {"§cVe a la zona de", "§caprendizaje para", "§cdesbloquear los juegos"};
+    private static final String UNRANKED_LINE = "§c  Sin clasificar";
+    private static final String NOT_PLAYED = "§7Sin jugar";
+
+    // Nombres para mostrar, por ordinal de Minigame.
+    private static final String[] MINIGAME_NAMES = {"Laberinto", "Taladro", "Concreto", "Madera"};
+
+    // --- MIS PLANTILLAS DE PÁGINA ---
+    // Cada página se compila una vez; por jugador solo se llenan los huecos.
+    static final SidebarTemplate TOP_PAGE = SidebarTemplate.compile(List.of(
+            TOP_LINE,
+            "§6§lTOP 3 GENERAL",
+            "{top1}",
+            "{top2}",
+            "{top3}",
+            "§8 ", // espacio
+            "§7Tu posición en el top:",
+            "{position}",
+            "§1 ", // Otro espacio
+            "{unlock1}",
+            "{unlock2}",
+            "{unlock3}",
+            BOTTOM_LINE
+    ), "top1", "top2", "top3", "position", "unlock1", "unlock2", "unlock3");
+
+    static final SidebarTemplate BESTS_PAGE = SidebarTemplate.compile(List.of(
+            TOP_LINE,
+            "§6§lTUS MEJORES MARCAS",
+            "§e" + MINIGAME_NAMES[0] + ": {best0}",
+            "§e" + MINIGAME_NAMES[1] + ": {best1}",
+            "§e" + MINIGAME_NAMES[2] + ": {best2}",
+            "§e" + MINIGAME_NAMES[3] + ": {best3}",
+            "§8 ",
+            "§7Puntos totales: §f{points}",
+            BOTTOM_LINE
+    ), "best0", "best1", "best2", "best3", "points");
+
+    static final SidebarTemplate LIVE_PAGE = SidebarTemplate.compile(List.of(
+            TOP_LINE,
+            "§6§l{title}",
+            "§8 ",
+            "§7{firstLabel}: §f{firstValue}",
+            "§7{secondLabel}: §f{secondValue}",
+            "§1 ",
+            "§7Puntos totales: §f{points}",
+            BOTTOM_LINE
+    ), "title", "firstLabel", "firstValue", "secondLabel", "secondValue", "points");
+
+    private static final SidebarTemplate POSITION_LINE = SidebarTemplate.compile(List.of("§e  #{rank} §7con §f{points} §7pts"), "rank", "points");
+    private static final SidebarTemplate BEST_VALUE = SidebarTemplate.compile(List.of("§f{value} §7(#{rank})"), "value", "rank");
+
+    // --- MI SEGMENTO DEL TOP COMPARTIDO ---
+    // El "TOP 3 GENERAL" es igual en todos los scoreboards: lo formateo una vez por versión del leaderboard
+    // y todos los jugadores comparten la misma lista. Solo el hilo principal lo escribe.
+    private static volatile TopSegment topSegment = new TopSegment(-1, null, List.of());
+
+    private record TopSegment(long version, List<PlayerScore> topPlayers, List<String> lines) {
+    }
+
+    /**
+     * Las líneas del top para esta versión del leaderboard. Solo las formateo de nuevo si el top cambió;
+     * si la versión es nueva pero el top es el mismo, reutilizo las que ya tenía.
+     */
+    public static List<String> getTopSegment(LeaderboardSnapshot snapshot) {
+        TopSegment cached = topSegment;
+        if (cached.version() == snapshot.getVersion()) {
+            return cached.lines();
+        }
+        List<PlayerScore> topPlayers = snapshot.getTop(PointsManager.TOP_EVENT_SIZE);
+        List<String> lines = topPlayers.equals(cached.topPlayers()) ? cached.lines() : buildTopSegment(topPlayers);
+        topSegment = new TopSegment(snapshot.getVersion(), topPlayers, lines);
+        return lines;
+    }
+
+    /**
+     * Armo la página por defecto con el segmento del top ya formateado.
+     * Lo único que construyo por jugador es la línea de su posición.
+     */
+    public static List<String> buildDefaultPageLines(List<String> topSegment, int topPosition, int points, boolean unlockedAll) {
+        return TOP_PAGE.render(fillTopPage(topSegment, topPosition, points, unlockedAll));
+    }
+
+    /**
+     * Los valores de los huecos de {@link #TOP_PAGE}.
+     */
+    static String[] fillTopPage(List<String> topSegment, int topPosition, int points, boolean unlockedAll) {
+        String[] unlock = unlockedAll ? UNLOCKED_LINES : LOCKED_LINES;
+        return new String[]{
+                segmentLine(topSegment, 0), segmentLine(topSegment, 1), segmentLine(topSegment, 2),
+                (topPosition > 0) ? POSITION_LINE.render(String.valueOf(topPosition), String.valueOf(points)).get(0) : UNRANKED_LINE,
+                unlock[0], unlock[1], unlock[2]
+        };
+    }
 
-        lines.add("§8━━━━━━━━━━━━━━━━━━━━§f "); // Añadí un espacio con color blanco al final para evitar problemas en algunas versiones de cliente
+    /**
+     * El valor de una mejor marca para {@link #BESTS_PAGE}: el tiempo o la puntuación y el puesto en el evento.
+     */
+    static String formatBest(Minigame minigame, int value, int rank) {
+        if (rank <= 0) {
+            return NOT_PLAYED;
+        }
+        String formatted = minigame.isLowerBetter() ? formatTime(value) : String.valueOf(value);
+        return BEST_VALUE.render(formatted, String.valueOf(rank)).get(0);
+    }
 
-        lines.add("§6§lTOP 3 GENERAL");
+    /**
+     * mm:ss, igual que en el laberinto, pero sin String.format.
+     */
+    public static String formatTime(int seconds) {
+        int minutes = seconds / 60;
+        int secs = seconds % 60;
+        return ((minutes < 10) ? "0" : "") + minutes + ":" + ((secs < 10) ? "0" : "") + secs;
+    }
+
+    private static String segmentLine(List<String> topSegment, int index) {
+        return (index < topSegment.size()) ? topSegment.get(index) : null;
+    }
+
+    private static List<String> buildTopSegment(List<PlayerScore> topPlayers) {
+        List<String> lines = new ArrayList<>();
         if (topPlayers.isEmpty()) {
             lines.add("§c  Aún no hay nadie");
             lines.add("§c  en el top.");
@@ -26,33 +147,10 @@ public class ScoreboardStyle {
                 PlayerScore score = topPlayers.get(i);
                 // Limito el nombre para que no se salga del scoreboard
                 String playerName = score.playerName().length() > 12 ? score.playerName().substring(0, 12) : score.playerName();
-                String color = (i < topColors.length) ? topColors[i] : "§f";
+                String color = (i < TOP_COLORS.length) ? TOP_COLORS[i] : "§f";
                 lines.add(String.format("%s #%d §f%s §7- §f%d pts", color, i + 1, playerName, score.points()));
             }
         }
-
-        lines.add("§8 "); // espacio
-
-        lines.add("§7Tu posición en el top:");
-        if (topPosition > 0) {
-            lines.add("§e  #" + topPosition + " §7con §f" + points + " §7pts");
-        } else {
-            lines.add("§c  Sin clasificar");
-        }
-
-        lines.add("§1 "); // Otro espacio
-
-        if (unlockedAll) {
-            lines.add("§aTienes todos los juegos");
-            lines.add("§adesbloqueados");
-        } else {
-            lines.add("§cVe a la zona de");
-            lines.add("§caprendizaje para");
-            lines.add("§cdesbloquear los juegos");
-        }
-
-        lines.add("§8━━━━━━━━━━━━━━━━━━━━");
-
-        return lines;
+        return List.copyOf(lines);
     }
-}
\ No newline at end of file
+}
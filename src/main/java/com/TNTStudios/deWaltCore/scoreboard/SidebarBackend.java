@@ -0,0 +1,23 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Cómo le llega el sidebar al cliente. Las dos implementaciones aplican solo las diferencias
+ * con lo último que le pintaron a cada jugador; cambian en qué guarda el servidor por jugador.
+ * Solo se usa desde el hilo principal.
+ */
+interface SidebarBackend {
+
+    /**
+     * Pinta {@code lines} (de arriba hacia abajo, como mucho 15) en el sidebar del jugador.
+     */
+    void render(Player player, List<String> lines);
+
+    /**
+     * Quita el sidebar y olvida todo lo que guardaba del jugador.
+     */
+    void clear(Player player);
+}
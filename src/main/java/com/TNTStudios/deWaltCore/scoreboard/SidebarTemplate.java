@@ -0,0 +1,92 @@
+package com.TNTStudios.deWaltCore.scoreboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una página del sidebar ya compilada: renglones de texto con huecos {@code {nombre}} que se llenan por jugador.
+ * El texto se parte una sola vez al compilar; llenar la página es concatenar pedazos, sin buscar ni formatear nada,
+ * y los renglones sin huecos se devuelven siempre como la misma instancia.
+ * <p>
+ * Un renglón que es solo un hueco desaparece si su valor es null (para listas de largo variable, como el top).
+ */
+final class SidebarTemplate {
+
+    private final List<String> slotNames;
+    // Por renglón: los pedazos de texto fijo y, entre ellos, el índice del hueco que va en medio.
+    private final String[][] literals;
+    private final int[][] slots;
+
+    private SidebarTemplate(List<String> slotNames, String[][] literals, int[][] slots) {
+        this.slotNames = slotNames;
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * @param lines     Los renglones, de arriba hacia abajo.
+     * @param slotNames Los huecos en el orden en que llegan sus valores a {@link #render(String...)}.
+     */
+    static SidebarTemplate compile(List<String> lines, String... slotNames) {
+        List<String> names = List.of(slotNames);
+        String[][] literals = new String[lines.size()][];
+        int[][] slots = new int[lines.size()][];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            List<String> parts = new ArrayList<>();
+            List<Integer> lineSlots = new ArrayList<>();
+            int start = 0;
+            int open = line.indexOf('{');
+            while (open != -1) {
+                int close = line.indexOf('}', open);
+                if (close == -1) {
+                    break;
+                }
+                int slot = names.indexOf(line.substring(open + 1, close));
+                if (slot == -1) {
+                    throw new IllegalArgumentException("Hueco desconocido en la plantilla: " + line);
+                }
+                parts.add(line.substring(start, open));
+                lineSlots.add(slot);
+                start = close + 1;
+                open = line.indexOf('{', start);
+            }
+            parts.add(line.substring(start));
+            literals[i] = parts.toArray(new String[0]);
+            slots[i] = lineSlots.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new SidebarTemplate(names, literals, slots);
+    }
+
+    int getSlotCount() {
+        return slotNames.size();
+    }
+
+    /**
+     * Llena la página con {@code values}, en el orden de los huecos de {@link #compile(List, String...)}.
+     */
+    List<String> render(String... values) {
+        List<String> lines = new ArrayList<>(literals.length);
+        for (int i = 0; i < literals.length; i++) {
+            String[] parts = literals[i];
+            int[] lineSlots = slots[i];
+            if (lineSlots.length == 0) {
+                lines.add(parts[0]);
+                continue;
+            }
+            if (lineSlots.length == 1 && parts[0].isEmpty() && parts[1].isEmpty()) {
+                // Un renglón que es solo un hueco: uso el valor tal cual, o lo salto si no hay.
+                if (values[lineSlots[0]] != null) {
+                    lines.add(values[lineSlots[0]]);
+                }
+                continue;
+            }
+            StringBuilder line = new StringBuilder(48);
+            for (int j = 0; j < lineSlots.length; j++) {
+                line.append(parts[j]).append(values[lineSlots[j]]);
+            }
+            lines.add(line.append(parts[lineSlots.length]).toString());
+        }
+        return lines;
+    }
+}
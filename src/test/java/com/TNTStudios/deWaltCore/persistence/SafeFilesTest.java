@@ -0,0 +1,98 @@
+package com.TNTStudios.deWaltCore.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la escritura segura: cabecera con CRC, respaldo de la generación anterior y archivos sin cabecera.
+ */
+class SafeFilesTest {
+
+    @TempDir
+    File folder;
+
+    private final Logger logger = Logger.getLogger("SafeFilesTest");
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        File target = new File(folder, "points.yml");
+        SafeFiles.write(target, bytes("primera"));
+        SafeFiles.write(target, bytes("segunda"));
+
+        assertEquals("segunda", text(SafeFiles.read(target, logger)));
+        assertTrue(Files.readString(target.toPath()).startsWith("#DWSF gen=2 "));
+        assertFalse(new File(folder, "points.yml.tmp").exists());
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenTheFileIsTruncated() throws IOException {
+        File target = new File(folder, "points.yml");
+        SafeFiles.write(target, bytes("primera"));
+        SafeFiles.write(target, bytes("segunda"));
+
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertEquals("primera", text(SafeFiles.read(target, logger)));
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenTheChecksumFails() throws IOException {
+        File target = new File(folder, "points.yml");
+        SafeFiles.write(target, bytes("primera"));
+        SafeFiles.write(target, bytes("segunda"));
+
+        // Mismo tamaño, un byte distinto: solo el CRC lo detecta.
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.seek(file.length() - 1);
+            file.write('X');
+        }
+        assertEquals("primera", text(SafeFiles.read(target, logger)));
+    }
+
+    @Test
+    void returnsNullWhenNoGenerationIsValid() throws IOException {
+        File target = new File(folder, "points.yml");
+        assertNull(SafeFiles.read(target, logger));
+
+        SafeFiles.write(target, bytes("única"));
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        // No hay respaldo: la primera escritura no tenía una generación anterior que guardar.
+        assertNull(SafeFiles.read(target, logger));
+    }
+
+    @Test
+    void readsALegacyFileWithoutHeaderAndKeepsItAsBackup() throws IOException {
+        File target = new File(folder, "points.yml");
+        Files.write(target.toPath(), bytes("jugadores: {}\n"));
+
+        assertEquals("jugadores: {}\n", text(SafeFiles.read(target, logger)));
+
+        // La primera escritura con cabecera deja el archivo antiguo como respaldo.
+        SafeFiles.write(target, bytes("nueva"));
+        assertTrue(Files.readString(target.toPath()).startsWith("#DWSF gen=1 "));
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertEquals("jugadores: {}\n", text(SafeFiles.read(target, logger)));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return (payload != null) ? new String(payload, StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,173 @@
+package com.TNTStudios.deWaltCore.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la cola de escrituras de {@link SqliteDatabase} contra una base real en un archivo temporal.
+ * Cada escritura agrega una fila a {@code log}, así que el orden de los id es el orden en que se ejecutaron.
+ */
+class SqliteDatabaseTest {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE log (id INTEGER PRIMARY KEY AUTOINCREMENT, label TEXT NOT NULL)"
+    };
+    private static final String INSERT_LOG = "INSERT INTO log (label) VALUES (?)";
+
+    @TempDir
+    File folder;
+
+    private final Logger logger = Logger.getLogger("SqliteDatabaseTest");
+    private SqliteDatabase database;
+
+    @BeforeEach
+    void open() throws SQLException {
+        database = new SqliteDatabase(databaseFile(), logger);
+        database.executeSchema(SCHEMA);
+    }
+
+    @AfterEach
+    void close() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void coalescesWritesWithTheSameKeyAtTheLastPosition() throws Exception {
+        // Con el escritor detenido, las cinco escrituras entran en el mismo flush.
+        CountDownLatch resume = pauseWriter();
+        database.enqueue(log("a1", "a"));
+        database.enqueue(log("b", null));
+        database.enqueue(log("a2", "a"));
+        database.enqueue(log("c", null));
+        database.enqueue(log("a3", "a"));
+        resume.countDown();
+        database.runOnWriter(connection -> {});
+
+        assertEquals(List.of("b", "c", "a3"), readLog(database));
+    }
+
+    @Test
+    void requeuesAFailedFlushInItsOriginalOrder() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        CountDownLatch resume = pauseWriter();
+        database.enqueue(log("first", null));
+        database.enqueue(new LogWrite("flaky", null) {
+            @Override
+            public void bind(PreparedStatement statement) throws SQLException {
+                if (failing.get()) {
+                    throw new SQLException("falla de prueba");
+                }
+                super.bind(statement);
+            }
+        });
+        database.enqueue(log("third", null));
+        resume.countDown();
+
+        // El flush falla: se deshace la transacción completa, también la fila que ya se había insertado.
+        assertThrows(SQLException.class, () -> database.runOnWriter(connection -> {}));
+        assertEquals(List.of(), readLog(database));
+
+        // Lo que llega mientras tanto va detrás del lote que falló.
+        database.enqueue(log("later", null));
+        failing.set(false);
+        database.runOnWriter(connection -> {});
+
+        assertEquals(List.of("first", "flaky", "third", "later"), readLog(database));
+    }
+
+    @Test
+    void closeDrainsThePendingWrites() throws Exception {
+        CountDownLatch resume = pauseWriter();
+        for (int i = 0; i < 100; i++) {
+            database.enqueue(log("w" + i, null));
+        }
+        resume.countDown();
+        database.close();
+        database = null;
+
+        SqliteDatabase reopened = new SqliteDatabase(databaseFile(), logger);
+        try {
+            List<String> rows = readLog(reopened);
+            assertEquals(100, rows.size());
+            assertEquals("w0", rows.get(0));
+            assertEquals("w99", rows.get(99));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // --- AYUDANTES ---
+
+    private File databaseFile() {
+        return new File(folder, "test.db");
+    }
+
+    /**
+     * Ocupa el hilo escritor hasta que se suelte el latch, para que ningún flush periódico parta un lote en dos.
+     */
+    private CountDownLatch pauseWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        database.runOnWriterAsync(connection -> {
+            started.countDown();
+            try {
+                resume.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS), "El hilo escritor nunca tomó la pausa.");
+        return resume;
+    }
+
+    private static List<String> readLog(SqliteDatabase database) throws SQLException {
+        List<String> labels = new ArrayList<>();
+        database.query("SELECT label FROM log ORDER BY id", statement -> {}, row -> labels.add(row.getString(1)));
+        return labels;
+    }
+
+    private static SqliteDatabase.Write log(String label, String key) {
+        return new LogWrite(label, key);
+    }
+
+    private static class LogWrite implements SqliteDatabase.Write {
+        private final String label;
+        private final String key;
+
+        LogWrite(String label, String key) {
+            this.label = label;
+            this.key = key;
+        }
+
+        @Override
+        public String sql() {
+            return INSERT_LOG;
+        }
+
+        @Override
+        public void bind(PreparedStatement statement) throws SQLException {
+            statement.setString(1, label);
+        }
+
+        @Override
+        public String coalesceKey() {
+            return key;
+        }
+    }
+}
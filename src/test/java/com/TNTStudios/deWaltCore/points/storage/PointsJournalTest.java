@@ -0,0 +1,157 @@
+package com.TNTStudios.deWaltCore.points.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del journal binario: lo que se escribe se reproduce igual, y un segmento con la cola rota
+ * se reproduce hasta el último registro completo.
+ */
+class PointsJournalTest {
+
+    private static final long MAX_SEGMENT_BYTES = 1024 * 1024;
+    private static final UUID ALICE = new UUID(0x44574C0000000000L, 1);
+    private static final UUID BOB = new UUID(0x44574C0000000000L, 2);
+
+    @TempDir
+    File folder;
+
+    private final Logger logger = Logger.getLogger("PointsJournalTest");
+
+    @Test
+    void replaysWhatWasWrittenAcrossSegments() throws IOException {
+        List<PointEvent> written = List.of(
+                event(ALICE, 1, PointEvent.Kind.COMPLETION, "maze", 95, 50, 50),
+                event(BOB, 2, PointEvent.Kind.SCORE, "bolt_cutter", 12, 30, 30),
+                event(ALICE, 3, PointEvent.Kind.REWARD, "maze", 0, 100, 150),
+                event(BOB, 4, PointEvent.Kind.SCORE, "ñandú", 14, 10, 40));
+
+        PointsJournal journal = open();
+        journal.appendName(ALICE, "Alicia");
+        journal.append(written.get(0));
+        journal.append(written.get(1));
+        // El segmento nuevo empieza con el diccionario completo: "maze" se sigue leyendo bien.
+        journal.roll();
+        journal.appendName(BOB, "Roberto");
+        journal.append(written.get(2));
+        journal.append(written.get(3));
+        journal.close();
+
+        Recorded replayed = replay();
+        assertEquals(written, replayed.events);
+        assertEquals(List.of(ALICE + "=Alicia", BOB + "=Roberto"), replayed.names);
+    }
+
+    @Test
+    void stopsAtATruncatedTail() throws IOException {
+        List<PointEvent> written = List.of(
+                event(ALICE, 1, PointEvent.Kind.COMPLETION, "maze", 95, 50, 50),
+                event(BOB, 2, PointEvent.Kind.SCORE, "bolt_cutter", 12, 30, 30),
+                event(ALICE, 3, PointEvent.Kind.REWARD, "maze", 0, 100, 150));
+        PointsJournal journal = open();
+        for (PointEvent event : written) {
+            journal.append(event);
+        }
+        journal.close();
+
+        // Un apagón a mitad del último registro.
+        File segment = onlySegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - PointsJournal.EVENT_SIZE / 2);
+        }
+        assertEquals(written.subList(0, 2), replay().events);
+
+        // La siguiente sesión abre un segmento nuevo en lugar de escribir detrás del registro roto.
+        PointsJournal next = new PointsJournal(journalFolder(), logger, MAX_SEGMENT_BYTES);
+        next.replay(0, new Recorded());
+        next.openAfter(0, archiveFolder());
+        PointEvent after = event(BOB, 4, PointEvent.Kind.SCORE, "bolt_cutter", 20, 5, 35);
+        next.append(after);
+        next.close();
+
+        assertEquals(List.of(written.get(0), written.get(1), after), replay().events);
+    }
+
+    @Test
+    void stopsAtADamagedRecord() throws IOException {
+        List<PointEvent> written = List.of(
+                event(ALICE, 1, PointEvent.Kind.COMPLETION, "maze", 95, 50, 50),
+                event(BOB, 2, PointEvent.Kind.SCORE, "bolt_cutter", 12, 30, 30));
+        PointsJournal journal = open();
+        for (PointEvent event : written) {
+            journal.append(event);
+        }
+        journal.close();
+
+        // Cambio un byte del último evento: su CRC ya no coincide.
+        File segment = onlySegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long position = file.length() - 10;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+        assertEquals(written.subList(0, 1), replay().events);
+    }
+
+    // --- AYUDANTES ---
+
+    private PointsJournal open() throws IOException {
+        PointsJournal journal = new PointsJournal(journalFolder(), logger, MAX_SEGMENT_BYTES);
+        journal.openAfter(0, archiveFolder());
+        return journal;
+    }
+
+    private Recorded replay() throws IOException {
+        Recorded recorded = new Recorded();
+        new PointsJournal(journalFolder(), logger, MAX_SEGMENT_BYTES).replay(0, recorded);
+        return recorded;
+    }
+
+    private File onlySegment() {
+        File[] segments = journalFolder().listFiles((dir, name) -> name.endsWith(".dwj"));
+        assertNotNull(segments);
+        assertEquals(1, segments.length, () -> "Segmentos: " + Arrays.toString(segments));
+        return segments[0];
+    }
+
+    private File journalFolder() {
+        return new File(folder, "journal");
+    }
+
+    private File archiveFolder() {
+        return new File(folder, "history");
+    }
+
+    private static PointEvent event(UUID uuid, long epochMillis, PointEvent.Kind kind, String minigameId,
+                                    int scoreValue, int pointsAwarded, int newTotal) {
+        return new PointEvent(uuid, epochMillis, kind, minigameId, "test", scoreValue, pointsAwarded, newTotal, scoreValue, 1);
+    }
+
+    private static class Recorded implements PointsJournal.Replay {
+        final List<PointEvent> events = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+
+        @Override
+        public void onEvent(PointEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onName(UUID uuid, String playerName) {
+            names.add(uuid + "=" + playerName);
+        }
+    }
+}